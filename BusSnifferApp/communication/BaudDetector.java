@@ -0,0 +1,135 @@
+package communication;
+
+import com.fazecast.jSerialComm.SerialPort;
+import java.io.PrintStream;
+
+import application.FrameScanner;
+
+/**
+ * Passive baud rate detection
+ * Samples the incoming stream at each candidate rate on a single open port handle
+ * (nothing is transmitted) and scores the rate by valid frames, checksum errors and
+ * the share of printable text. Bytes received at a wrong rate decode as garbage,
+ * so they rarely form checksummed frames or readable text.
+ */
+public class BaudDetector {
+
+    public static final int[] COMMON_RATES = {115200, 57600, 38400, 19200, 9600, 4800, 2400, 1200};
+
+    private static final int DEFAULT_SAMPLE_MS = 90;
+    private static final int SETTLE_MS = 5;
+    private static final int MIN_TEXT_BYTES = 16;
+    private static final int CONFIDENT_FRAMES = 3;
+
+    /**
+     * Score of one candidate rate
+     */
+    public static class Sample {
+        public final int baudRate;
+        public final long bytes;
+        public final long validFrames;
+        public final long checksumErrors;
+        public final double printableRatio;
+        public final double score;
+
+        Sample(int baudRate, FrameScanner scanner) {
+            this.baudRate = baudRate;
+            this.bytes = scanner.getTotalBytes();
+            this.validFrames = scanner.getValidFrames();
+            this.checksumErrors = scanner.getChecksumErrors();
+            this.printableRatio = scanner.getPrintableRatio();
+
+            double s = validFrames * 100.0 - checksumErrors * 25.0;
+            if (bytes >= MIN_TEXT_BYTES && printableRatio > 0.9) {
+                s += printableRatio * 50.0;
+            }
+            this.score = s;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%6d baud: %5d bytes, %3d frames, %3d bad checksums, %3.0f%% text, score %.1f",
+                baudRate, bytes, validFrames, checksumErrors, printableRatio * 100.0, score);
+        }
+    }
+
+    private final int[] candidates;
+    private final int sampleMs;
+
+    public BaudDetector() {
+        this(COMMON_RATES, DEFAULT_SAMPLE_MS);
+    }
+
+    public BaudDetector(int[] candidates, int sampleMs) {
+        this.candidates = candidates;
+        this.sampleMs = sampleMs;
+    }
+
+    /**
+     * Detect the baud rate of the traffic on a port
+     * @return best scoring rate, or -1 if the port could not be opened or nothing decodable was seen
+     */
+    public int detect(String portName) {
+        return detect(portName, null);
+    }
+
+    /**
+     * Detect the baud rate, printing each sample to log (may be null)
+     */
+    public int detect(String portName, PrintStream log) {
+        Sample best = null;
+        SerialPort port = SerialPort.getCommPort(portName);
+        port.setComPortParameters(candidates[0], 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
+        port.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING, 10, 0);
+        if (!port.openPort()) {
+            System.err.println("Cannot open " + portName + " for baud detection");
+            return -1;
+        }
+
+        try {
+            for (int rate : candidates) {
+                Sample sample = sample(port, rate);
+                if (sample == null) continue;
+                if (log != null) log.println("  " + sample);
+                if (best == null || sample.score > best.score) best = sample;
+                if (sample.validFrames >= CONFIDENT_FRAMES && sample.checksumErrors == 0) break;
+            }
+        } finally {
+            port.closePort();
+        }
+
+        return best != null && best.score > 0 ? best.baudRate : -1;
+    }
+
+    /**
+     * Sample one rate on an already open port
+     * Reconfigures the open handle; reopens it only if the driver refuses a live change
+     */
+    public Sample sample(SerialPort port, int rate) {
+        if (!port.setBaudRate(rate)) {
+            port.closePort();
+            port.setBaudRate(rate);
+            if (!port.openPort()) return null;
+        }
+        sleepQuietly(SETTLE_MS);
+        port.flushIOBuffers(); // discard bytes decoded at the previous rate
+
+        FrameScanner scanner = new FrameScanner();
+        byte[] buffer = new byte[512];
+        long deadline = System.currentTimeMillis() + sampleMs;
+        while (System.currentTimeMillis() < deadline) {
+            int n = port.readBytes(buffer, buffer.length);
+            if (n < 0) return null;
+            if (n > 0) scanner.feed(buffer, n, null);
+        }
+        return new Sample(rate, scanner);
+    }
+
+    private static void sleepQuietly(int ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package communication;
+
+import java.io.PrintStream;
+
+import application.AliveSupervisor;
+import application.LatencyHistogram;
+import application.SeatControllerSnifferManager;
+import application.TraceListener;
+import application.TrafficCounters;
+
+/**
+ * top-style live console dashboard
+ * Redraws in place with ANSI escape codes from TrafficCounters snapshots,
+ * so the display never parses printed trace lines
+ */
+public class ConsoleDashboard {
+
+    private static final String HOME = "\033[H";
+    private static final String CLEAR_SCREEN = "\033[2J";
+    private static final String CLEAR_EOL = "\033[K";
+    private static final String CLEAR_BELOW = "\033[J";
+    private static final String BOLD = "\033[1m";
+    private static final String RESET = "\033[0m";
+    private static final int BITS_PER_BYTE = 10; // 8N1
+
+    private final SeatControllerSnifferManager sniffer;
+    private final String portName;
+    private final int baud;
+
+    private TrafficCounters.Snapshot previous;
+    private long previousRawRx;
+    private long previousRawTx;
+
+    public ConsoleDashboard(SeatControllerSnifferManager sniffer, String portName, int baud) {
+        this.sniffer = sniffer;
+        this.portName = portName;
+        this.baud = baud;
+    }
+
+    /**
+     * Take the baseline snapshot and clear the screen
+     */
+    public void begin(PrintStream out) {
+        previous = sniffer.getTrafficCounters().snapshot();
+        TraceListener.CommStatistics stats = sniffer.getStatistics();
+        previousRawRx = stats.bytesReceived;
+        previousRawTx = stats.bytesSent;
+        out.print(CLEAR_SCREEN + HOME);
+        out.flush();
+    }
+
+    /**
+     * Redraw the dashboard with rates since the previous call
+     */
+    public void redraw(PrintStream out) {
+        TrafficCounters counters = sniffer.getTrafficCounters();
+        TrafficCounters.Snapshot now = counters.snapshot();
+        TraceListener.CommStatistics stats = sniffer.getStatistics();
+        double seconds = Math.max(1e-3, (now.nanoTime - previous.nanoTime) / 1e9);
+
+        long rawRx = stats.bytesReceived;
+        long rawTx = stats.bytesSent;
+        double rxUtil = (rawRx - previousRawRx) / seconds * BITS_PER_BYTE / baud * 100.0;
+        double txUtil = (rawTx - previousRawTx) / seconds * BITS_PER_BYTE / baud * 100.0;
+
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append(HOME);
+        line(sb, BOLD + "SEAT CONTROLLER ECU - LIVE DASHBOARD" + RESET
+            + String.format("   %s @ %d baud   (Enter to exit)", portName, baud));
+        line(sb, "");
+        line(sb, String.format("Bus utilisation   RX %5.1f%%   TX %5.1f%%", rxUtil, txUtil));
+        line(sb, String.format("Frames/s          RX %7.0f   TX %7.0f",
+            (now.totalRxFrames() - previous.totalRxFrames()) / seconds,
+            (now.totalTxFrames() - previous.totalTxFrames()) / seconds));
+        line(sb, String.format("Send queue depth  %d", sniffer.getSendQueueDepth()));
+        line(sb, String.format("Decode errors     %d (+%d)   Serial errors %d",
+            now.decodeErrors, now.decodeErrors - previous.decodeErrors, stats.errors));
+        line(sb, String.format("Alive counter gaps %d (+%d)", now.aliveGaps, now.aliveGaps - previous.aliveGaps));
+        AliveSupervisor alive = sniffer.getAliveSupervisor();
+        line(sb, String.format("Alive supervision missing %d  dup %d  late %d  jitter p99 %.3f ms  %s",
+            alive.getMissing(), alive.getDuplicates(), alive.getLate(), alive.getJitter().getPercentile(99) / 1e6,
+            alive.isStalled() ? BOLD + "STALLED" + RESET : "ok"));
+
+        LatencyHistogram latency = counters.getResponseLatency();
+        line(sb, String.format("Response latency  p50 %.3f  p99 %.3f  p99.9 %.3f  max %.3f ms  (n=%d)",
+            latency.getPercentile(50) / 1e6, latency.getPercentile(99) / 1e6,
+            latency.getPercentile(99.9) / 1e6, latency.getMax() / 1e6, latency.getCount()));
+        line(sb, "");
+        line(sb, BOLD + String.format("%-6s %-20s %9s %10s %9s %10s %10s %10s",
+            "ID", "MESSAGE", "RX f/s", "RX B/s", "TX f/s", "TX B/s", "RX total", "TX total") + RESET);
+
+        for (int id = 0; id < 256; id++) {
+            if (now.rxFrames[id] == 0 && now.txFrames[id] == 0) continue;
+            line(sb, String.format("0x%02X   %-20s %9.1f %10.0f %9.1f %10.0f %10d %10d",
+                id, SeatControllerSnifferManager.commandName(id),
+                (now.rxFrames[id] - previous.rxFrames[id]) / seconds,
+                (now.rxBytes[id] - previous.rxBytes[id]) / seconds,
+                (now.txFrames[id] - previous.txFrames[id]) / seconds,
+                (now.txBytes[id] - previous.txBytes[id]) / seconds,
+                now.rxFrames[id], now.txFrames[id]));
+        }
+        sb.append(CLEAR_BELOW);
+
+        out.print(sb);
+        out.flush();
+
+        previous = now;
+        previousRawRx = rawRx;
+        previousRawTx = rawTx;
+    }
+
+    private static void line(StringBuilder sb, String text) {
+        sb.append(text).append(CLEAR_EOL).append('\n');
+    }
+}
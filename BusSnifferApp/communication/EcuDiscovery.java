@@ -0,0 +1,152 @@
+package communication;
+
+import com.fazecast.jSerialComm.SerialPort;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import application.FrameScanner;
+
+/**
+ * Parallel ECU port discovery
+ * Opens every candidate port at once and listens passively (nothing is written)
+ * for a valid 0x7E...0x7F frame or the bridge banner; the first confirmed port wins
+ */
+public class EcuDiscovery {
+
+    public static final long DEFAULT_TIMEOUT_MS = 2500; // Nano resets on open, banner follows ~1.5 s later
+
+    private static final String[] BANNER_MARKERS = {
+        "I2C-UART Bridge", "Bi-directional Bridge Status"
+    };
+    private static final int READ_TIMEOUT_MS = 50;
+    private static final int TEXT_WINDOW = 256;
+
+    /**
+     * A confirmed ECU port
+     */
+    public static class Result {
+        public final String portName;
+        public final String evidence;
+        public final long elapsedMs;
+
+        Result(String portName, String evidence, long elapsedMs) {
+            this.portName = portName;
+            this.evidence = evidence;
+            this.elapsedMs = elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s, %d ms)", portName, evidence, elapsedMs);
+        }
+    }
+
+    private final int baudRate;
+    private final long timeoutMs;
+
+    public EcuDiscovery(int baudRate) {
+        this(baudRate, DEFAULT_TIMEOUT_MS);
+    }
+
+    public EcuDiscovery(int baudRate, long timeoutMs) {
+        this.baudRate = baudRate;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Probe all available ports from the registry snapshot
+     */
+    public Result discover() {
+        List<String> candidates = new ArrayList<>();
+        for (PortUtil.PortInfo info : PortRegistry.getInstance().getSnapshot().ports()) {
+            if (info.isAvailable) candidates.add(info.systemPortName);
+        }
+        return discover(candidates);
+    }
+
+    /**
+     * Probe the given ports concurrently
+     * @return the first confirmed ECU port, or null if none answered before the timeout
+     */
+    public Result discover(Collection<String> portNames) {
+        if (portNames.isEmpty()) return null;
+
+        long start = System.currentTimeMillis();
+        long deadline = start + timeoutMs;
+        AtomicReference<Result> winner = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(portNames.size());
+        List<Thread> probes = new ArrayList<>();
+
+        for (String name : portNames) {
+            Thread t = new Thread(() -> {
+                try {
+                    String evidence = probe(name, deadline, winner);
+                    if (evidence != null) {
+                        winner.compareAndSet(null, new Result(name, evidence, System.currentTimeMillis() - start));
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+            t.setName("EcuProbe-" + name);
+            t.setDaemon(true);
+            probes.add(t);
+            t.start();
+        }
+
+        try {
+            // Stop waiting as soon as one port is confirmed; losers notice the winner and close
+            while (winner.get() == null && !done.await(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (System.currentTimeMillis() > deadline + 500) break;
+            }
+            // The winning port must be closed before the caller can open it
+            for (Thread t : probes) t.join(READ_TIMEOUT_MS * 4);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return winner.get();
+    }
+
+    /**
+     * Listen on one port until it is confirmed, another port wins, or the deadline passes
+     * @return evidence string if this port carries ECU traffic, otherwise null
+     */
+    private String probe(String portName, long deadline, AtomicReference<Result> winner) {
+        SerialPort port = SerialPort.getCommPort(portName);
+        port.setComPortParameters(baudRate, 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
+        port.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING, READ_TIMEOUT_MS, 0);
+        if (!port.openPort()) return null;
+
+        try {
+            FrameScanner scanner = new FrameScanner();
+            StringBuilder text = new StringBuilder(TEXT_WINDOW * 2);
+            byte[] buffer = new byte[1024];
+            int[] firstCmd = {-1};
+
+            while (winner.get() == null && System.currentTimeMillis() < deadline) {
+                int n = port.readBytes(buffer, buffer.length);
+                if (n < 0) return null; // port vanished
+                if (n == 0) continue;
+
+                scanner.feed(buffer, n, (cmdId, payload) -> {
+                    if (firstCmd[0] < 0) firstCmd[0] = cmdId;
+                });
+                if (scanner.getValidFrames() > 0) {
+                    return String.format("frame 0x%02X", firstCmd[0]);
+                }
+
+                text.append(new String(buffer, 0, n, StandardCharsets.US_ASCII));
+                for (String marker : BANNER_MARKERS) {
+                    if (text.indexOf(marker) >= 0) return "bridge banner";
+                }
+                if (text.length() > TEXT_WINDOW) text.delete(0, text.length() - TEXT_WINDOW);
+            }
+            return null;
+        } finally {
+            port.closePort();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package communication;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+
+import application.AliveSupervisor;
+import application.LatencyHistogram;
+import application.SeatControllerSnifferManager;
+import application.SerialComm;
+import application.TraceListener;
+
+/**
+ * Compares the SerialComm I/O modes on a live ECU link
+ * Each mode gets a fresh connection with the spec cycles running for the same
+ * duration. Receive timing is judged by the ALIVE inter-arrival jitter (the
+ * ECU sends ALIVE every 5 ms, so any spread is added on the host side), and
+ * overhead by reads per second, bytes per read, process CPU and thread count.
+ */
+public class IoModeBenchmark {
+
+    /**
+     * Measurements of one mode
+     */
+    public static class Result {
+        final SerialComm.IoMode mode;
+        long reads;
+        long bytes;
+        long aliveFrames;
+        long aliveMissing;
+        double seconds;
+        double cpuPercent = Double.NaN;
+        int threads;
+        final LatencyHistogram jitter = new LatencyHistogram();
+
+        Result(SerialComm.IoMode mode) {
+            this.mode = mode;
+        }
+
+        double readsPerSecond() {
+            return seconds > 0 ? reads / seconds : 0;
+        }
+
+        double bytesPerRead() {
+            return reads > 0 ? (double) bytes / reads : 0;
+        }
+    }
+
+    private final String portName;
+    private final int baud;
+    private final long durationNanos;
+
+    public IoModeBenchmark(String portName, int baud, long durationNanos) {
+        this.portName = portName;
+        this.baud = baud;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Run every mode in turn and print a comparison
+     */
+    public void run(PrintStream out) {
+        SerialComm.IoMode[] modes = SerialComm.IoMode.values();
+        Result[] results = new Result[modes.length];
+        for (int i = 0; i < modes.length; i++) {
+            out.printf("Measuring %s mode for %.1f s...%n", modes[i], durationNanos / 1e9);
+            results[i] = measure(modes[i]);
+            if (results[i] == null) {
+                out.println("✗ Cannot open " + portName);
+                return;
+            }
+        }
+        printComparison(out, results);
+    }
+
+    /**
+     * One mode on a fresh connection
+     * @return null if the port could not be opened
+     */
+    public Result measure(SerialComm.IoMode mode) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threadBean.getThreadCount();
+
+        SeatControllerSnifferManager manager = new SeatControllerSnifferManager(null);
+        manager.setIoMode(mode);
+        manager.setAutoReconnect(false);
+        if (!manager.start(portName, baud)) {
+            manager.close();
+            return null;
+        }
+
+        Result result = new Result(mode);
+        try {
+            manager.startCyclicMessages();
+            // Let the link settle before measuring
+            Thread.sleep(200);
+            TraceListener.CommStatistics stats = manager.getStatistics();
+            AliveSupervisor alive = manager.getAliveSupervisor();
+            alive.reset();
+            long reads0 = stats.messagesReceived;
+            long bytes0 = stats.bytesReceived;
+            long cpu0 = processCpuNanos();
+            long t0 = System.nanoTime();
+
+            Thread.sleep(durationNanos / 1_000_000L);
+            result.threads = threadBean.getThreadCount() - threadsBefore;
+
+            long elapsed = System.nanoTime() - t0;
+            long cpu1 = processCpuNanos();
+            result.seconds = elapsed / 1e9;
+            result.reads = stats.messagesReceived - reads0;
+            result.bytes = stats.bytesReceived - bytes0;
+            result.aliveFrames = alive.getReceived();
+            result.aliveMissing = alive.getMissing();
+            result.jitter.add(alive.getJitter());
+            if (cpu0 >= 0 && cpu1 >= 0) {
+                result.cpuPercent = 100.0 * (cpu1 - cpu0) / elapsed;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            manager.close();
+        }
+        return result;
+    }
+
+    private static long processCpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    public static void printComparison(PrintStream out, Result[] results) {
+        out.println();
+        out.printf("%-9s %9s %9s %7s %7s %9s %9s %9s %8s%n",
+            "Mode", "reads/s", "B/read", "CPU %", "threads", "jit p50", "jit p99", "jit max", "missing");
+        for (Result r : results) {
+            out.printf("%-9s %9.0f %9.1f %7s %7d %9.3f %9.3f %9.3f %8d%n",
+                r.mode, r.readsPerSecond(), r.bytesPerRead(),
+                Double.isNaN(r.cpuPercent) ? "n/a" : String.format("%.1f", r.cpuPercent),
+                r.threads,
+                r.jitter.getPercentile(50) / 1e6, r.jitter.getPercentile(99) / 1e6,
+                r.jitter.getMax() / 1e6, r.aliveMissing);
+        }
+        out.println("(ALIVE jitter in ms; threads = threads added by the connection)");
+        for (Result r : results) {
+            if (r.aliveFrames == 0) {
+                out.println("Note: no ALIVE frames received in " + r.mode + " mode; jitter is not meaningful");
+            }
+        }
+    }
+}
@@ -1,13 +1,28 @@
 package communication;
 
+import java.io.PrintStream;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
+import application.AsyncCaptureLogger;
+import application.CachedTimestampFormatter;
+import application.CyclicScheduler;
+import application.EcuClock;
+import application.MetricsServer;
+import application.MpscRing;
+import application.MultiPortCapture;
+import application.PipelineTracer;
+import application.PreciseTiming;
+import application.ProfileCache;
+import application.ReadSizer;
+import application.RttTester;
 import application.SeatControllerBusSniffer;
 import application.SeatControllerSnifferManager;
+import application.SerialComm;
+import application.SessionPool;
 import application.TraceListener;
 
-import java.text.SimpleDateFormat;
 
 /**
  * Enhanced Main Console Interface for Seat Controller ECU Bus Sniffer
@@ -16,11 +31,19 @@ import java.text.SimpleDateFormat;
 public class Main {
     
     private static final Scanner scanner = new Scanner(System.in);
-    private static SeatControllerSnifferManager sniffer;
+    private static volatile SeatControllerSnifferManager sniffer;
     private static final AtomicBoolean running = new AtomicBoolean(true);
     private static String currentPort = null;
     private static String currentProtocol = "UART";
     private static int currentBaud = 115200;
+    private static SerialComm.IoMode currentIoMode = SerialComm.IoMode.CALLBACK;
+    private static String batchScript = null;
+    private static AsyncCaptureLogger fileLogger = null;
+    private static volatile boolean consoleTraceMuted = false;
+    private static ConsoleTraceListener consoleTrace = null;
+    private static final MetricsServer metricsServer = new MetricsServer(() -> sniffer);
+    private static MultiPortCapture capture = null;
+    private static SessionPool sessionPool = null;
     
     // Command history and statistics
     private static final List<String> commandHistory = new ArrayList<>();
@@ -29,11 +52,25 @@ public class Main {
     public static void main(String[] args) {
         printBanner();
         
+        // Metrics endpoint from seat_sniffer.properties (metrics.port); -metrics overrides
+        String configuredMetricsPort = readSettings().getProperty("metrics.port");
+        if (configuredMetricsPort != null) {
+            startMetrics(configuredMetricsPort.trim());
+        }
+        
         // Handle command line arguments
         if (args.length > 0) {
             handleCommandLineArgs(args);
         }
         
+        // Batch mode: connect, run the script and exit with its result
+        if (batchScript != null) {
+            connectToECU(null);
+            boolean passed = sniffer != null && runScript(batchScript);
+            cleanup();
+            System.exit(passed ? 0 : 1);
+        }
+        
         // Interactive mode
         runInteractiveMode();
         
@@ -80,6 +117,25 @@ public class Main {
                         System.out.println("Protocol forced to UART (I2C/SPI removed)");
                     }
                     break;
+                case "-script":
+                case "--script":
+                    if (i + 1 < args.length) {
+                        batchScript = args[++i];
+                    }
+                    break;
+                case "-io":
+                case "--io":
+                    if (i + 1 < args.length) {
+                        setIoMode(args[++i]);
+                    }
+                    break;
+                case "-metrics":
+                case "--metrics":
+                    if (i + 1 < args.length) {
+                        metricsServer.stop();
+                        startMetrics(args[++i]);
+                    }
+                    break;
                 case "-help":
                 case "--help":
                 case "-h":
@@ -101,11 +157,15 @@ public class Main {
         System.out.println("  -port <name>      Set default COM port (e.g., COM3, /dev/ttyUSB0)");
         System.out.println("  -baud <rate>      Set default baud rate (default: 115200)");
         System.out.println("  -protocol <type>  Legacy option; UART is forced");
+        System.out.println("  -script <file>    Run a command script and exit (exit code 1 on failure)");
+        System.out.println("  -io <mode>        Serial read mode: callback (default) or blocking");
+        System.out.println("  -metrics <port>   Serve Prometheus metrics on http://127.0.0.1:<port>/metrics");
         System.out.println("  -gui              Start graphical interface");
         System.out.println("  -help             Show this help message");
         System.out.println();
         System.out.println("Examples:");
         System.out.println("  java -jar SeatControllerSniffer.jar -port COM3 -baud 115200");
+        System.out.println("  java -jar SeatControllerSniffer.jar -port COM3 -script regression.txt");
         System.out.println("  java -jar SeatControllerSniffer.jar -gui");
     }
     
@@ -137,10 +197,19 @@ public class Main {
         System.out.println("=== MAIN MENU ===");
         System.out.println("Connection Commands:");
         System.out.println("  scan              - Scan for available COM ports");
+        System.out.println("  discover          - Listen on all ports at once and find the ECU");
+        System.out.println("  autobaud [port]   - Detect the baud rate from idle traffic");
+        System.out.println("  capture <port[=name][@baud]>... | stop | status - Merged capture of several ports");
+        System.out.println("  sessions <open <port[=name][@baud]>...|cyclic [start|stop]|status|close> - Many ECUs on a shared thread pool");
         System.out.println("  connect [port]    - Connect to ECU (auto-detect port if not specified)");
         System.out.println("  disconnect        - Disconnect from ECU");
         System.out.println("  status            - Show connection status");
+        System.out.println("  reconnect [on|off] [keep|drop] - Auto-reconnect and queued-frame policy");
         System.out.println("  protocol <type>   - Legacy; shows UART-only note");
+        System.out.println("  iomode [callback|blocking] - Serial read mode for the next connect");
+        System.out.println("  rxmode [low|throughput|adaptive] [chunk] [gap_us] - Per-event, chunked or adaptive reads");
+        System.out.println("  iobench [port] [duration] - Compare the read modes on the ECU link (default 10s)");
+        System.out.println("  rtt <port|tcp:host:port|loop[:us]> [n=1000] [size=8,64,256] [rate=100] [timeout=500] - Round-trip latency");
         System.out.println();
         System.out.println("ECU Commands:");
         System.out.println("  seat <h> <s> <i>  - Send seat control (height, slide, incline)");
@@ -152,12 +221,19 @@ public class Main {
         System.out.println("Profile Commands:");
         System.out.println("  saveprofile <id>  - Save current profile to slot id");
         System.out.println("  loadprofile <id>  - Load profile from slot id");
+        System.out.println("  profiles [sync]   - Show cached profiles; 'sync' reloads all slots in one burst");
         System.out.println();
         System.out.println("Utility Commands:");
         System.out.println("  monitor           - Start continuous monitoring");
+        System.out.println("  script <file>     - Run a timed command script and report latencies");
+        System.out.println("  stress [<n>fps|<p>%|x<scale>] [duration] - Cyclic spec traffic stress test");
+        System.out.println("  cyclic [start|stop|status] - Spec cycles (ALIVE 5 ms, GEARBOX 10 ms, position 2 ms)");
         System.out.println("  send <hex>        - Send raw hex data");
-        System.out.println("  log <on|off>      - Enable/disable logging");
+        System.out.println("  log <on|off|status> [dir] - Enable/disable rotating capture file logging");
         System.out.println("  stats             - Show communication statistics");
+        System.out.println("  pipeline <on [n]|off|reset> - Per-stage receive latency tracing (1 in n frames)");
+        System.out.println("  metrics <on [port]|off|status> - Prometheus endpoint on localhost (default port 9464)");
+        System.out.println("  dashboard [ms]    - Live traffic dashboard (default refresh 500 ms)");
         System.out.println("  history           - Show command history");
         System.out.println("  clear             - Clear screen");
         System.out.println("  help              - Show this menu");
@@ -176,6 +252,30 @@ public class Main {
             case "scan":
                 scanPorts();
                 break;
+            case "discover":
+                discoverECU();
+                break;
+            case "autobaud":
+                autoDetectBaud(input.trim().split("\\s+"));
+                break;
+            case "capture":
+                controlCapture(input.trim().split("\\s+"));
+                break;
+            case "sessions":
+                controlSessions(input.trim().split("\\s+"));
+                break;
+            case "iomode":
+                setIoMode(parts.length > 1 ? parts[1] : null);
+                break;
+            case "rxmode":
+                configureReceiveMode(parts);
+                break;
+            case "iobench":
+                runIoBenchmark(input.trim().split("\\s+"));
+                break;
+            case "rtt":
+                runRttTest(input.trim().split("\\s+"));
+                break;
             case "connect":
                 connectToECU(parts.length > 1 ? parts[1] : null);
                 break;
@@ -207,18 +307,48 @@ public class Main {
             case "loadprofile":
                 loadProfile(parts);
                 break;
+            case "profiles":
+                showProfiles(parts.length > 1 && parts[1].equals("sync"));
+                break;
             case "monitor":
                 startMonitoring();
                 break;
+            case "stress":
+                runStressTest(parts);
+                break;
+            case "cyclic":
+                controlCyclic(parts.length > 1 ? parts[1] : "status");
+                break;
+            case "script":
+                if (parts.length < 2) {
+                    System.err.println("Usage: script <file>");
+                } else if (checkConnection()) {
+                    runScript(input.substring(6).trim());
+                }
+                break;
             case "send":
                 sendRawData(input.substring(4).trim());
                 break;
+            case "reconnect":
+                configureReconnect(parts);
+                break;
             case "log":
-                toggleLogging(parts.length > 1 ? parts[1] : "toggle");
+                toggleLogging(parts.length > 1 ? parts[1] : "toggle",
+                    parts.length > 2 ? input.trim().split("\\s+", 3)[2] : null);
                 break;
             case "stats":
                 showStatistics();
                 break;
+            case "pipeline":
+                configurePipelineTracing(parts);
+                break;
+            case "metrics":
+                configureMetrics(parts);
+                break;
+            case "dashboard":
+            case "top":
+                runDashboard(parts.length > 1 ? parts[1] : null);
+                break;
             case "history":
                 showHistory();
                 break;
@@ -262,15 +392,50 @@ public class Main {
         }
         try {
             int id = Integer.parseInt(parts[1]);
-            sniffer.loadProfile(id);
+            long start = System.nanoTime();
+            sniffer.loadProfileAsync(id).whenComplete((profile, error) -> {
+                if (error != null) {
+                    System.err.println("✗ loadprofile " + id + ": " + error.getMessage());
+                } else {
+                    System.out.printf("✓ %s (%.1f ms)%n", profile, (System.nanoTime() - start) / 1e6);
+                }
+            });
             System.out.println("✓ Loading profile id=" + id);
         } catch (NumberFormatException e) {
             System.err.println("Invalid profile id: " + parts[1]);
         }
     }
     
+    private static void showProfiles(boolean sync) {
+        if (sync) {
+            if (!checkConnection()) return;
+            long start = System.nanoTime();
+            try {
+                Map<Integer, SeatControllerSnifferManager.Profile> loaded = sniffer.loadAllProfilesAsync().get();
+                System.out.printf("✓ %d/%d slots synced in %.1f ms%n", loaded.size(),
+                    SeatControllerSnifferManager.PROFILE_SLOTS, (System.nanoTime() - start) / 1e6);
+            } catch (Exception e) {
+                System.err.println("Profile sync failed: " + e.getMessage());
+                return;
+            }
+        }
+        
+        ProfileCache cache = sniffer != null ? sniffer.getProfileCache() : ProfileCache.forPort(currentPort);
+        Map<Integer, ProfileCache.Entry> cached = cache.getAll();
+        if (cached.isEmpty()) {
+            System.out.println("No cached profiles. Use 'profiles sync' while connected.");
+            return;
+        }
+        System.out.printf("%-4s %10s %10s %12s  %s%n", "ID", "HEIGHT cm", "SLIDE cm", "INCLINE deg", "READ AT");
+        for (ProfileCache.Entry e : cached.values()) {
+            System.out.printf("%-4d %10.2f %10.2f %12.2f  %tF %<tT%n", e.profile.id,
+                e.profile.heightCm, e.profile.slideCm, e.profile.inclineDeg, e.loadedAt);
+        }
+    }
+    
     private static void scanPorts() {
         System.out.println("Scanning for available ports...");
+        PortUtil.rescan();
         PortUtil.listPorts();
         
         // Show recommended ports
@@ -284,18 +449,220 @@ public class Main {
         }
     }
     
+    /**
+     * Probe all free ports concurrently for ECU frames or the bridge banner
+     * @return confirmed port name, or null
+     */
+    private static String discoverECU() {
+        if (sniffer != null && sniffer.isConnected()) {
+            System.out.println("Disconnect first; discovery needs exclusive access to the ports.");
+            return null;
+        }
+        
+        System.out.printf("Listening on all free ports @ %d baud...%n", currentBaud);
+        EcuDiscovery.Result result = new EcuDiscovery(currentBaud).discover();
+        if (result == null) {
+            System.out.println("No ECU traffic detected.");
+            return null;
+        }
+        System.out.println("✓ ECU found on " + result);
+        return result.portName;
+    }
+    
+    // args as typed: port names are case-sensitive on Linux
+    private static void autoDetectBaud(String[] args) {
+        String portName = args.length > 1 ? args[1] : currentPort;
+        if (portName == null) {
+            System.err.println("Usage: autobaud <port>");
+            return;
+        }
+        if (sniffer != null && sniffer.isConnected()) {
+            System.out.println("Disconnect first; baud detection needs exclusive access to the port.");
+            return;
+        }
+        currentBaud = PortUtil.detectBaudRate(portName);
+    }
+    
+    private static void controlCapture(String[] args) {
+        String action = args.length > 1 ? args[1].toLowerCase() : "status";
+        switch (action) {
+            case "stop":
+                if (capture == null) {
+                    System.out.println("No merged capture running");
+                    return;
+                }
+                capture.stop();
+                System.out.println("✓ Merged capture stopped");
+                System.out.println(capture.toSummaryString());
+                capture = null;
+                return;
+            case "status":
+                System.out.println(capture == null ? "No merged capture running" : capture.toSummaryString());
+                return;
+            default:
+                break;
+        }
+        if (capture != null) {
+            System.out.println("Merged capture already running. Use 'capture stop' first.");
+            return;
+        }
+        
+        if (consoleTrace == null) {
+            consoleTrace = new ConsoleTraceListener();
+        }
+        MultiPortCapture merged = new MultiPortCapture();
+        for (int i = 1; i < args.length; i++) {
+            PortSpec spec = PortSpec.parse(args[i], currentBaud);
+            if (spec == null) {
+                merged.stop();
+                return;
+            }
+            if (merged.addSource(spec.name, spec.portName, spec.baud) == null) {
+                System.err.println("✗ Cannot open " + spec.portName);
+                merged.stop();
+                return;
+            }
+            System.out.printf("✓ %s: %s @ %d baud%n", spec.name, spec.portName, spec.baud);
+        }
+        if (merged.getSources().isEmpty()) {
+            System.err.println("Usage: capture <port[=name][@baud]> [<port[=name][@baud]> ...] | stop | status");
+            return;
+        }
+        
+        ConsoleTraceListener console = consoleTrace;
+        merged.addListener(event -> console.onTrace(formatCaptureEvent(event), event.nanos));
+        merged.start();
+        capture = merged;
+        System.out.println("Merged capture running on " + merged.getSources().size()
+            + " ports (holdback " + merged.getHoldbackMs() + " ms)");
+    }
+    
+    private static void controlSessions(String[] args) {
+        String action = args.length > 1 ? args[1].toLowerCase() : "status";
+        switch (action) {
+            case "open":
+                if (args.length < 3) {
+                    System.err.println("Usage: sessions open <port[=name][@baud]> ...");
+                    return;
+                }
+                if (sessionPool == null) {
+                    sessionPool = new SessionPool();
+                }
+                for (int i = 2; i < args.length; i++) {
+                    PortSpec spec = PortSpec.parse(args[i], currentBaud);
+                    if (spec == null) continue;
+                    if (sessionPool.open(spec.name, spec.portName, spec.baud, null) != null) {
+                        System.out.printf("✓ %s: %s @ %d baud%n", spec.name, spec.portName, spec.baud);
+                    } else {
+                        System.err.println("✗ Cannot open " + spec.portName);
+                    }
+                }
+                break;
+            case "cyclic":
+                if (sessionPool == null) {
+                    System.out.println("No sessions open");
+                    return;
+                }
+                boolean start = args.length < 3 || !args[2].equalsIgnoreCase("stop");
+                for (SessionPool.Session session : sessionPool.getSessions()) {
+                    if (start) sessionPool.startCyclic(session);
+                    else sessionPool.stopCyclic(session);
+                }
+                System.out.println("Cyclic messages " + (start ? "started" : "stopped") + " on all sessions");
+                break;
+            case "status":
+                System.out.println(sessionPool == null ? "No sessions open" : sessionPool.toSummaryString());
+                break;
+            case "close":
+                if (sessionPool != null) {
+                    System.out.println(sessionPool.toSummaryString());
+                    sessionPool.close();
+                    sessionPool = null;
+                }
+                System.out.println("✓ Sessions closed");
+                break;
+            default:
+                System.err.println("Usage: sessions <open <port[=name][@baud]>...|cyclic [start|stop]|status|close>");
+        }
+    }
+    
+    /**
+     * Port argument of the form port[=name][@baud]
+     */
+    private static final class PortSpec {
+        final String portName;
+        final String name;
+        final int baud;
+        
+        private PortSpec(String portName, String name, int baud) {
+            this.portName = portName;
+            this.name = name;
+            this.baud = baud;
+        }
+        
+        /**
+         * @return null (after printing why) if the spec is invalid or the port is not available
+         */
+        static PortSpec parse(String spec, int defaultBaud) {
+            int baud = defaultBaud;
+            int at = spec.indexOf('@');
+            if (at >= 0) {
+                try {
+                    baud = Integer.parseInt(spec.substring(at + 1));
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid baud rate in " + spec);
+                    return null;
+                }
+                spec = spec.substring(0, at);
+            }
+            int eq = spec.indexOf('=');
+            String portName = eq >= 0 ? spec.substring(0, eq) : spec;
+            String name = eq >= 0 ? spec.substring(eq + 1) : portName;
+            
+            if (!PortUtil.isValidPortName(portName) || !PortUtil.isPortAvailable(portName)) {
+                System.err.println("Port not available: " + portName);
+                return null;
+            }
+            return new PortSpec(portName, name, baud);
+        }
+    }
+    
+    private static String formatCaptureEvent(MultiPortCapture.Event event) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append('[').append(event.source).append("] ").append(event.kind);
+        if (event.kind == MultiPortCapture.Kind.TEXT) {
+            return sb.append(' ').append(event.text).toString();
+        }
+        if (!Double.isNaN(event.ecuMillis)) EcuClock.appendEcuTime(sb, event.ecuMillis);
+        sb.append(String.format(" 0x%02X %s", event.cmdId, SeatControllerSnifferManager.commandName(event.cmdId)));
+        for (byte b : event.payload) {
+            sb.append(String.format(" %02X", b & 0xFF));
+        }
+        return sb.toString();
+    }
+    
     private static void connectToECU(String portName) {
         if (sniffer != null && sniffer.isConnected()) {
             System.out.println("Already connected. Use 'disconnect' first.");
             return;
         }
-        
+        if (sniffer != null && sniffer.isReconnecting()) {
+            System.out.println("Reconnecting to " + currentPort + ". Use 'disconnect' first.");
+            return;
+        }
+        if (sniffer != null) {
+            // A failed or dropped session may still hold the port or a watcher
+            sniffer.close();
+            sniffer = null;
+        }
+
         // Auto-detect port if not specified
         if (portName == null) {
             if (currentPort != null) {
                 portName = currentPort;
             } else {
-                portName = PortUtil.getDefaultPort();
+                String discovered = discoverECU();
+                portName = discovered != null ? discovered : PortUtil.getDefaultPort();
                 System.out.println("Auto-detected port: " + portName);
             }
         }
@@ -312,7 +679,15 @@ public class Main {
         }
         
         // Create sniffer with console trace listener
-        sniffer = new SeatControllerSnifferManager(new ConsoleTraceListener());
+        if (consoleTrace == null) {
+            consoleTrace = new ConsoleTraceListener();
+        }
+        sniffer = new SeatControllerSnifferManager(consoleTrace);
+        sniffer.setIoMode(currentIoMode);
+        if (fileLogger != null) {
+            fileLogger.setEcuClock(sniffer.getEcuClock());
+            sniffer.addFrameObserver(fileLogger);
+        }
         
         System.out.printf("Connecting to %s @ %d baud (%s protocol)...\n", 
             portName, currentBaud, currentProtocol);
@@ -363,6 +738,161 @@ public class Main {
         }
     }
     
+    private static void setIoMode(String mode) {
+        if (mode != null) {
+            try {
+                currentIoMode = SerialComm.IoMode.valueOf(mode.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Usage: iomode [callback|blocking]");
+                return;
+            }
+        }
+        System.out.println("I/O mode: " + currentIoMode
+            + (sniffer != null && sniffer.getIoMode() != currentIoMode ? " (applies on next connect)" : ""));
+    }
+    
+    private static void configureReceiveMode(String[] parts) {
+        if (!checkConnection()) return;
+        
+        ReadSizer sizer = sniffer.getReadSizer();
+        if (parts.length > 1) {
+            if ((parts[1].equals("throughput") || parts[1].equals("adaptive")) && !sniffer.supportsBatchedReads()) {
+                System.err.println("rxmode " + parts[1] + " needs the blocking reader: 'iomode blocking', then reconnect");
+                return;
+            }
+            switch (parts[1]) {
+                case "low":
+                    sizer.setMode(ReadSizer.Mode.LOW_LATENCY);
+                    break;
+                case "throughput":
+                    sizer.setMode(ReadSizer.Mode.THROUGHPUT);
+                    break;
+                case "adaptive":
+                    sizer.setMode(ReadSizer.Mode.ADAPTIVE);
+                    break;
+                case "reset":
+                    sizer.resetStats();
+                    break;
+                default:
+                    System.err.println("Usage: rxmode [low|throughput|adaptive|reset] [chunk_bytes] [gap_us]");
+                    return;
+            }
+            try {
+                int chunk = parts.length > 2 ? Integer.parseInt(parts[2]) : sizer.getMinChunk();
+                long gap = parts.length > 3 ? Long.parseLong(parts[3]) : sizer.getInterByteTimeoutMicros();
+                sizer.setChunk(chunk, gap);
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid chunk size or gap");
+            }
+        }
+        System.out.println("Receive: " + sizer.toSummaryString());
+    }
+    
+    private static void runIoBenchmark(String[] args) {
+        if (sniffer != null) {
+            System.out.println("Disconnect first; the benchmark opens the port itself.");
+            return;
+        }
+        String portName = currentPort;
+        long durationNanos = 10_000_000_000L;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                if (Character.isDigit(args[i].charAt(0))) {
+                    durationNanos = application.PreciseTiming.parseDuration(args[i]);
+                } else {
+                    portName = args[i];
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Usage: iobench [port] [duration]");
+            return;
+        }
+        if (portName == null) {
+            System.err.println("No port given and no default port set");
+            return;
+        }
+        new IoModeBenchmark(portName, currentBaud, durationNanos).run(System.out);
+    }
+    
+    private static void runRttTest(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: rtt <port|tcp:host:port|loop[:delay_us]> [n=1000] [size=8,64,256] [rate=100] [timeout=500] [warmup=50]");
+            System.err.println("The far end must echo the probe frames (loopback plug or echo server).");
+            return;
+        }
+        int probes = 1000;
+        int[] sizes = { 8, 64, 256 };
+        double rate = 100;
+        long timeoutMs = 500;
+        int warmup = 50;
+        try {
+            for (int i = 2; i < args.length; i++) {
+                String[] kv = args[i].toLowerCase().split("=", 2);
+                if (kv.length != 2) throw new IllegalArgumentException(args[i]);
+                switch (kv[0]) {
+                    case "n":
+                        probes = Integer.parseInt(kv[1]);
+                        break;
+                    case "size":
+                        String[] list = kv[1].split(",");
+                        sizes = new int[list.length];
+                        for (int j = 0; j < list.length; j++) sizes[j] = Integer.parseInt(list[j]);
+                        break;
+                    case "rate":
+                        rate = Double.parseDouble(kv[1]);
+                        break;
+                    case "timeout":
+                        timeoutMs = Long.parseLong(kv[1]);
+                        break;
+                    case "warmup":
+                        warmup = Integer.parseInt(kv[1]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid option: " + e.getMessage());
+            return;
+        }
+        
+        String target = args[1];
+        RttTester.Link link;
+        try {
+            if (target.equalsIgnoreCase("loop") || target.toLowerCase().startsWith("loop:")) {
+                long delayUs = target.length() > 5 ? Long.parseLong(target.substring(5)) : 0;
+                link = new RttTester.LoopbackLink(delayUs);
+            } else if (target.toLowerCase().startsWith("tcp:")) {
+                int colon = target.lastIndexOf(':');
+                if (colon <= 4) throw new IllegalArgumentException(target);
+                link = new RttTester.TcpLink(target.substring(4, colon), Integer.parseInt(target.substring(colon + 1)));
+            } else {
+                if (sniffer != null && target.equalsIgnoreCase(currentPort)) {
+                    System.out.println("Disconnect first; the test opens the port itself.");
+                    return;
+                }
+                RttTester.SerialLink serial = new RttTester.SerialLink(target, currentBaud);
+                serial.getComm().setIoMode(currentIoMode);
+                link = serial;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid target: " + target);
+            return;
+        }
+        
+        RttTester tester = new RttTester(link).setProbes(probes).setRate(rate)
+            .setWarmup(warmup).setTimeoutMs(timeoutMs);
+        System.out.println("RTT test: " + tester.describe());
+        RttTester.Result[] results = tester.run(sizes);
+        if (results == null) {
+            System.out.println("✗ Cannot open " + target);
+            return;
+        }
+        for (RttTester.Result r : results) {
+            if (r != null) System.out.println("  " + r.toSummaryString());
+        }
+    }
+    
     private static void setProtocol(String protocol) {
         if (protocol == null) {
             System.out.println("Current protocol: " + currentProtocol);
@@ -519,6 +1049,114 @@ public class Main {
         monitorThread.start();
     }
     
+    private static void controlCyclic(String action) {
+        if (!checkConnection()) return;
+        
+        switch (action) {
+            case "start":
+                if (sniffer.startCyclicMessages()) {
+                    System.out.println("Cyclic messages started (ALIVE 5 ms, GEARBOX 10 ms, position 2 ms)");
+                }
+                break;
+            case "stop":
+                CyclicScheduler finished = sniffer.stopCyclicMessages();
+                if (finished == null) {
+                    System.out.println("Cyclic messages are not running");
+                } else {
+                    System.out.println("Cyclic messages stopped");
+                    printCyclicStatus(finished);
+                }
+                break;
+            case "status":
+                CyclicScheduler current = sniffer.getCyclicScheduler();
+                if (current == null) {
+                    System.out.println("Cyclic messages are not running");
+                } else {
+                    printCyclicStatus(current);
+                }
+                break;
+            default:
+                System.err.println("Usage: cyclic [start|stop|status]");
+        }
+    }
+    
+    private static void printCyclicStatus(CyclicScheduler scheduler) {
+        System.out.println("Release jitter: " + scheduler.getJitter().toSummaryString());
+        for (CyclicScheduler.Task task : scheduler.getTasks()) {
+            System.out.println("  " + task.toSummaryString());
+        }
+        System.out.println("Missed deadlines: " + scheduler.getTotalMissed());
+    }
+    
+    private static void runStressTest(String[] parts) {
+        if (!checkConnection()) return;
+        
+        double scale = 1.0;
+        long durationNanos = 10_000_000_000L; // 10 seconds
+        try {
+            for (int i = 1; i < parts.length; i++) {
+                String arg = parts[i];
+                if (arg.endsWith("fps")) {
+                    scale = TrafficGenerator.scaleForFrameRate(Double.parseDouble(arg.substring(0, arg.length() - 3)));
+                } else if (arg.endsWith("%")) {
+                    scale = TrafficGenerator.scaleForBusLoad(Double.parseDouble(arg.substring(0, arg.length() - 1)), currentBaud);
+                } else if (arg.startsWith("x")) {
+                    scale = Double.parseDouble(arg.substring(1));
+                } else {
+                    durationNanos = application.PreciseTiming.parseDuration(arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Usage: stress [<n>fps|<p>%|x<scale>] [duration]");
+            System.err.println("Example: stress 50% 30s");
+            return;
+        }
+        
+        TrafficGenerator generator;
+        try {
+            generator = new TrafficGenerator(sniffer, scale, durationNanos);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        System.out.printf("Starting stress test: %.0f fps offered (%.2fx spec) for %.1f s%n",
+            generator.offeredFrameRate(), scale, durationNanos / 1e9);
+        System.out.println("Press Enter to stop early");
+        
+        generator.start();
+        try {
+            while (generator.isRunning()) {
+                Thread.sleep(1000);
+                generator.printProgress(System.out, currentBaud);
+                if (stdinHasInput()) {
+                    scanner.nextLine();
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        generator.stop();
+        generator.printSummary(System.out, currentBaud);
+    }
+    
+    private static boolean stdinHasInput() {
+        try {
+            return System.in.available() > 0;
+        } catch (java.io.IOException e) {
+            return false;
+        }
+    }
+    
+    private static boolean runScript(String path) {
+        java.io.File file = new java.io.File(path);
+        if (!file.isFile()) {
+            System.err.println("Script not found: " + path);
+            return false;
+        }
+        return new ScriptRunner(sniffer, System.out).run(file);
+    }
+    
     private static void sendRawData(String hexData) {
         if (!checkConnection()) return;
         
@@ -538,25 +1176,115 @@ public class Main {
         }
     }
     
-    private static void toggleLogging(String state) {
+    private static void configureReconnect(String[] parts) {
+        if (!checkConnection()) return;
+        
+        for (int i = 1; i < parts.length; i++) {
+            switch (parts[i]) {
+                case "on":
+                    sniffer.setAutoReconnect(true);
+                    break;
+                case "off":
+                    sniffer.setAutoReconnect(false);
+                    break;
+                case "keep":
+                    sniffer.setQueuePolicy(SerialComm.QueuePolicy.KEEP);
+                    break;
+                case "drop":
+                    sniffer.setQueuePolicy(SerialComm.QueuePolicy.DROP);
+                    break;
+                default:
+                    System.err.println("Usage: reconnect [on|off] [keep|drop]");
+                    return;
+            }
+        }
+        
+        System.out.printf("Auto-reconnect: %s, queued frames while down: %s%s%n",
+            sniffer.isAutoReconnect() ? "ON" : "OFF", sniffer.getQueuePolicy(),
+            sniffer.isReconnecting() ? " (reconnecting now)" : "");
+    }
+    
+    private static void toggleLogging(String state, String directory) {
         switch (state.toLowerCase()) {
             case "on":
             case "enable":
-                System.out.println("✓ Logging enabled");
-                // Implementation would enable file logging
+                if (fileLogger != null) {
+                    System.out.println("Logging already enabled: " + fileLogger.getCurrentFile());
+                    return;
+                }
+                AsyncCaptureLogger logger = new AsyncCaptureLogger(loadLogConfig(directory));
+                if (!logger.start()) {
+                    System.err.println("✗ Could not enable logging");
+                    return;
+                }
+                fileLogger = logger;
+                if (sniffer != null) {
+                    logger.setEcuClock(sniffer.getEcuClock());
+                    sniffer.addFrameObserver(logger);
+                }
+                System.out.println("✓ Logging enabled: " + logger.getCurrentFile());
                 break;
             case "off":
             case "disable":
+                if (fileLogger == null) {
+                    System.out.println("Logging is not enabled.");
+                    return;
+                }
+                stopLogging();
                 System.out.println("✓ Logging disabled");
-                // Implementation would disable file logging
                 break;
+            case "status":
             case "toggle":
             default:
-                System.out.println("Logging toggle not implemented in demo version");
+                if (fileLogger == null) {
+                    System.out.println("Logging: OFF");
+                } else {
+                    AsyncCaptureLogger.Config c = fileLogger.getConfig();
+                    System.out.println("Logging: ON -> " + fileLogger.getCurrentFile());
+                    System.out.printf("  events=%d dropped=%d rotations=%d%n",
+                        fileLogger.getEventsWritten(), fileLogger.getDroppedCount(), fileLogger.getFilesRotated());
+                    System.out.printf("  maxSize=%.1f MB rotate=%d min keep=%d gzip=%s%n",
+                        c.maxFileBytes / 1048576.0, c.rotateIntervalMs / 60_000, c.maxFiles, c.gzip);
+                }
                 break;
         }
     }
     
+    private static void stopLogging() {
+        if (fileLogger == null) return;
+        if (sniffer != null) {
+            sniffer.removeFrameObserver(fileLogger);
+        }
+        fileLogger.stop();
+        fileLogger = null;
+    }
+    
+    private static Properties readSettings() {
+        Properties p = new Properties();
+        java.io.File f = new java.io.File("seat_sniffer.properties");
+        if (f.exists()) {
+            try (java.io.FileInputStream in = new java.io.FileInputStream(f)) {
+                p.load(in);
+            } catch (Exception e) {
+                System.err.println("Cannot read seat_sniffer.properties: " + e.getMessage());
+            }
+        }
+        return p;
+    }
+    
+    private static AsyncCaptureLogger.Config loadLogConfig(String directory) {
+        Properties p = readSettings();
+        if (directory != null) {
+            p.setProperty("log.dir", directory);
+        }
+        try {
+            return AsyncCaptureLogger.Config.fromProperties(p);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid log.* setting, using defaults: " + e.getMessage());
+            return new AsyncCaptureLogger.Config();
+        }
+    }
+    
     private static void showStatistics() {
         if (sniffer == null) {
             System.out.println("No connection statistics available.");
@@ -566,12 +1294,19 @@ public class Main {
         TraceListener.CommStatistics stats = sniffer.getStatistics();
         System.out.println("=== Communication Statistics ===");
         System.out.printf("Messages Received: %d\n", stats.messagesReceived);
-        System.out.printf("Messages Sent: %d\n", stats.messagesSent);
+        System.out.printf("Serial Writes: %d (%d frames)\n", stats.messagesSent,
+            sniffer.getTrafficCounters().snapshot().totalTxFrames());
         System.out.printf("Bytes Received: %d\n", stats.bytesReceived);
         System.out.printf("Bytes Sent: %d\n", stats.bytesSent);
         System.out.printf("Errors: %d\n", stats.errors);
         System.out.printf("Message Rate: %.1f msg/s\n", stats.getMessageRate());
         System.out.printf("Byte Rate: %.1f bytes/s\n", stats.getByteRate());
+        System.out.println("Alive: " + sniffer.getAliveSupervisor().toSummaryString());
+        System.out.println("ECU clock: " + sniffer.getEcuClock().toSummaryString());
+        System.out.println("Receive: " + sniffer.getReadSizer().toSummaryString());
+        if (sniffer.getPipelineTracer().isEnabled() || sniffer.getPipelineTracer().getEndToEnd().getCount() > 0) {
+            System.out.println(sniffer.getPipelineTracer().toReportString());
+        }
         
         if (currentPort != null) {
             System.out.printf("Connection: %s @ %d baud (%s)\n", 
@@ -579,6 +1314,114 @@ public class Main {
         }
     }
     
+    private static void configurePipelineTracing(String[] parts) {
+        if (!checkConnection()) return;
+        
+        PipelineTracer tracer = sniffer.getPipelineTracer();
+        String action = parts.length > 1 ? parts[1] : "status";
+        switch (action) {
+            case "on":
+                if (parts.length > 2) {
+                    try {
+                        tracer.setSampleEvery(Integer.parseInt(parts[2]));
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid sample rate: " + parts[2]);
+                        return;
+                    }
+                }
+                tracer.setEnabled(true);
+                System.out.println("Pipeline tracing on (1 in " + tracer.getSampleEvery() + " frames); see 'stats'");
+                break;
+            case "off":
+                tracer.setEnabled(false);
+                System.out.println("Pipeline tracing off");
+                break;
+            case "reset":
+                tracer.reset();
+                System.out.println("Pipeline histograms cleared");
+                break;
+            case "status":
+                System.out.println(tracer.toReportString());
+                break;
+            default:
+                System.err.println("Usage: pipeline <on [n]|off|reset|status>");
+        }
+    }
+    
+    private static void configureMetrics(String[] parts) {
+        String action = parts.length > 1 ? parts[1] : "status";
+        switch (action) {
+            case "on":
+                if (metricsServer.isRunning()) {
+                    System.out.println("Metrics already served on port " + metricsServer.getPort());
+                } else {
+                    startMetrics(parts.length > 2 ? parts[2] : "9464");
+                }
+                break;
+            case "off":
+                metricsServer.stop();
+                System.out.println("Metrics endpoint stopped");
+                break;
+            case "status":
+                if (metricsServer.isRunning()) {
+                    System.out.printf("Metrics: http://127.0.0.1:%d/metrics (%d scrapes)%n",
+                        metricsServer.getPort(), metricsServer.getScrapes());
+                } else {
+                    System.out.println("Metrics endpoint is off");
+                }
+                break;
+            default:
+                System.err.println("Usage: metrics <on [port]|off|status>");
+        }
+    }
+    
+    private static void startMetrics(String port) {
+        try {
+            int p = Integer.parseInt(port);
+            if (p <= 0) return; // 0 = disabled
+            if (metricsServer.start(p)) {
+                System.out.println("✓ Metrics: http://127.0.0.1:" + metricsServer.getPort() + "/metrics");
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid metrics port: " + port);
+        }
+    }
+    
+    private static void runDashboard(String refresh) {
+        if (!checkConnection()) return;
+        
+        int refreshMs = 500;
+        if (refresh != null) {
+            try {
+                refreshMs = Math.max(100, Integer.parseInt(refresh));
+            } catch (NumberFormatException e) {
+                System.err.println("Usage: dashboard [refresh_ms]");
+                return;
+            }
+        }
+        
+        ConsoleDashboard dashboard = new ConsoleDashboard(sniffer, currentPort, currentBaud);
+        consoleTraceMuted = true;
+        try {
+            dashboard.begin(System.out);
+            long next = System.nanoTime();
+            while (sniffer != null && sniffer.isConnected()) {
+                next += refreshMs * 1_000_000L;
+                Thread.sleep(Math.max(0, (next - System.nanoTime()) / 1_000_000L));
+                dashboard.redraw(System.out);
+                if (stdinHasInput()) {
+                    scanner.nextLine();
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            consoleTraceMuted = false;
+        }
+        System.out.println();
+    }
+    
     private static void showHistory() {
         System.out.println("=== Command History ===");
         if (commandHistory.isEmpty()) {
@@ -683,58 +1526,216 @@ public class Main {
         if (sniffer != null) {
             sniffer.close();
         }
+        if (capture != null) {
+            capture.stop();
+        }
+        if (sessionPool != null) {
+            sessionPool.close();
+        }
+        stopLogging();
+        metricsServer.stop();
+        if (consoleTrace != null) {
+            consoleTrace.close();
+        }
         scanner.close();
     }
     
     /**
      * Console implementation of TraceListener
+     * Callers only enqueue events; a background writer formats them and prints
+     * whole batches, so a slow terminal never backs up the dispatcher
      */
     public static class ConsoleTraceListener implements TraceListener {
-        private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS");
-        
+        private static final int KIND_TRACE = 0;
+        private static final int KIND_FRAME = 1;
+        private static final int KIND_SEAT_MSG = 2;
+        private static final int KIND_FAULT = 3;
+        private static final int KIND_CONNECTION = 4;
+
+        private static final int RING_CAPACITY = 32768;
+        private static final int WRITE_BATCH = 512;
+        private static final int BUFFER_CHARS = 64 * 1024;
+        private static final long FLUSH_INTERVAL_NS = 50_000_000L; // 50 ms
+        private static final long IDLE_PARK_NS = 100_000_000L;     // 100 ms; offers unpark the writer
+        private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+        private static final class TraceEvent {
+            final int kind;
+            final long wallMillis;
+            final Object a;
+            final Object b;
+            final String c;
+
+            TraceEvent(int kind, long wallMillis, Object a, Object b, String c) {
+                this.kind = kind;
+                this.wallMillis = wallMillis;
+                this.a = a;
+                this.b = b;
+                this.c = c;
+            }
+        }
+
+        private final MpscRing<TraceEvent> ring = new MpscRing<>(RING_CAPACITY);
+        private final PrintStream out;
+        private volatile boolean running = true;
+        private final Thread writerThread;
+
+        // Writer-thread state
+        private final CachedTimestampFormatter timeFormat = new CachedTimestampFormatter();
+        private final StringBuilder buffer = new StringBuilder(BUFFER_CHARS);
+        private long reportedDrops;
+
+        public ConsoleTraceListener() {
+            this(System.out);
+        }
+
+        public ConsoleTraceListener(PrintStream out) {
+            this.out = out;
+            writerThread = new Thread(this::writerLoop);
+            writerThread.setName("ConsoleTraceWriter");
+            writerThread.setDaemon(true);
+            ring.setConsumer(writerThread);
+            writerThread.start();
+        }
+
         @Override
         public void onTrace(String message) {
-            String timestamp = timeFormat.format(new Date());
-            System.out.println("[" + timestamp + "] " + message);
+            onTrace(message, System.nanoTime());
         }
-        
+
+        @Override
+        public void onTrace(String message, long nanoTime) {
+            AsyncCaptureLogger logger = fileLogger;
+            if (logger != null) {
+                logger.logText(message, nanoTime);
+            }
+            if (consoleTraceMuted) return;
+            ring.offer(new TraceEvent(KIND_TRACE, PreciseTiming.toWallMillis(nanoTime), null, null, message));
+        }
+
         @Override
         public void onFrame(byte[] data, int len) {
-            String timestamp = timeFormat.format(new Date());
-            String hexData = bytesToHex(Arrays.copyOf(data, len));
-            System.out.println("[" + timestamp + "] FRAME: " + hexData);
+            onFrame(data, len, System.nanoTime());
         }
-        
+
+        @Override
+        public void onFrame(byte[] data, int len, long rxNanos) {
+            onFrame(data, len, rxNanos, Double.NaN);
+        }
+
+        @Override
+        public void onFrame(byte[] data, int len, long rxNanos, double ecuMillis) {
+            if (consoleTraceMuted) return;
+            Double ecu = Double.isNaN(ecuMillis) ? null : ecuMillis;
+            ring.offer(new TraceEvent(KIND_FRAME, PreciseTiming.toWallMillis(rxNanos), Arrays.copyOf(data, len), ecu, null));
+        }
+
         @Override
         public void onSeatControllerMessage(SeatControllerMessageType messageType, Object data) {
-            String timestamp = timeFormat.format(new Date());
-            System.out.printf("[%s] SEAT_MSG: %s = %s%n", timestamp, messageType, data);
+            if (consoleTraceMuted) return;
+            ring.offer(new TraceEvent(KIND_SEAT_MSG, System.currentTimeMillis(), messageType, data, null));
         }
-        
+
         // onEEPROMResponse removed
-        
+
         @Override
         public void onFaultStatus(int faultNumber, boolean active, long timestamp) {
-            String timeStr = timeFormat.format(new Date(timestamp));
-            String status = active ? "ACTIVE" : "CLEARED";
-            System.out.printf("[%s] FAULT_%d: %s%n", timeStr, faultNumber, status);
+            if (consoleTraceMuted) return;
+            ring.offer(new TraceEvent(KIND_FAULT, timestamp, faultNumber, active, null));
         }
-        
+
         @Override
         public void onConnectionStatus(boolean connected, String portName, String protocol) {
-            String timestamp = timeFormat.format(new Date());
-            String status = connected ? "CONNECTED" : "DISCONNECTED";
-            System.out.printf("[%s] CONNECTION: %s - %s (%s)%n", 
-                timestamp, status, portName, protocol);
+            if (consoleTraceMuted) return;
+            ring.offer(new TraceEvent(KIND_CONNECTION, System.currentTimeMillis(), connected, portName, protocol));
         }
-        
+
+        /**
+         * Print everything still queued and stop the writer thread
+         */
+        public void close() {
+            running = false;
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // ======= WRITER THREAD =======
+
+        private void writerLoop() {
+            long lastFlush = System.nanoTime();
+
+            while (running || ring.size() > 0) {
+                int n = ring.drain(this::format, WRITE_BATCH);
+
+                long drops = ring.getDroppedCount();
+                if (drops != reportedDrops) {
+                    buffer.append("[console] ").append(drops - reportedDrops)
+                        .append(" trace lines dropped (console too slow)\n");
+                    reportedDrops = drops;
+                }
+
+                long now = System.nanoTime();
+                if (buffer.length() > 0 && (n == 0 || buffer.length() >= BUFFER_CHARS
+                        || now - lastFlush >= FLUSH_INTERVAL_NS)) {
+                    out.print(buffer);
+                    out.flush();
+                    buffer.setLength(0);
+                    lastFlush = now;
+                }
+                if (n == 0 && running) LockSupport.parkNanos(IDLE_PARK_NS);
+            }
+
+            if (buffer.length() > 0) {
+                out.print(buffer);
+                out.flush();
+                buffer.setLength(0);
+            }
+        }
+
+        private void format(TraceEvent ev) {
+            buffer.append('[').append(timeFormat.format(ev.wallMillis)).append("] ");
+            switch (ev.kind) {
+                case KIND_TRACE:
+                    buffer.append(ev.c);
+                    break;
+                case KIND_FRAME:
+                    buffer.append("FRAME: ");
+                    appendHex(buffer, (byte[]) ev.a);
+                    if (ev.b != null) EcuClock.appendEcuTime(buffer, (Double) ev.b);
+                    break;
+                case KIND_SEAT_MSG:
+                    buffer.append("SEAT_MSG: ").append(ev.a).append(" = ").append(ev.b);
+                    break;
+                case KIND_FAULT:
+                    buffer.append("FAULT_").append(ev.a).append(": ")
+                        .append((Boolean) ev.b ? "ACTIVE" : "CLEARED");
+                    break;
+                case KIND_CONNECTION:
+                    buffer.append("CONNECTION: ").append((Boolean) ev.a ? "CONNECTED" : "DISCONNECTED")
+                        .append(" - ").append(ev.b).append(" (").append(ev.c).append(')');
+                    break;
+                default:
+                    break;
+            }
+            buffer.append('\n');
+        }
+
+        private static void appendHex(StringBuilder sb, byte[] data) {
+            for (int i = 0; i < data.length; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(HEX_DIGITS[(data[i] >> 4) & 0xF]).append(HEX_DIGITS[data[i] & 0xF]);
+            }
+        }
+
         public String bytesToHex(byte[] data) {
             if (data == null || data.length == 0) return "";
-            StringBuilder sb = new StringBuilder();
-            for (byte b : data) {
-                sb.append(String.format("%02X ", b));
-            }
-            return sb.toString().trim();
+            StringBuilder sb = new StringBuilder(data.length * 3);
+            appendHex(sb, data);
+            return sb.toString();
         }
     }
 }
\ No newline at end of file
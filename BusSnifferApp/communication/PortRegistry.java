@@ -0,0 +1,192 @@
+package communication;
+
+import com.fazecast.jSerialComm.SerialPort;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Shared serial port registry
+ * A single background enumerator publishes immutable port snapshots and fans out
+ * connect/disconnect events, so the GUI, the CLI and reconnect logic never
+ * enumerate ports on their own
+ */
+public class PortRegistry {
+
+    private static final PortRegistry INSTANCE = new PortRegistry();
+
+    public static final int DEFAULT_INTERVAL_MS = 1000;
+    private static final long STALE_MS = 5000; // on-demand snapshots while no enumerator runs
+
+    /**
+     * Immutable view of the ports present at one enumeration
+     */
+    public static class Snapshot {
+        public final long generation;
+        public final long timestamp;
+        private final Map<String, PortUtil.PortInfo> ports;
+
+        Snapshot(long generation, long timestamp, Map<String, PortUtil.PortInfo> ports) {
+            this.generation = generation;
+            this.timestamp = timestamp;
+            this.ports = Collections.unmodifiableMap(ports);
+        }
+
+        public PortUtil.PortInfo get(String portName) {
+            return ports.get(portName);
+        }
+
+        public boolean contains(String portName) {
+            return ports.containsKey(portName);
+        }
+
+        public Collection<PortUtil.PortInfo> ports() {
+            return ports.values();
+        }
+
+        public String[] portNames() {
+            return ports.keySet().toArray(new String[0]);
+        }
+
+        public int size() {
+            return ports.size();
+        }
+    }
+
+    private final Object enumerationLock = new Object();
+    private final CopyOnWriteArrayList<PortUtil.PortChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Snapshot snapshot = null;
+    private volatile int intervalMs = DEFAULT_INTERVAL_MS;
+    private volatile Thread enumeratorThread;
+
+    private PortRegistry() {
+    }
+
+    public static PortRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Latest snapshot; enumerates synchronously only if there is none yet or it
+     * has gone stale while the background enumerator is stopped
+     */
+    public Snapshot getSnapshot() {
+        Snapshot s = snapshot;
+        if (s == null || (enumeratorThread == null && System.currentTimeMillis() - s.timestamp > STALE_MS)) {
+            return refresh();
+        }
+        return s;
+    }
+
+    /**
+     * Enumerate now, publish the new snapshot and notify listeners of changes
+     * Concurrent callers are serialised, so only one enumeration runs at a time
+     */
+    public Snapshot refresh() {
+        synchronized (enumerationLock) {
+            Map<String, PortUtil.PortInfo> ports = new LinkedHashMap<>();
+            for (SerialPort port : SerialPort.getCommPorts()) {
+                ports.put(port.getSystemPortName(), new PortUtil.PortInfo(port));
+            }
+
+            Snapshot previous = snapshot;
+            Snapshot current = new Snapshot(previous == null ? 1 : previous.generation + 1,
+                System.currentTimeMillis(), ports);
+            snapshot = current;
+
+            if (previous != null) {
+                fireChanges(previous, current);
+            }
+            return current;
+        }
+    }
+
+    private void fireChanges(Snapshot previous, Snapshot current) {
+        for (PortUtil.PortInfo info : current.ports()) {
+            if (!previous.contains(info.systemPortName)) {
+                for (PortUtil.PortChangeListener l : listeners) {
+                    try {
+                        l.onPortConnected(info);
+                    } catch (Exception e) {
+                        System.err.println("Port listener error: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        for (String name : previous.portNames()) {
+            if (!current.contains(name)) {
+                for (PortUtil.PortChangeListener l : listeners) {
+                    try {
+                        l.onPortDisconnected(name);
+                    } catch (Exception e) {
+                        System.err.println("Port listener error: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    // ======= LISTENERS =======
+
+    /**
+     * Register for connect/disconnect events; starts the background enumerator
+     */
+    public synchronized void addListener(PortUtil.PortChangeListener listener) {
+        if (listener == null) return;
+        listeners.addIfAbsent(listener);
+        start();
+    }
+
+    /**
+     * Unregister; the enumerator stops once no listeners remain
+     * Runs under the same lock as addListener, so a concurrent add cannot be
+     * left without a running enumerator
+     */
+    public synchronized void removeListener(PortUtil.PortChangeListener listener) {
+        if (listeners.remove(listener) && listeners.isEmpty()) stop();
+    }
+
+    // ======= BACKGROUND ENUMERATOR =======
+
+    /**
+     * Set the enumeration interval (takes effect from the next cycle)
+     */
+    public void setIntervalMs(int intervalMs) {
+        this.intervalMs = Math.max(100, intervalMs);
+    }
+
+    public int getIntervalMs() {
+        return intervalMs;
+    }
+
+    public synchronized void start() {
+        if (enumeratorThread != null) return;
+
+        enumeratorThread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    refresh();
+                    Thread.sleep(intervalMs);
+                } catch (InterruptedException e) {
+                    break;
+                } catch (Exception e) {
+                    System.err.println("Port enumeration error: " + e.getMessage());
+                }
+            }
+        });
+        enumeratorThread.setName("PortRegistry");
+        enumeratorThread.setDaemon(true);
+        enumeratorThread.start();
+    }
+
+    public synchronized void stop() {
+        if (enumeratorThread != null) {
+            enumeratorThread.interrupt();
+            enumeratorThread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return enumeratorThread != null;
+    }
+}
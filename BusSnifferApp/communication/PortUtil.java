@@ -2,7 +2,6 @@ package communication;
 
 import com.fazecast.jSerialComm.SerialPort;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -11,10 +10,10 @@ import java.util.regex.Pattern;
  */
 public class PortUtil {
     
-    // Cache for port information to avoid repeated system calls
-    private static final Map<String, PortInfo> portCache = new ConcurrentHashMap<>();
-    private static long lastCacheUpdate = 0;
-    private static final long CACHE_VALIDITY_MS = 5000; // 5 seconds cache validity
+    // Port enumeration is shared through the PortRegistry snapshots
+    private static final PortRegistry registry = PortRegistry.getInstance();
+    // Listeners registered through monitorPorts(), removed again by cleanup()
+    private static final Set<PortChangeListener> monitored = Collections.synchronizedSet(new LinkedHashSet<>());
     
     // Known device patterns for automotive ECUs and development tools
     private static final Map<String, String> DEVICE_PATTERNS = new HashMap<>();
@@ -109,29 +108,23 @@ public class PortUtil {
      * Get port name by index from the list
      */
     public static String getPortNameByIndex(int index) {
-        SerialPort[] ports = SerialPort.getCommPorts();
+        String[] ports = registry.getSnapshot().portNames();
         if (index < 0 || index >= ports.length) return null;
-        return ports[index].getSystemPortName();
+        return ports[index];
     }
 
     /**
      * Get all port names as array (for ComboBox)
      */
     public static String[] getAllPorts() {
-        SerialPort[] ports = SerialPort.getCommPorts();
-        String[] names = new String[ports.length];
-        for (int i = 0; i < ports.length; i++) {
-            names[i] = ports[i].getSystemPortName();
-        }
-        return names;
+        return registry.getSnapshot().portNames();
     }
     
     /**
      * Get detailed port information
      */
     public static PortInfo[] getPortsWithInfo() {
-        updatePortCache();
-        return portCache.values().toArray(new PortInfo[0]);
+        return registry.getSnapshot().ports().toArray(new PortInfo[0]);
     }
     
     /**
@@ -173,47 +166,27 @@ public class PortUtil {
     }
     
     /**
-     * Test if a port supports the specified baud rate
+     * Test if a port carries decodable traffic at the specified baud rate
+     * Listens passively; nothing is written to the ECU
      */
     public static boolean testBaudRate(String portName, int baudRate) {
-        try {
-            SerialPort port = SerialPort.getCommPort(portName);
-            port.setBaudRate(baudRate);
-            port.setComPortTimeouts(SerialPort.TIMEOUT_READ_BLOCKING, 100, 0);
-            
-            if (port.openPort()) {
-                // Send a simple test command and wait for response
-                port.writeBytes("AT\r\n".getBytes(), 4);
-                
-                byte[] buffer = new byte[64];
-                int bytesRead = port.readBytes(buffer, buffer.length);
-                
-                port.closePort();
-                
-                // If we got any response, the baud rate is likely correct
-                return bytesRead > 0;
-            }
-        } catch (Exception e) {
-            System.err.println("Baud rate test failed: " + e.getMessage());
-        }
-        return false;
+        BaudDetector detector = new BaudDetector(new int[]{baudRate}, 200);
+        return detector.detect(portName) == baudRate;
     }
     
     /**
-     * Auto-detect the best baud rate for a port
+     * Auto-detect the baud rate from the idle traffic on a port
      */
     public static int detectBaudRate(String portName) {
-        int[] commonRates = {115200, 57600, 38400, 19200, 9600, 4800, 2400, 1200};
-        
         System.out.println("Auto-detecting baud rate for " + portName + "...");
         
-        for (int rate : commonRates) {
-            System.out.print("Testing " + rate + "... ");
-            if (testBaudRate(portName, rate)) {
-                System.out.println("✓ Success!");
-                return rate;
-            }
-            System.out.println("✗ Failed");
+        long start = System.currentTimeMillis();
+        int rate = new BaudDetector().detect(portName, System.out);
+        long elapsed = System.currentTimeMillis() - start;
+        
+        if (rate > 0) {
+            System.out.printf("✓ Detected %d baud (%d ms)%n", rate, elapsed);
+            return rate;
         }
         
         System.out.println("No suitable baud rate found, defaulting to 115200");
@@ -226,100 +199,48 @@ public class PortUtil {
     public static boolean isPortAvailable(String portName) {
         if (portName == null || portName.trim().isEmpty()) return false;
         
-        SerialPort[] ports = SerialPort.getCommPorts();
-        for (SerialPort port : ports) {
-            if (portName.equals(port.getSystemPortName())) {
-                return !port.isOpen();
-            }
-        }
-        return false;
+        PortInfo info = registry.getSnapshot().get(portName);
+        return info != null && info.isAvailable;
     }
     
     /**
      * Get port information by name
      */
     public static PortInfo getPortInfo(String portName) {
-        updatePortCache();
-        return portCache.get(portName);
+        return registry.getSnapshot().get(portName);
     }
     
     /**
      * Monitor port changes (connect/disconnect events)
+     * Listeners share the registry's single background enumerator
      */
     public static void monitorPorts(PortChangeListener listener, int intervalMs) {
-        Thread monitorThread = new Thread(() -> {
-            Set<String> previousPorts = new HashSet<>();
-            
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    Set<String> currentPorts = new HashSet<>();
-                    PortInfo[] ports = getPortsWithInfo();
-                    
-                    for (PortInfo port : ports) {
-                        currentPorts.add(port.systemPortName);
-                    }
-                    
-                    // Detect new ports (connected)
-                    for (String portName : currentPorts) {
-                        if (!previousPorts.contains(portName)) {
-                            PortInfo info = getPortInfo(portName);
-                            if (listener != null) {
-                                listener.onPortConnected(info);
-                            }
-                        }
-                    }
-                    
-                    // Detect removed ports (disconnected)
-                    for (String portName : previousPorts) {
-                        if (!currentPorts.contains(portName)) {
-                            if (listener != null) {
-                                listener.onPortDisconnected(portName);
-                            }
-                        }
-                    }
-                    
-                    previousPorts = currentPorts;
-                    Thread.sleep(intervalMs);
-                    
-                } catch (InterruptedException e) {
-                    break;
-                } catch (Exception e) {
-                    System.err.println("Port monitoring error: " + e.getMessage());
-                }
-            }
-        });
-        
-        monitorThread.setName("PortMonitor");
-        monitorThread.setDaemon(true);
-        monitorThread.start();
+        registry.setIntervalMs(intervalMs);
+        if (listener != null) monitored.add(listener);
+        registry.addListener(listener);
     }
     
     /**
-     * Interface for port change notifications
+     * Stop delivering port change events to a listener
      */
-    public interface PortChangeListener {
-        void onPortConnected(PortInfo portInfo);
-        void onPortDisconnected(String portName);
+    public static void stopMonitoring(PortChangeListener listener) {
+        monitored.remove(listener);
+        registry.removeListener(listener);
     }
     
     /**
-     * Refresh the port cache
+     * Force a fresh enumeration (e.g. for an explicit user "scan")
      */
-    private static void updatePortCache() {
-        long now = System.currentTimeMillis();
-        if (now - lastCacheUpdate < CACHE_VALIDITY_MS && !portCache.isEmpty()) {
-            return; // Cache is still valid
-        }
-        
-        portCache.clear();
-        SerialPort[] ports = SerialPort.getCommPorts();
-        
-        for (SerialPort port : ports) {
-            PortInfo info = new PortInfo(port);
-            portCache.put(port.getSystemPortName(), info);
-        }
-        
-        lastCacheUpdate = now;
+    public static PortInfo[] rescan() {
+        return registry.refresh().ports().toArray(new PortInfo[0]);
+    }
+    
+    /**
+     * Interface for port change notifications
+     */
+    public interface PortChangeListener {
+        void onPortConnected(PortInfo portInfo);
+        void onPortDisconnected(String portName);
     }
     
     /**
@@ -485,11 +406,17 @@ public class PortUtil {
     }
     
     /**
-     * Clean up resources and invalidate cache
+     * Clean up resources: unregister the listeners added through monitorPorts()
+     * The registry keeps enumerating while other listeners (port watchers,
+     * reconnect supervisors) are still registered.
      */
     public static void cleanup() {
-        portCache.clear();
-        lastCacheUpdate = 0;
+        PortChangeListener[] own;
+        synchronized (monitored) {
+            own = monitored.toArray(new PortChangeListener[0]);
+            monitored.clear();
+        }
+        for (PortChangeListener l : own) registry.removeListener(l);
     }
     
     /**
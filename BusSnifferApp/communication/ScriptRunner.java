@@ -0,0 +1,546 @@
+package communication;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import application.LatencyHistogram;
+import application.PreciseTiming;
+import application.SeatControllerSnifferManager;
+
+/**
+ * Batch command runner for regression runs on the rig
+ *
+ * Script syntax (one step per line, '#' starts a comment):
+ *   seat 3.5 5.0 85.0                      - run immediately after the previous step
+ *   at +5ms gearbox 3 250                  - run 5 ms after the previous step
+ *   at 100ms loadprofile 2                 - run 100 ms after script start
+ *   every 10ms for 2s alive                - repeat on absolute deadlines
+ *   wait-for cmd=0xE1 payload[0]=2 timeout 200ms
+ *   response-timeout 300ms                 - how long to wait for replies to commands
+ *
+ * Every command frame is timed from the moment it is written to the port until the
+ * first response frame with the same command ID (or ID | 0x80). The runner only
+ * times the frames it queued itself (same command and payload), so cyclic or GUI
+ * traffic on the same link does not shift the pairing.
+ */
+public class ScriptRunner implements SeatControllerSnifferManager.FrameObserver {
+
+    private static final long DEFAULT_RESPONSE_TIMEOUT_NS = 500_000_000L;
+    private static final long DEFAULT_WAIT_TIMEOUT_NS = 1_000_000_000L;
+    private static final int RX_HISTORY_SIZE = 64;
+
+    private enum StepKind { COMMAND, EVERY, WAIT_FOR, RESPONSE_TIMEOUT }
+
+    /**
+     * One parsed script line
+     */
+    private static class Step {
+        final int lineNo;
+        final String text;
+        StepKind kind = StepKind.COMMAND;
+        String[] command;
+        boolean relative;
+        long offsetNanos = -1;    // "at" offset, -1 = immediately
+        long periodNanos;
+        long durationNanos;
+        long timeoutNanos;
+        int waitCmdId = -1;
+        final Map<Integer, Integer> waitPayload = new LinkedHashMap<>();
+
+        // Results
+        final LatencyHistogram latency = new LatencyHistogram();
+        int sent = 0;
+        int responded = 0;
+        boolean waitMatched = false;
+
+        Step(int lineNo, String text) {
+            this.lineNo = lineNo;
+            this.text = text;
+        }
+    }
+
+    /**
+     * A single transmitted command awaiting its transmit stamp and response
+     */
+    private static class Sample {
+        final Step step;
+        int cmdId = -1;
+        byte[] payload;
+        long txNanos;
+
+        Sample(Step step) {
+            this.step = step;
+        }
+    }
+
+    private static class ReceivedFrame {
+        final int cmdId;
+        final byte[] payload;
+        final long rxNanos;
+
+        ReceivedFrame(int cmdId, byte[] payload, long rxNanos) {
+            this.cmdId = cmdId;
+            this.payload = payload;
+            this.rxNanos = rxNanos;
+        }
+    }
+
+    private final SeatControllerSnifferManager sniffer;
+    private final PrintStream out;
+
+    private final Object lock = new Object();
+    private final Deque<Sample> awaitingTx = new ArrayDeque<>();
+    private final List<Sample> awaitingResponse = new ArrayList<>();
+    private final Deque<ReceivedFrame> rxHistory = new ArrayDeque<>();
+    private final LatencyHistogram overall = new LatencyHistogram();
+
+    private Thread scriptThread;
+    private Sample submitting; // script thread only, while a command is being sent
+    private Step activeWait;
+    private CountDownLatch waitLatch;
+    private long waitMatchNanos;
+    private long lastSubmitNanos;
+    private long responseTimeoutNanos = DEFAULT_RESPONSE_TIMEOUT_NS;
+
+    public ScriptRunner(SeatControllerSnifferManager sniffer, PrintStream out) {
+        this.sniffer = sniffer;
+        this.out = out;
+    }
+
+    /**
+     * Load and run a script file
+     * @return true if every step executed and every wait-for condition was met
+     */
+    public boolean run(File scriptFile) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(scriptFile.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            out.println("✗ Cannot read script " + scriptFile + ": " + e.getMessage());
+            return false;
+        }
+        return run(lines, scriptFile.getName());
+    }
+
+    public boolean run(List<String> lines, String name) {
+        List<Step> steps = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String text = lines.get(i);
+            int comment = text.indexOf('#');
+            if (comment >= 0) text = text.substring(0, comment);
+            text = text.trim();
+            if (text.isEmpty()) continue;
+            try {
+                steps.add(parseStep(i + 1, text));
+            } catch (IllegalArgumentException e) {
+                out.println("✗ " + name + ":" + (i + 1) + ": " + e.getMessage());
+                return false;
+            }
+        }
+
+        out.println("Running script " + name + " (" + steps.size() + " steps)...");
+        scriptThread = Thread.currentThread();
+        sniffer.addFrameObserver(this);
+        try {
+            execute(steps);
+            awaitOutstandingResponses();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            out.println("✗ Script interrupted");
+            return false;
+        } finally {
+            sniffer.removeFrameObserver(this);
+        }
+        return report(steps);
+    }
+
+    // ======= PARSING =======
+
+    private Step parseStep(int lineNo, String text) {
+        Step step = new Step(lineNo, text);
+        String[] parts = text.split("\\s+");
+        int pos = 0;
+
+        switch (parts[0].toLowerCase()) {
+            case "at":
+                if (parts.length < 3) throw new IllegalArgumentException("Usage: at [+]<time> <command>");
+                String when = parts[1];
+                step.relative = when.startsWith("+");
+                step.offsetNanos = PreciseTiming.parseDuration(step.relative ? when.substring(1) : when);
+                pos = 2;
+                break;
+            case "every":
+                if (parts.length < 5 || !"for".equalsIgnoreCase(parts[2])) {
+                    throw new IllegalArgumentException("Usage: every <period> for <duration> <command>");
+                }
+                step.kind = StepKind.EVERY;
+                step.periodNanos = PreciseTiming.parseDuration(parts[1]);
+                step.durationNanos = PreciseTiming.parseDuration(parts[3]);
+                if (step.periodNanos <= 0) throw new IllegalArgumentException("Period must be > 0");
+                pos = 4;
+                break;
+            case "wait-for":
+                step.kind = StepKind.WAIT_FOR;
+                parseWaitCondition(step, parts);
+                return step;
+            case "response-timeout":
+                if (parts.length < 2) throw new IllegalArgumentException("Usage: response-timeout <duration>");
+                step.kind = StepKind.RESPONSE_TIMEOUT;
+                step.timeoutNanos = PreciseTiming.parseDuration(parts[1]);
+                return step;
+            default:
+                break;
+        }
+
+        step.command = Arrays.copyOfRange(parts, pos, parts.length);
+        validateCommand(step.command);
+        return step;
+    }
+
+    private void parseWaitCondition(Step step, String[] parts) {
+        step.timeoutNanos = DEFAULT_WAIT_TIMEOUT_NS;
+        for (int i = 1; i < parts.length; i++) {
+            String token = parts[i].toLowerCase();
+            if (token.equals("timeout")) {
+                if (i + 1 >= parts.length) throw new IllegalArgumentException("Missing timeout value");
+                step.timeoutNanos = PreciseTiming.parseDuration(parts[++i]);
+            } else if (token.startsWith("cmd=")) {
+                step.waitCmdId = parseNumber(token.substring(4)) & 0xFF;
+            } else if (token.startsWith("payload[") && token.contains("]=")) {
+                int index = Integer.parseInt(token.substring(8, token.indexOf(']')));
+                int value = parseNumber(token.substring(token.indexOf("]=") + 2)) & 0xFF;
+                step.waitPayload.put(index, value);
+            } else {
+                throw new IllegalArgumentException("Unknown wait-for condition: " + parts[i]);
+            }
+        }
+        if (step.waitCmdId < 0) {
+            throw new IllegalArgumentException("wait-for needs a cmd=<id> condition");
+        }
+    }
+
+    private void validateCommand(String[] cmd) {
+        if (cmd.length == 0) throw new IllegalArgumentException("Missing command");
+        try {
+            switch (cmd[0].toLowerCase()) {
+                case "seat":
+                    requireArgs(cmd, 4, "seat <height_cm> <slide_cm> <incline_deg>");
+                    double height = Double.parseDouble(cmd[1]);
+                    double slide = Double.parseDouble(cmd[2]);
+                    double incline = Double.parseDouble(cmd[3]);
+                    if (height < 2.0 || height > 5.3) throw new IllegalArgumentException("Height must be between 2.0 and 5.3 cm");
+                    if (slide < 3.0 || slide > 7.5) throw new IllegalArgumentException("Slide must be between 3.0 and 7.5 cm");
+                    if (incline < 67.0 || incline > 105.0) throw new IllegalArgumentException("Incline must be between 67.0 and 105.0 degrees");
+                    break;
+                case "gearbox":
+                    requireArgs(cmd, 3, "gearbox <gear> <torque> [max_torque]");
+                    for (int i = 1; i < cmd.length; i++) Integer.parseInt(cmd[i]);
+                    break;
+                case "fault":
+                    requireArgs(cmd, 2, "fault <1|2>");
+                    int fault = Integer.parseInt(cmd[1]);
+                    if (fault < 1 || fault > 2) throw new IllegalArgumentException("Fault number must be 1 or 2");
+                    break;
+                case "saveprofile":
+                    requireArgs(cmd, 2, "saveprofile <id> [height slide incline]");
+                    Integer.parseInt(cmd[1]);
+                    if (cmd.length > 2) {
+                        requireArgs(cmd, 5, "saveprofile <id> [height slide incline]");
+                        for (int i = 2; i < 5; i++) Double.parseDouble(cmd[i]);
+                    }
+                    break;
+                case "loadprofile":
+                    requireArgs(cmd, 2, "loadprofile <id>");
+                    Integer.parseInt(cmd[1]);
+                    break;
+                case "alive":
+                    break;
+                case "send":
+                    requireArgs(cmd, 2, "send <hex>");
+                    parseHex(String.join("", Arrays.copyOfRange(cmd, 1, cmd.length)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command: " + cmd[0]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in '" + String.join(" ", cmd) + "'");
+        }
+    }
+
+    private static void requireArgs(String[] cmd, int count, String usage) {
+        if (cmd.length < count) throw new IllegalArgumentException("Usage: " + usage);
+    }
+
+    // ======= EXECUTION =======
+
+    private void execute(List<Step> steps) throws InterruptedException {
+        final long scriptStart = System.nanoTime();
+        long cursor = scriptStart;
+        int aliveCounter = 0;
+
+        for (Step step : steps) {
+            if (!sniffer.isConnected()) {
+                out.println("✗ Connection lost at line " + step.lineNo);
+                return;
+            }
+            switch (step.kind) {
+                case RESPONSE_TIMEOUT:
+                    responseTimeoutNanos = step.timeoutNanos;
+                    break;
+
+                case COMMAND:
+                    if (step.offsetNanos >= 0) {
+                        cursor = (step.relative ? cursor : scriptStart) + step.offsetNanos;
+                        if (!PreciseTiming.sleepUntil(cursor)) throw new InterruptedException();
+                    } else {
+                        cursor = System.nanoTime();
+                    }
+                    submit(step, aliveCounter++);
+                    break;
+
+                case EVERY:
+                    long first = System.nanoTime();
+                    long cycles = Math.max(1, step.durationNanos / step.periodNanos);
+                    for (long k = 0; k < cycles; k++) {
+                        cursor = first + k * step.periodNanos;
+                        if (!PreciseTiming.sleepUntil(cursor)) throw new InterruptedException();
+                        submit(step, aliveCounter++);
+                    }
+                    break;
+
+                case WAIT_FOR:
+                    cursor = waitFor(step);
+                    break;
+            }
+        }
+    }
+
+    private void submit(Step step, int aliveCounter) {
+        String[] cmd = step.command;
+        synchronized (lock) {
+            lastSubmitNanos = System.nanoTime();
+            step.sent++;
+        }
+
+        // onFrameQueued() picks up the frame this command builds
+        submitting = new Sample(step);
+        try {
+            sendCommand(cmd, aliveCounter);
+        } finally {
+            submitting = null;
+        }
+    }
+
+    private void sendCommand(String[] cmd, int aliveCounter) {
+        switch (cmd[0].toLowerCase()) {
+            case "seat":
+                sniffer.sendSeatControlRequest(Double.parseDouble(cmd[1]),
+                    Double.parseDouble(cmd[2]), Double.parseDouble(cmd[3]));
+                break;
+            case "gearbox":
+                int max = cmd.length > 3 ? Integer.parseInt(cmd[3]) : 400;
+                sniffer.sendGearboxStatus(Integer.parseInt(cmd[1]), Integer.parseInt(cmd[2]), max);
+                break;
+            case "fault":
+                sniffer.sendFaultMessage(Integer.parseInt(cmd[1]));
+                break;
+            case "saveprofile":
+                if (cmd.length > 2) {
+                    sniffer.saveProfile(Integer.parseInt(cmd[1]), Double.parseDouble(cmd[2]),
+                        Double.parseDouble(cmd[3]), Double.parseDouble(cmd[4]));
+                } else {
+                    sniffer.saveProfile(Integer.parseInt(cmd[1]));
+                }
+                break;
+            case "loadprofile":
+                sniffer.loadProfile(Integer.parseInt(cmd[1]));
+                break;
+            case "alive":
+                sniffer.sendAliveMessage(System.currentTimeMillis() & 0xFFFF, aliveCounter);
+                break;
+            case "send":
+                sniffer.sendRaw(parseHex(String.join("", Arrays.copyOfRange(cmd, 1, cmd.length))));
+                break;
+        }
+    }
+
+    private long waitFor(Step step) throws InterruptedException {
+        long start = System.nanoTime();
+        long anchor;
+        CountDownLatch latch;
+
+        synchronized (lock) {
+            anchor = lastSubmitNanos != 0 ? lastSubmitNanos : start;
+            for (ReceivedFrame frame : rxHistory) {
+                if (frame.rxNanos >= anchor && matches(step, frame.cmdId, frame.payload)) {
+                    step.waitMatched = true;
+                    step.latency.record(frame.rxNanos - anchor);
+                    return frame.rxNanos;
+                }
+            }
+            activeWait = step;
+            waitLatch = latch = new CountDownLatch(1);
+        }
+
+        boolean matched = latch.await(step.timeoutNanos, TimeUnit.NANOSECONDS);
+        synchronized (lock) {
+            activeWait = null;
+            waitLatch = null;
+            if (matched) {
+                step.waitMatched = true;
+                step.latency.record(waitMatchNanos - anchor);
+                return waitMatchNanos;
+            }
+        }
+        return System.nanoTime();
+    }
+
+    private void awaitOutstandingResponses() throws InterruptedException {
+        long deadline = System.nanoTime() + responseTimeoutNanos;
+        while (System.nanoTime() < deadline) {
+            synchronized (lock) {
+                if (awaitingTx.isEmpty() && awaitingResponse.isEmpty()) return;
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static boolean matches(Step wait, int cmdId, byte[] payload) {
+        if (cmdId != wait.waitCmdId) return false;
+        for (Map.Entry<Integer, Integer> e : wait.waitPayload.entrySet()) {
+            int index = e.getKey();
+            if (index >= payload.length || (payload[index] & 0xFF) != e.getValue()) return false;
+        }
+        return true;
+    }
+
+    // ======= FRAME OBSERVER (serial threads) =======
+
+    @Override
+    public void onFrameQueued(int cmdId, byte[] payload) {
+        // Only frames built by the script's own command; the first one is timed
+        Sample sample = submitting;
+        if (Thread.currentThread() != scriptThread || sample == null || sample.cmdId >= 0) return;
+        sample.cmdId = cmdId;
+        sample.payload = payload;
+        synchronized (lock) {
+            awaitingTx.addLast(sample);
+        }
+    }
+
+    @Override
+    public void onFrameSent(int cmdId, byte[] payload, long txNanos) {
+        synchronized (lock) {
+            // Identical frames leave in queue order, so the first match is this one
+            Iterator<Sample> it = awaitingTx.iterator();
+            while (it.hasNext()) {
+                Sample sample = it.next();
+                if (sample.cmdId == cmdId && Arrays.equals(sample.payload, payload)) {
+                    it.remove();
+                    sample.txNanos = txNanos;
+                    awaitingResponse.add(sample);
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onFrameReceived(int cmdId, byte[] payload, long rxNanos) {
+        synchronized (lock) {
+            rxHistory.addLast(new ReceivedFrame(cmdId, payload, rxNanos));
+            if (rxHistory.size() > RX_HISTORY_SIZE) rxHistory.removeFirst();
+
+            Iterator<Sample> it = awaitingResponse.iterator();
+            while (it.hasNext()) {
+                Sample sample = it.next();
+                if (rxNanos - sample.txNanos > responseTimeoutNanos) {
+                    it.remove(); // Expired, no response
+                    continue;
+                }
+                if ((cmdId == sample.cmdId || cmdId == (sample.cmdId | 0x80)) && rxNanos >= sample.txNanos) {
+                    it.remove();
+                    long latency = rxNanos - sample.txNanos;
+                    sample.step.responded++;
+                    sample.step.latency.record(latency);
+                    overall.record(latency);
+                    break;
+                }
+            }
+
+            if (activeWait != null && waitLatch != null && matches(activeWait, cmdId, payload)) {
+                waitMatchNanos = rxNanos;
+                waitLatch.countDown();
+            }
+        }
+    }
+
+    // ======= REPORTING =======
+
+    private boolean report(List<Step> steps) {
+        boolean pass = true;
+        out.println();
+        out.println("=== Script Results ===");
+        for (Step step : steps) {
+            switch (step.kind) {
+                case RESPONSE_TIMEOUT:
+                    break;
+                case WAIT_FOR:
+                    if (step.waitMatched) {
+                        out.printf("[%3d] ✓ %-40s matched after %.3f ms%n",
+                            step.lineNo, step.text, step.latency.getMax() / 1e6);
+                    } else {
+                        out.printf("[%3d] ✗ %-40s TIMEOUT%n", step.lineNo, step.text);
+                        pass = false;
+                    }
+                    break;
+                default:
+                    if (step.sent == 0) {
+                        out.printf("[%3d] - %-40s not executed%n", step.lineNo, step.text);
+                        pass = false;
+                    } else if (step.sent == 1) {
+                        if (step.responded > 0) {
+                            out.printf("[%3d]   %-40s latency %.3f ms%n",
+                                step.lineNo, step.text, step.latency.getMax() / 1e6);
+                        } else {
+                            out.printf("[%3d]   %-40s no response%n", step.lineNo, step.text);
+                        }
+                    } else {
+                        out.printf("[%3d]   %-40s sent=%d responded=%d %s%n", step.lineNo, step.text,
+                            step.sent, step.responded, step.latency.toSummaryString());
+                    }
+                    break;
+            }
+        }
+        out.println("Overall response latency: " + overall.toSummaryString());
+        out.println(pass ? "✓ Script PASSED" : "✗ Script FAILED");
+        return pass;
+    }
+
+    // Helper methods
+    private static int parseNumber(String text) {
+        text = text.trim();
+        if (text.toLowerCase().startsWith("0x")) {
+            return Integer.parseInt(text.substring(2), 16);
+        }
+        return Integer.parseInt(text);
+    }
+
+    private static byte[] parseHex(String hex) {
+        hex = hex.replaceAll("\\s+", "").toUpperCase();
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Hex string must have even length");
+        }
+        byte[] result = new byte[hex.length() / 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,208 @@
+package communication;
+
+import java.io.PrintStream;
+
+import application.CyclicScheduler;
+import application.SeatControllerSnifferManager;
+import application.TraceListener;
+import application.TrafficCounters;
+
+/**
+ * Cyclic traffic generator for stress testing the ECU and the host tool
+ * Generates the spec schedule (ALIVE 5 ms, GEARBOX_STATUS 10 ms, current position 2 ms)
+ * scaled to a target frame rate or bus load, on a park/spin scheduler thread
+ */
+public class TrafficGenerator {
+
+    private static final int FRAME_OVERHEAD = TrafficCounters.FRAME_OVERHEAD;
+    private static final int BITS_PER_BYTE = 10; // 8N1
+
+    /**
+     * One cyclic message of the spec schedule
+     */
+    private static class CyclicTask {
+        final String name;
+        final long nominalPeriodNanos;
+        final int framesPerCycle;
+        final int bytesPerCycle;
+        long periodNanos;
+
+        CyclicTask(String name, long nominalPeriodNanos, int framesPerCycle, int payloadBytesPerFrame) {
+            this.name = name;
+            this.nominalPeriodNanos = nominalPeriodNanos;
+            this.framesPerCycle = framesPerCycle;
+            this.bytesPerCycle = framesPerCycle * (FRAME_OVERHEAD + payloadBytesPerFrame);
+        }
+    }
+
+    private final SeatControllerSnifferManager sniffer;
+    private final double scale;
+    private final long durationNanos;
+    private final CyclicTask[] tasks = {
+        new CyclicTask("ALIVE", 5_000_000L, 1, 4),
+        new CyclicTask("GEARBOX_STATUS", 10_000_000L, 1, 6),
+        new CyclicTask("SEAT_CURRENT", 2_000_000L, 3, 2)
+    };
+
+    private final CyclicScheduler scheduler = new CyclicScheduler("StressScheduler");
+    private volatile int maxQueueDepth = 0;
+    private volatile long framesOffered = 0;
+    private int aliveCounter = 0;
+    private int gear = 1;
+
+    private long startNanos;
+    private long startFramesWritten;
+    private long startWrites;
+    private long lastReportNanos;
+    private long lastReportFrames;
+    private long lastReportBytes;
+    private long lastReportOffered;
+
+    public TrafficGenerator(SeatControllerSnifferManager sniffer, double scale, long durationNanos) {
+        if (scale <= 0) throw new IllegalArgumentException("Scale must be > 0");
+        this.sniffer = sniffer;
+        this.scale = scale;
+        this.durationNanos = durationNanos;
+        for (CyclicTask task : tasks) {
+            task.periodNanos = Math.max(1, (long) (task.nominalPeriodNanos / scale));
+        }
+        if (sniffer == null) return; // rate calculations only
+
+        scheduler.addTask(tasks[0].name, tasks[0].periodNanos, () -> {
+            sniffer.sendAliveMessage(System.currentTimeMillis() & 0xFFFF, aliveCounter++);
+            offered(tasks[0]);
+        });
+        scheduler.addTask(tasks[1].name, tasks[1].periodNanos, () -> {
+            sniffer.sendGearboxStatus(gear, 100 + (aliveCounter % 200), 400);
+            gear = (gear % 6) + 1;
+            offered(tasks[1]);
+        });
+        scheduler.addTask(tasks[2].name, tasks[2].periodNanos, () -> {
+            sniffer.sendSeatCurrentPosition(3.5, 5.0, 85.0);
+            offered(tasks[2]);
+        });
+        scheduler.setRunCondition(sniffer::isConnected);
+    }
+
+    private void offered(CyclicTask task) {
+        framesOffered += task.framesPerCycle;
+        int depth = sniffer.getSendQueueDepth();
+        if (depth > maxQueueDepth) maxQueueDepth = depth;
+    }
+
+    /**
+     * Frames per second of the unscaled spec schedule
+     */
+    public static double specFrameRate() {
+        return new TrafficGenerator(null, 1.0, 0).offeredFrameRate();
+    }
+
+    /**
+     * Bytes per second of the unscaled spec schedule
+     */
+    public static double specByteRate() {
+        return new TrafficGenerator(null, 1.0, 0).offeredByteRate();
+    }
+
+    public static double scaleForFrameRate(double framesPerSecond) {
+        return framesPerSecond / specFrameRate();
+    }
+
+    public static double scaleForBusLoad(double percent, int baud) {
+        double bytesPerSecond = percent / 100.0 * baud / BITS_PER_BYTE;
+        return bytesPerSecond / specByteRate();
+    }
+
+    public double offeredFrameRate() {
+        double fps = 0;
+        for (CyclicTask task : tasks) fps += task.framesPerCycle * 1e9 / task.periodNanos;
+        return fps;
+    }
+
+    public double offeredByteRate() {
+        double bps = 0;
+        for (CyclicTask task : tasks) bps += task.bytesPerCycle * 1e9 / task.periodNanos;
+        return bps;
+    }
+
+    /**
+     * Start the scheduler thread
+     */
+    public void start() {
+        if (scheduler.isRunning()) return;
+        sniffer.setCyclicTxTrace(false);
+        startFramesWritten = lastReportFrames = framesWritten();
+        startWrites = sniffer.getStatistics().messagesSent;
+        lastReportBytes = sniffer.getStatistics().bytesSent;
+        startNanos = lastReportNanos = System.nanoTime();
+        scheduler.start(durationNanos);
+    }
+
+    /**
+     * Stop the scheduler and wait for it to exit
+     */
+    public void stop() {
+        scheduler.stop();
+        sniffer.setCyclicTxTrace(true);
+    }
+
+    public boolean isRunning() {
+        return scheduler.isRunning();
+    }
+
+    /**
+     * Print a one-line progress report covering the interval since the previous call
+     */
+    public void printProgress(PrintStream out, int baud) {
+        long now = System.nanoTime();
+        long frames = framesWritten();
+        long bytes = sniffer.getStatistics().bytesSent;
+        long offered = framesOffered;
+        double seconds = (now - lastReportNanos) / 1e9;
+        if (seconds <= 0) return;
+
+        double writtenFps = (frames - lastReportFrames) / seconds;
+        double offeredFps = (offered - lastReportOffered) / seconds;
+        double busLoad = (bytes - lastReportBytes) / seconds * BITS_PER_BYTE / baud * 100.0;
+
+        out.printf("t=%5.1fs offered=%7.0f fps written=%7.0f fps bus=%5.1f%% queue=%d (max %d) jitter p99=%.3f ms max=%.3f ms%n",
+            (now - startNanos) / 1e9, offeredFps, writtenFps, busLoad,
+            sniffer.getSendQueueDepth(), maxQueueDepth,
+            scheduler.getJitter().getPercentile(99) / 1e6, scheduler.getJitter().getMax() / 1e6);
+
+        lastReportNanos = now;
+        lastReportFrames = frames;
+        lastReportBytes = bytes;
+        lastReportOffered = offered;
+    }
+
+    // Per frame: a batched write carries several frames but counts as one serial write
+    private long framesWritten() {
+        return sniffer.getTrafficCounters().snapshot().totalTxFrames();
+    }
+
+    /**
+     * Print the final stress test summary
+     */
+    public void printSummary(PrintStream out, int baud) {
+        long end = scheduler.getStopNanos() != 0 ? scheduler.getStopNanos() : System.nanoTime();
+        double seconds = Math.max(1e-9, (end - startNanos) / 1e9);
+        long written = framesWritten() - startFramesWritten;
+        long writes = sniffer.getStatistics().messagesSent - startWrites;
+
+        out.println("=== Stress Test Summary ===");
+        out.printf("Scale: %.2fx spec (target %.0f fps, %.1f%% of %d baud)%n",
+            scale, offeredFrameRate(), offeredByteRate() * BITS_PER_BYTE / baud * 100.0, baud);
+        out.printf("Duration: %.2f s%n", seconds);
+        out.printf("Frames offered: %d (%.0f fps)%n", framesOffered, framesOffered / seconds);
+        out.printf("Frames written: %d (%.0f fps)%n", written, written / seconds);
+        out.printf("Serial writes: %d (%.2f frames/write)%n", writes, writes > 0 ? (double) written / writes : 0.0);
+        out.printf("Send queue: now %d, max %d%n", sniffer.getSendQueueDepth(), maxQueueDepth);
+        out.println("Release jitter: " + scheduler.getJitter().toSummaryString());
+        for (CyclicScheduler.Task task : scheduler.getTasks()) {
+            out.println("  " + task.toSummaryString());
+        }
+        TraceListener.CommStatistics stats = sniffer.getStatistics();
+        out.printf("Errors: %d%n", stats.errors);
+    }
+}
@@ -0,0 +1,237 @@
+package application;
+
+/**
+ * Streaming supervision of the ECU's cyclic ALIVE frames
+ * Checks the u16 counter for continuity (with wrap-around), classifying each
+ * frame as in sequence, gap, duplicate or late (out of order), and records
+ * inter-arrival jitter against the 5 ms nominal period. A 64-frame bitmap
+ * behind the newest counter tells duplicates from late frames, so the cost
+ * per frame is constant. A watchdog on the shared TimerWheel raises a
+ * link-stall alarm when no ALIVE arrives within the stall timeout.
+ *
+ * Frames arrive on the serial reader thread only; counters are single-writer
+ * volatiles that any thread may read.
+ */
+public class AliveSupervisor implements SeatControllerSnifferManager.FrameObserver {
+
+    public static final long NOMINAL_PERIOD_NANOS = 5_000_000L;
+
+    private static final int CMD_ALIVE_MSG = 0x10;
+    private static final int WINDOW = 64;
+    // A jump this large (either way) is an ECU restart, not lost frames
+    private static final int RESYNC_DISTANCE = 1000;
+
+    /**
+     * Link-stall alarm callbacks (called on the TimerWheel / serial thread)
+     */
+    public interface StallListener {
+        void onAliveStall(long silentMillis);
+
+        void onAliveRecovered(long stalledMillis);
+    }
+
+    private final long nominalPeriodNanos;
+    private volatile long stallTimeoutNanos = 50_000_000L; // 10 missed cycles
+    private volatile StallListener stallListener;
+
+    private final LatencyHistogram interArrival = new LatencyHistogram();
+    private final LatencyHistogram jitter = new LatencyHistogram();
+
+    // Sequence state (serial thread only)
+    private int highest = -1;
+    private long seenMask;  // bit i = counter (highest - i) was received
+    private long validMask; // bit i = counter (highest - i) is accounted for since the last resync
+
+    private volatile long lastRxNanos;
+    private volatile long received;
+    private volatile long inSequence;
+    private volatile long missing;
+    private volatile long duplicates;
+    private volatile long late;
+    private volatile long resyncs;
+    private volatile long stalls;
+
+    private volatile boolean stalled;
+    private volatile long stallStartNanos;
+    private TimerWheel.Timeout watchdog;
+
+    public AliveSupervisor() {
+        this(NOMINAL_PERIOD_NANOS);
+    }
+
+    public AliveSupervisor(long nominalPeriodNanos) {
+        this.nominalPeriodNanos = nominalPeriodNanos;
+    }
+
+    public void setStallTimeoutMs(long timeoutMs) {
+        this.stallTimeoutNanos = Math.max(1, timeoutMs) * 1_000_000L;
+    }
+
+    public long getStallTimeoutMs() {
+        return stallTimeoutNanos / 1_000_000L;
+    }
+
+    public void setStallListener(StallListener listener) {
+        this.stallListener = listener;
+    }
+
+    @Override
+    public void onFrameReceived(int cmdId, byte[] payload, long rxNanos) {
+        if (cmdId != CMD_ALIVE_MSG || payload.length < 4) return;
+        int counter = (payload[2] & 0xFF) | ((payload[3] & 0xFF) << 8);
+        received++;
+
+        long previousRx = lastRxNanos;
+        lastRxNanos = rxNanos;
+        boolean wasStalled = stalled;
+        if (wasStalled) recover(rxNanos);
+        armWatchdog();
+
+        if (highest < 0) {
+            resync(counter);
+            return;
+        }
+
+        int ahead = (counter - highest) & 0xFFFF;
+        if (ahead == 0) {
+            duplicates++;
+        } else if (ahead < RESYNC_DISTANCE) {
+            if (ahead > 1) missing += ahead - 1;
+            seenMask = ahead >= WINDOW ? 1L : (seenMask << ahead) | 1L;
+            validMask = ahead >= WINDOW ? -1L : (validMask << ahead) | ((1L << ahead) - 1);
+            highest = counter;
+
+            if (ahead == 1) inSequence++;
+            if (!wasStalled) {
+                // The silence of a stall is reported by the alarm, not as jitter
+                long interval = rxNanos - previousRx;
+                interArrival.record(interval);
+                if (ahead == 1) jitter.record(Math.abs(interval - nominalPeriodNanos));
+            }
+        } else {
+            int behind = 0x10000 - ahead;
+            if (behind < WINDOW) {
+                long bit = 1L << behind;
+                if ((seenMask & bit) != 0) {
+                    duplicates++;
+                } else {
+                    seenMask |= bit;
+                    late++;
+                    // Counted as missing when the newer frame arrived; it was only late
+                    if ((validMask & bit) != 0) missing--;
+                }
+            } else if (behind < RESYNC_DISTANCE) {
+                late++;
+            } else {
+                resync(counter);
+            }
+        }
+    }
+
+    @Override
+    public void onLinkResumed(String portName, long gapMillis) {
+        // Frames lost during the outage are not counter gaps
+        highest = -1;
+    }
+
+    private void resync(int counter) {
+        if (highest >= 0) resyncs++;
+        highest = counter;
+        seenMask = 1L;
+        validMask = 1L;
+    }
+
+    // ======= STALL WATCHDOG =======
+
+    private synchronized void armWatchdog() {
+        if (watchdog != null && !watchdog.isDone()) return;
+        watchdog = TimerWheel.shared().schedule(this::checkStall, stallTimeoutNanos / 1_000_000L);
+    }
+
+    private void checkStall() {
+        long silent = System.nanoTime() - lastRxNanos;
+        long timeout = stallTimeoutNanos;
+        if (silent < timeout) {
+            // Frames kept arriving; check again when the newest one would time out
+            synchronized (this) {
+                watchdog = TimerWheel.shared().schedule(this::checkStall,
+                    Math.max(1, (timeout - silent) / 1_000_000L));
+            }
+            return;
+        }
+        if (!stalled) {
+            stalled = true;
+            stallStartNanos = lastRxNanos;
+            stalls++;
+            StallListener l = stallListener;
+            if (l != null) l.onAliveStall(silent / 1_000_000L);
+        }
+        // Stay idle until the next ALIVE re-arms the watchdog
+    }
+
+    private void recover(long rxNanos) {
+        stalled = false;
+        StallListener l = stallListener;
+        if (l != null) l.onAliveRecovered((rxNanos - stallStartNanos) / 1_000_000L);
+    }
+
+    /**
+     * Stop the watchdog (e.g. on disconnect); it re-arms on the next ALIVE
+     */
+    public synchronized void stop() {
+        if (watchdog != null) watchdog.cancel();
+        watchdog = null;
+        stalled = false;
+    }
+
+    // ======= STATISTICS =======
+
+    public long getReceived() { return received; }
+    public long getInSequence() { return inSequence; }
+    public long getMissing() { return missing; }
+    public long getDuplicates() { return duplicates; }
+    public long getLate() { return late; }
+    public long getResyncs() { return resyncs; }
+    public long getStalls() { return stalls; }
+
+    public boolean isStalled() {
+        return stalled;
+    }
+
+    /**
+     * Time between consecutive ALIVE frames in nanoseconds
+     */
+    public LatencyHistogram getInterArrival() {
+        return interArrival;
+    }
+
+    /**
+     * |interval - nominal period| of in-sequence frames in nanoseconds
+     */
+    public LatencyHistogram getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Share of expected frames that never arrived (0..1)
+     */
+    public double getLossRatio() {
+        long expected = received - duplicates + missing;
+        return expected <= 0 ? 0.0 : (double) missing / expected;
+    }
+
+    public String toSummaryString() {
+        return String.format("rx=%d seq=%d missing=%d dup=%d late=%d resync=%d stalls=%d loss=%.3f%% jitter %s",
+            received, inSequence, missing, duplicates, late, resyncs, stalls, getLossRatio() * 100.0,
+            jitter.toSummaryString());
+    }
+
+    public synchronized void reset() {
+        highest = -1;
+        seenMask = 0;
+        validMask = 0;
+        received = inSequence = missing = duplicates = late = resyncs = stalls = 0;
+        interArrival.reset();
+        jitter.reset();
+    }
+}
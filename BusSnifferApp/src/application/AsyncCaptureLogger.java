@@ -0,0 +1,355 @@
+package application;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Asynchronous rotating capture/trace logger
+ * Producers (serial reader/sender threads, trace listeners) only publish events into a
+ * lock-free ring; a background writer batches them into buffered log files with
+ * size/time based rotation, retention limits and optional gzip compression
+ */
+public class AsyncCaptureLogger implements SeatControllerSnifferManager.FrameObserver {
+
+    /**
+     * Logger configuration (loaded from the "log.*" keys of seat_sniffer.properties)
+     */
+    public static class Config {
+        public File directory = new File("logs");
+        public String baseName = "seat_sniffer";
+        public long maxFileBytes = 10L * 1024 * 1024;  // 10 MB
+        public long rotateIntervalMs = 0;              // 0 = size-based only
+        public int maxFiles = 20;                      // retention
+        public boolean gzip = false;
+        public int ringCapacity = 65536;
+
+        public static Config fromProperties(Properties p) {
+            Config c = new Config();
+            c.directory = new File(p.getProperty("log.dir", c.directory.getPath()));
+            c.baseName = p.getProperty("log.name", c.baseName);
+            c.maxFileBytes = (long) (Double.parseDouble(p.getProperty("log.maxSizeMb", "10")) * 1024 * 1024);
+            c.rotateIntervalMs = (long) (Double.parseDouble(p.getProperty("log.rotateMinutes", "0")) * 60_000);
+            c.maxFiles = Integer.parseInt(p.getProperty("log.maxFiles", String.valueOf(c.maxFiles)));
+            c.gzip = Boolean.parseBoolean(p.getProperty("log.gzip", "false"));
+            return c;
+        }
+    }
+
+    private static final int KIND_RX = 0;
+    private static final int KIND_TX = 1;
+    private static final int KIND_TEXT = 2;
+    private static final int KIND_GAP = 3;
+
+    private static final int WRITE_BATCH = 1024;
+    private static final long FLUSH_INTERVAL_NS = 200_000_000L; // 200 ms
+    private static final long IDLE_PARK_NS = 100_000_000L;      // 100 ms; offers unpark the writer
+
+    private static final DateTimeFormatter LINE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /**
+     * Immutable event handed from producers to the writer
+     */
+    private static final class LogEvent {
+        final int kind;
+        final long wallMillis;
+        final int cmdId;
+        final byte[] payload;
+        final String text;
+        final double ecuMillis;
+
+        LogEvent(int kind, long wallMillis, int cmdId, byte[] payload, String text) {
+            this(kind, wallMillis, cmdId, payload, text, Double.NaN);
+        }
+
+        LogEvent(int kind, long wallMillis, int cmdId, byte[] payload, String text, double ecuMillis) {
+            this.kind = kind;
+            this.wallMillis = wallMillis;
+            this.cmdId = cmdId;
+            this.payload = payload;
+            this.text = text;
+            this.ecuMillis = ecuMillis;
+        }
+    }
+
+    private final Config config;
+    private final MpscRing<LogEvent> ring;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final StringBuilder line = new StringBuilder(256);
+
+    private volatile boolean running = false;
+    private volatile EcuClock ecuClock;
+    private Thread writerThread;
+
+    // Writer-thread state
+    private Writer out;
+    private File currentFile;
+    private long currentBytes;
+    private long fileOpenedMillis;
+    private long eventsWritten;
+    private long filesRotated;
+
+    public AsyncCaptureLogger(Config config) {
+        this.config = config;
+        this.ring = new MpscRing<>(config.ringCapacity);
+    }
+
+    /**
+     * Open the first log file and start the background writer
+     */
+    public boolean start() {
+        if (running) return true;
+        try {
+            if (!config.directory.isDirectory() && !config.directory.mkdirs()) {
+                System.err.println("Cannot create log directory " + config.directory);
+                return false;
+            }
+            openNewFile();
+        } catch (IOException e) {
+            System.err.println("Cannot open log file: " + e.getMessage());
+            return false;
+        }
+
+        running = true;
+        writerThread = new Thread(this::writerLoop);
+        writerThread.setName("CaptureLogWriter");
+        writerThread.setDaemon(true);
+        writerThread.setPriority(Thread.MIN_PRIORITY);
+        ring.setConsumer(writerThread);
+        writerThread.start();
+        return true;
+    }
+
+    /**
+     * Stop the writer after draining all queued events
+     */
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writerThread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // ======= PRODUCER SIDE (any thread, never blocks) =======
+
+    @Override
+    public void onFrameReceived(int cmdId, byte[] payload, long rxNanos) {
+        onFrameReceived(cmdId, payload, rxNanos, ecuTime(rxNanos));
+    }
+
+    @Override
+    public void onFrameReceived(int cmdId, byte[] payload, long rxNanos, double ecuMillis) {
+        ring.offer(new LogEvent(KIND_RX, PreciseTiming.toWallMillis(rxNanos), cmdId, payload, null, ecuMillis));
+    }
+
+    @Override
+    public void onFrameSent(int cmdId, byte[] payload, long txNanos) {
+        ring.offer(new LogEvent(KIND_TX, PreciseTiming.toWallMillis(txNanos), cmdId, payload, null, ecuTime(txNanos)));
+    }
+
+    /**
+     * Clock for frames that arrive without an ECU time (sent frames)
+     */
+    public void setEcuClock(EcuClock clock) {
+        this.ecuClock = clock;
+    }
+
+    private double ecuTime(long nanos) {
+        EcuClock clock = ecuClock;
+        return clock != null ? clock.toEcuMillis(nanos) : Double.NaN;
+    }
+
+    @Override
+    public void onLinkResumed(String portName, long gapMillis) {
+        ring.offer(new LogEvent(KIND_GAP, System.currentTimeMillis(), 0, null,
+            gapMillis + " ms link lost, resumed on " + portName));
+    }
+
+    /**
+     * Log a free-text trace line
+     */
+    public void logText(String text) {
+        logText(text, System.nanoTime());
+    }
+
+    /**
+     * Log a free-text trace line stamped with the System.nanoTime() of its event
+     */
+    public void logText(String text, long nanoTime) {
+        if (text != null) ring.offer(new LogEvent(KIND_TEXT, PreciseTiming.toWallMillis(nanoTime), 0, null, text));
+    }
+
+    // ======= WRITER THREAD =======
+
+    private void writerLoop() {
+        long lastFlush = System.nanoTime();
+        boolean dirty = false;
+
+        while (running || ring.size() > 0) {
+            try {
+                int n = ring.drain(this::write, WRITE_BATCH);
+                if (n > 0) dirty = true;
+
+                long now = System.nanoTime();
+                if (dirty && (n == 0 || now - lastFlush >= FLUSH_INTERVAL_NS)) {
+                    out.flush();
+                    lastFlush = now;
+                    dirty = false;
+                }
+                if (needsRotation()) rotate();
+                if (n == 0 && running) LockSupport.parkNanos(IDLE_PARK_NS);
+            } catch (IOException e) {
+                System.err.println("Capture log write error: " + e.getMessage());
+                LockSupport.parkNanos(100_000_000L);
+            }
+        }
+
+        try {
+            line.setLength(0);
+            line.append("# log closed, ").append(eventsWritten).append(" events, ")
+                .append(ring.getDroppedCount()).append(" dropped\n");
+            out.write(line.toString());
+            out.close();
+            if (config.gzip) compress(currentFile);
+        } catch (IOException e) {
+            System.err.println("Capture log close error: " + e.getMessage());
+        }
+    }
+
+    private void write(LogEvent ev) {
+        line.setLength(0);
+        line.append(LINE_TIME.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(ev.wallMillis), zone)));
+        switch (ev.kind) {
+            case KIND_RX:
+            case KIND_TX:
+                if (!Double.isNaN(ev.ecuMillis)) EcuClock.appendEcuTime(line, ev.ecuMillis);
+                line.append(ev.kind == KIND_RX ? " RX 0x" : " TX 0x");
+                appendHexByte(line, ev.cmdId);
+                if (ev.payload != null) {
+                    for (byte b : ev.payload) {
+                        line.append(' ');
+                        appendHexByte(line, b & 0xFF);
+                    }
+                }
+                break;
+            case KIND_GAP:
+                line.append(" GAP ").append(ev.text);
+                break;
+            default:
+                line.append(" -- ").append(ev.text);
+                break;
+        }
+        line.append('\n');
+
+        try {
+            out.write(line.toString());
+            currentBytes += line.length();
+            eventsWritten++;
+        } catch (IOException e) {
+            System.err.println("Capture log write error: " + e.getMessage());
+        }
+    }
+
+    private boolean needsRotation() {
+        if (config.maxFileBytes > 0 && currentBytes >= config.maxFileBytes) return true;
+        return config.rotateIntervalMs > 0
+            && System.currentTimeMillis() - fileOpenedMillis >= config.rotateIntervalMs;
+    }
+
+    private void rotate() throws IOException {
+        out.close();
+        File finished = currentFile;
+        openNewFile();
+        filesRotated++;
+        if (config.gzip) compress(finished);
+        enforceRetention();
+    }
+
+    private void openNewFile() throws IOException {
+        String stamp = FILE_TIME.format(LocalDateTime.now());
+        File file = new File(config.directory, config.baseName + "-" + stamp + ".log");
+        for (int i = 1; file.exists() || new File(file.getPath() + ".gz").exists(); i++) {
+            file = new File(config.directory, config.baseName + "-" + stamp + "-" + i + ".log");
+        }
+        out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 64 * 1024);
+        currentFile = file;
+        currentBytes = 0;
+        fileOpenedMillis = System.currentTimeMillis();
+        out.write("# Seat Controller capture log started " + LocalDateTime.now() + "\n");
+    }
+
+    private void compress(File file) {
+        File gz = new File(file.getPath() + ".gz");
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file));
+             OutputStream zip = new GZIPOutputStream(new FileOutputStream(gz), 64 * 1024)) {
+            byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) > 0) zip.write(buf, 0, n);
+        } catch (IOException e) {
+            System.err.println("Capture log compression failed: " + e.getMessage());
+            gz.delete();
+            return;
+        }
+        file.delete();
+    }
+
+    private void enforceRetention() {
+        if (config.maxFiles <= 0) return;
+        String prefix = config.baseName + "-";
+        File[] files = config.directory.listFiles((dir, name) ->
+            name.startsWith(prefix) && (name.endsWith(".log") || name.endsWith(".log.gz")));
+        if (files == null || files.length <= config.maxFiles) return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - config.maxFiles; i++) {
+            if (!files[i].equals(currentFile)) files[i].delete();
+        }
+    }
+
+
+    private static void appendHexByte(StringBuilder sb, int value) {
+        sb.append(Character.toUpperCase(Character.forDigit((value >> 4) & 0xF, 16)));
+        sb.append(Character.toUpperCase(Character.forDigit(value & 0xF, 16)));
+    }
+
+    // ======= STATUS =======
+
+    public File getCurrentFile() {
+        return currentFile;
+    }
+
+    public long getEventsWritten() {
+        return eventsWritten;
+    }
+
+    public long getDroppedCount() {
+        return ring.getDroppedCount();
+    }
+
+    public long getFilesRotated() {
+        return filesRotated;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+}
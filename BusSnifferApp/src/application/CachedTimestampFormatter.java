@@ -0,0 +1,57 @@
+package application;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * HH:mm:ss.SSS formatter that reuses work across calls
+ * The string is reused for repeated timestamps in the same millisecond and the
+ * HH:mm:ss prefix is reused within the same second. Not thread-safe: give each
+ * formatting thread its own instance.
+ */
+public class CachedTimestampFormatter {
+
+    private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final ZoneId zone;
+    private final StringBuilder sb = new StringBuilder(12);
+
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedPrefix = "";
+    private long cachedMillis = Long.MIN_VALUE;
+    private String cachedText = "";
+
+    public CachedTimestampFormatter() {
+        this(ZoneId.systemDefault());
+    }
+
+    public CachedTimestampFormatter(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Format epoch milliseconds as HH:mm:ss.SSS in the local time zone
+     */
+    public String format(long epochMillis) {
+        if (epochMillis == cachedMillis) return cachedText;
+
+        long second = Math.floorDiv(epochMillis, 1000L);
+        if (second != cachedSecond) {
+            cachedPrefix = SECONDS.format(LocalTime.from(Instant.ofEpochSecond(second).atZone(zone))) + ".";
+            cachedSecond = second;
+        }
+
+        int ms = (int) Math.floorMod(epochMillis, 1000L);
+        sb.setLength(0);
+        sb.append(cachedPrefix);
+        if (ms < 100) sb.append('0');
+        if (ms < 10) sb.append('0');
+        sb.append(ms);
+
+        cachedMillis = epochMillis;
+        cachedText = sb.toString();
+        return cachedText;
+    }
+}
@@ -0,0 +1,242 @@
+package application;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cyclic message scheduler for ECU stimulation
+ * Runs every task on one high-priority thread against absolute deadlines
+ * (next = previous deadline + period), so late releases do not accumulate drift.
+ * Waits use the PreciseTiming park/spin hybrid. Release jitter is recorded per
+ * task; periods that could not be served at all are counted as missed and skipped.
+ * Tasks may be added and removed while running, so one scheduler can serve
+ * the cycles of many sessions (see SessionPool).
+ */
+public class CyclicScheduler {
+
+    /**
+     * One periodic action and its timing statistics
+     */
+    public static class Task {
+        private final String name;
+        private final long periodNanos;
+        private final Runnable action;
+        private final LatencyHistogram jitter = new LatencyHistogram();
+        private long nextDeadline;
+        private volatile long fired;
+        private volatile long missed;
+
+        Task(String name, long periodNanos, Runnable action) {
+            this.name = name;
+            this.periodNanos = periodNanos;
+            this.action = action;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getPeriodNanos() {
+            return periodNanos;
+        }
+
+        /**
+         * Release delay (actual - deadline) of every cycle in nanoseconds
+         */
+        public LatencyHistogram getJitter() {
+            return jitter;
+        }
+
+        public long getFired() {
+            return fired;
+        }
+
+        public long getMissed() {
+            return missed;
+        }
+
+        public String toSummaryString() {
+            return String.format("%-15s period=%.3f ms fired=%d missed=%d jitter %s",
+                name, periodNanos / 1e6, fired, missed, jitter.toSummaryString());
+        }
+    }
+
+    private final String threadName;
+    private static final long IDLE_PARK_NS = 100_000_000L; // addTask unparks the idle worker
+
+    private volatile Task[] tasks = new Task[0]; // copy-on-write
+    private final LatencyHistogram jitter = new LatencyHistogram();
+    private volatile BooleanSupplier runCondition = () -> true;
+
+    private volatile boolean running = false;
+    private volatile long startNanos;
+    private volatile long stopNanos;
+    private Thread worker;
+
+    public CyclicScheduler(String threadName) {
+        this.threadName = threadName;
+    }
+
+    /**
+     * Add a periodic task; when running, its first release is 1 ms from now
+     */
+    public synchronized Task addTask(String name, long periodNanos, Runnable action) {
+        if (periodNanos <= 0) throw new IllegalArgumentException("Period must be > 0");
+        Task task = new Task(name, periodNanos, action);
+        task.nextDeadline = System.nanoTime() + 1_000_000L;
+        Task[] next = Arrays.copyOf(tasks, tasks.length + 1);
+        next[next.length - 1] = task;
+        tasks = next;
+        if (next.length == 1 && worker != null) LockSupport.unpark(worker);
+        return task;
+    }
+
+    /**
+     * Remove a task; a release already in progress still completes
+     */
+    public synchronized void removeTask(Task task) {
+        Task[] current = tasks;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == task) {
+                Task[] next = new Task[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, next.length - i);
+                tasks = next;
+                return;
+            }
+        }
+    }
+
+    public List<Task> getTasks() {
+        return Collections.unmodifiableList(Arrays.asList(tasks));
+    }
+
+    /**
+     * Checked before every release; the scheduler stops once it returns false
+     * (e.g. when the link goes down)
+     */
+    public void setRunCondition(BooleanSupplier condition) {
+        this.runCondition = condition != null ? condition : () -> true;
+    }
+
+    /**
+     * Start running until stop() is called
+     */
+    public void start() {
+        start(0);
+    }
+
+    /**
+     * Start running for the given duration (0 = until stop())
+     */
+    public synchronized void start(long durationNanos) {
+        if (running || tasks.length == 0) return;
+        running = true;
+        stopNanos = 0;
+        startNanos = System.nanoTime();
+
+        worker = new Thread(() -> runSchedule(durationNanos));
+        worker.setName(threadName);
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MAX_PRIORITY);
+        worker.start();
+    }
+
+    /**
+     * Stop the scheduler and wait for it to exit
+     */
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = worker;
+            worker = null;
+        }
+        if (t != null && t != Thread.currentThread()) {
+            t.interrupt();
+            try {
+                t.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (stopNanos == 0 && startNanos != 0) stopNanos = System.nanoTime();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * When the schedule ended, or 0 while still running
+     */
+    public long getStopNanos() {
+        return stopNanos;
+    }
+
+    /**
+     * Release jitter over all tasks
+     */
+    public LatencyHistogram getJitter() {
+        return jitter;
+    }
+
+    public long getTotalMissed() {
+        long n = 0;
+        for (Task task : tasks) n += task.missed;
+        return n;
+    }
+
+    private void runSchedule(long durationNanos) {
+        long first = System.nanoTime() + 1_000_000L;
+        long end = durationNanos > 0 ? first + durationNanos : Long.MAX_VALUE;
+        synchronized (this) {
+            for (Task task : tasks) task.nextDeadline = first;
+        }
+
+        while (running && runCondition.getAsBoolean()) {
+            Task[] schedule = tasks;
+            if (schedule.length == 0) {
+                // Every task was removed; wait for new ones
+                LockSupport.parkNanos(IDLE_PARK_NS);
+                continue;
+            }
+            Task next = schedule[0];
+            for (Task task : schedule) {
+                if (task.nextDeadline - next.nextDeadline < 0) next = task;
+            }
+            if (next.nextDeadline - end >= 0) break;
+            if (!PreciseTiming.sleepUntil(next.nextDeadline)) break;
+
+            long now = System.nanoTime();
+            long late = now - next.nextDeadline;
+            next.jitter.record(late);
+            jitter.record(late);
+
+            try {
+                next.action.run();
+            } catch (Exception e) {
+                System.err.println("Cyclic task " + next.name + " failed: " + e.getMessage());
+            }
+            next.fired++;
+
+            // Absolute deadlines: no drift; if we fell behind by whole periods, skip them
+            next.nextDeadline += next.periodNanos;
+            long behind = now - next.nextDeadline;
+            if (behind > next.periodNanos) {
+                long skipped = behind / next.periodNanos;
+                next.missed += skipped;
+                next.nextDeadline += skipped * next.periodNanos;
+            }
+        }
+        stopNanos = System.nanoTime();
+        running = false;
+    }
+}
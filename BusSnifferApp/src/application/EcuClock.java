@@ -0,0 +1,250 @@
+package application;
+
+/**
+ * Aligns the ECU clock to the host clock using the ALIVE timestamps
+ * The u16 millisecond timestamp is unwrapped into a 64-bit ECU timeline by
+ * choosing the wrap nearest to the host-predicted ECU time, so gaps longer
+ * than one wrap (65.5 s) are handled too. Once per sample interval the ALIVE
+ * with the least host-side delay is kept (minimum-delay filter), and a line
+ * host = offset + rate * ecu is fitted over a sliding window of those samples.
+ * The fit gives the clock offset and drift, and maps any host receive time to
+ * ECU time and back.
+ *
+ * Updates come from the serial reader thread; the current fit is published as
+ * an immutable object, so queries from other threads are lock-free.
+ */
+public class EcuClock implements SeatControllerSnifferManager.FrameObserver {
+
+    private static final int CMD_ALIVE_MSG = 0x10;
+    private static final long WRAP = 0x10000;
+    private static final long SAMPLE_INTERVAL_MS = 200;
+    private static final int WINDOW = 128; // ~25 s of samples
+    // A timestamp this far from the prediction means the ECU restarted
+    private static final double RESET_THRESHOLD_MS = 1000.0;
+
+    /**
+     * Linear mapping between the two clocks (times in ms relative to the bases)
+     */
+    private static final class Fit {
+        final long hostBaseNanos;
+        final long ecuBaseMs;
+        final double intercept; // host ms at ECU base
+        final double rate;      // host ms per ECU ms
+        final int samples;
+
+        Fit(long hostBaseNanos, long ecuBaseMs, double intercept, double rate, int samples) {
+            this.hostBaseNanos = hostBaseNanos;
+            this.ecuBaseMs = ecuBaseMs;
+            this.intercept = intercept;
+            this.rate = rate;
+            this.samples = samples;
+        }
+
+        double ecuMillis(long hostNanos) {
+            double hostMs = (hostNanos - hostBaseNanos) / 1e6;
+            return ecuBaseMs + (hostMs - intercept) / rate;
+        }
+
+        long hostNanos(double ecuMillis) {
+            double hostMs = intercept + (ecuMillis - ecuBaseMs) * rate;
+            return hostBaseNanos + (long) (hostMs * 1e6);
+        }
+    }
+
+    // Serial-thread state
+    private long hostBaseNanos;
+    private long ecuBaseMs;
+    private long lastEcuMs = -1;
+    private long lastHostNanos;
+    private long bucketStartMs;
+    private double bucketBestDelay = Double.MAX_VALUE;
+    private double bucketBestX, bucketBestY;
+    private final double[] xs = new double[WINDOW];
+    private final double[] ys = new double[WINDOW];
+    private int head;
+    private int count;
+
+    private volatile Fit fit;
+    private volatile long resets;
+    private final LatencyHistogram residuals = new LatencyHistogram();
+
+    @Override
+    public void onFrameReceived(int cmdId, byte[] payload, long rxNanos) {
+        if (cmdId != CMD_ALIVE_MSG || payload.length < 2) return;
+        int ts = (payload[0] & 0xFF) | ((payload[1] & 0xFF) << 8);
+
+        long ecuMs = unwrap(ts, rxNanos);
+        if (ecuMs < 0) {
+            restart(ts, rxNanos);
+            ecuMs = ts;
+        }
+        if (ecuMs > lastEcuMs) {
+            lastEcuMs = ecuMs;
+            lastHostNanos = rxNanos;
+        }
+
+        double x = ecuMs - ecuBaseMs;
+        double y = (rxNanos - hostBaseNanos) / 1e6;
+
+        Fit f = fit;
+        if (f != null) {
+            residuals.record(rxNanos - f.hostNanos(ecuMs));
+        }
+
+        // Keep the least-delayed ALIVE of each interval: host time - ECU time is smallest
+        double delay = y - x;
+        if (delay < bucketBestDelay) {
+            bucketBestDelay = delay;
+            bucketBestX = x;
+            bucketBestY = y;
+        }
+        if (ecuMs - bucketStartMs >= SAMPLE_INTERVAL_MS) {
+            addSample(bucketBestX, bucketBestY);
+            bucketStartMs = ecuMs;
+            bucketBestDelay = Double.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Map a u16 timestamp onto the ECU timeline
+     * @return the unwrapped time, or -1 if the ECU timeline restarted
+     */
+    private long unwrap(int ts, long rxNanos) {
+        if (lastEcuMs < 0) return -1;
+        Fit f = fit;
+        double predicted = f != null
+            ? f.ecuMillis(rxNanos)
+            : lastEcuMs + (rxNanos - lastHostNanos) / 1e6;
+        long wraps = Math.round((predicted - ts) / WRAP);
+        long ecuMs = ts + wraps * WRAP;
+        return Math.abs(ecuMs - predicted) > RESET_THRESHOLD_MS ? -1 : ecuMs;
+    }
+
+    private void restart(int ts, long rxNanos) {
+        if (lastEcuMs >= 0) resets++;
+        hostBaseNanos = rxNanos;
+        ecuBaseMs = ts;
+        lastEcuMs = ts;
+        lastHostNanos = rxNanos;
+        bucketStartMs = ts;
+        bucketBestDelay = Double.MAX_VALUE;
+        head = 0;
+        count = 0;
+        fit = null;
+    }
+
+    private void addSample(double x, double y) {
+        xs[head] = x;
+        ys[head] = y;
+        head = (head + 1) % WINDOW;
+        if (count < WINDOW) count++;
+        refit();
+    }
+
+    // Centered least squares over the window; runs once per sample interval
+    private void refit() {
+        double meanX = 0, meanY = 0;
+        for (int i = 0; i < count; i++) {
+            meanX += xs[i];
+            meanY += ys[i];
+        }
+        meanX /= count;
+        meanY /= count;
+
+        double rate = 1.0;
+        if (count >= 2) {
+            double sxx = 0, sxy = 0;
+            for (int i = 0; i < count; i++) {
+                double dx = xs[i] - meanX;
+                sxx += dx * dx;
+                sxy += dx * (ys[i] - meanY);
+            }
+            if (sxx > 0) rate = sxy / sxx;
+        }
+        fit = new Fit(hostBaseNanos, ecuBaseMs, meanY - rate * meanX, rate, count);
+    }
+
+    // ======= QUERIES (any thread) =======
+
+    /**
+     * True once at least one sample interval has been observed
+     */
+    public boolean isAligned() {
+        return fit != null;
+    }
+
+    /**
+     * ECU time (ms on the unwrapped timeline) at the given host System.nanoTime()
+     * @return NaN if not aligned yet
+     */
+    public double toEcuMillis(long hostNanos) {
+        Fit f = fit;
+        return f == null ? Double.NaN : f.ecuMillis(hostNanos);
+    }
+
+    /**
+     * Host System.nanoTime() at the given ECU time
+     * @return 0 if not aligned yet
+     */
+    public long toHostNanos(double ecuMillis) {
+        Fit f = fit;
+        return f == null ? 0 : f.hostNanos(ecuMillis);
+    }
+
+    /**
+     * Append " ecu=<ms>.<us>" for a time on the ECU timeline
+     */
+    public static StringBuilder appendEcuTime(StringBuilder sb, double ecuMillis) {
+        long micros = Math.round(ecuMillis * 1000.0);
+        sb.append(" ecu=");
+        if (micros < 0) {
+            sb.append('-');
+            micros = -micros;
+        }
+        long frac = micros % 1000;
+        sb.append(micros / 1000).append('.');
+        if (frac < 100) sb.append('0');
+        if (frac < 10) sb.append('0');
+        return sb.append(frac);
+    }
+
+    /**
+     * Latest unwrapped ECU time seen in an ALIVE frame, or -1
+     */
+    public long getLastEcuMillis() {
+        return lastEcuMs;
+    }
+
+    /**
+     * ECU clock drift against the host in ppm (positive = ECU runs slow)
+     */
+    public double getDriftPpm() {
+        Fit f = fit;
+        return f == null || f.samples < 2 ? 0.0 : (f.rate - 1.0) * 1e6;
+    }
+
+    public int getSampleCount() {
+        Fit f = fit;
+        return f == null ? 0 : f.samples;
+    }
+
+    public long getResets() {
+        return resets;
+    }
+
+    /**
+     * Host receive time minus the fitted time of each ALIVE in nanoseconds
+     * (transport and scheduling delay beyond the least-delayed samples)
+     */
+    public LatencyHistogram getResiduals() {
+        return residuals;
+    }
+
+    public String toSummaryString() {
+        Fit f = fit;
+        if (f == null) return "not aligned";
+        return String.format("ecu=%d ms drift=%+.1f ppm samples=%d resets=%d residual p50=%.3f p99=%.3f ms",
+            lastEcuMs, getDriftPpm(), f.samples, resets,
+            residuals.getPercentile(50) / 1e6, residuals.getPercentile(99) / 1e6);
+    }
+}
@@ -0,0 +1,220 @@
+package application;
+
+/**
+ * Incremental UART frame scanner
+ * Finds [7E][LEN 4B][CMD][PAYLOAD][XOR][7F] frames in an arbitrary byte stream,
+ * verifies tail and checksum, and resynchronises on the next header after
+ * garbage. The LENGTH field is accepted in either byte order because the ECU
+ * and the host encoder do not agree on it.
+ */
+public class FrameScanner {
+
+    public static final byte HEADER = 0x7E;
+    public static final byte TAIL = 0x7F;
+    public static final int MIN_FRAME = 7;   // HEADER + LEN + CMD + CHK + TAIL, no payload
+    public static final int MAX_PAYLOAD = 1024;
+
+    private static final int NEED_MORE = 0;
+    private static final int INVALID = -1;
+    private static final int BAD_CHECKSUM = -2;
+
+    /**
+     * Receives every validated frame
+     */
+    public interface FrameHandler {
+        void onFrame(int cmdId, byte[] payload);
+    }
+
+    /**
+     * Also receives the raw bytes, in stream order
+     */
+    public interface StreamHandler extends FrameHandler {
+        /**
+         * Wire bytes of the frame reported next by onFrame
+         */
+        void onFrameBytes(byte[] data, int offset, int len);
+
+        /**
+         * Bytes outside any valid frame (device text output, noise)
+         */
+        void onOtherBytes(byte[] data, int offset, int len);
+
+        /**
+         * A complete frame whose checksum did not match; its bytes follow as other bytes
+         */
+        default void onChecksumError() {}
+    }
+
+    private byte[] buf;
+    private int count = 0;
+
+    private long validFrames;
+    private long checksumErrors;
+    private long discardedBytes;
+    private long printableBytes;
+    private long totalBytes;
+
+    public FrameScanner() {
+        this(4096);
+    }
+
+    public FrameScanner(int initialCapacity) {
+        buf = new byte[Math.max(initialCapacity, MAX_PAYLOAD + 8)];
+    }
+
+    /**
+     * Append received bytes and report every complete, valid frame
+     */
+    public void feed(byte[] data, int len, FrameHandler handler) {
+        if (len <= 0) return;
+        totalBytes += len;
+        for (int i = 0; i < len; i++) {
+            int b = data[i] & 0xFF;
+            if ((b >= 0x20 && b < 0x7F) || b == '\r' || b == '\n' || b == '\t') printableBytes++;
+        }
+
+        ensureCapacity(count + len);
+        System.arraycopy(data, 0, buf, count, len);
+        count += len;
+        scan(handler);
+    }
+
+    private void scan(FrameHandler handler) {
+        StreamHandler stream = handler instanceof StreamHandler ? (StreamHandler) handler : null;
+        int pos = 0;
+        int otherStart = 0; // start of the current run of non-frame bytes
+        while (pos < count) {
+            if (buf[pos] != HEADER) {
+                pos++;
+                discardedBytes++;
+                continue;
+            }
+
+            int result = check(pos);
+            if (result > 0) {
+                validFrames++;
+                if (stream != null) {
+                    if (pos > otherStart) stream.onOtherBytes(buf, otherStart, pos - otherStart);
+                    stream.onFrameBytes(buf, pos, result);
+                }
+                if (handler != null) {
+                    int length = result - 7;
+                    byte[] payload = new byte[length - 1];
+                    System.arraycopy(buf, pos + 6, payload, 0, payload.length);
+                    handler.onFrame(buf[pos + 5] & 0xFF, payload);
+                }
+                pos += result;
+                otherStart = pos;
+            } else if (result == NEED_MORE) {
+                // A stray 0x7E can look like the start of a long frame; if a complete
+                // frame already follows it, the stray header was garbage
+                int next = nextCompleteFrame(pos + 1);
+                if (next < 0) break;
+                discardedBytes += next - pos;
+                pos = next;
+            } else {
+                if (result == BAD_CHECKSUM) {
+                    checksumErrors++;
+                    if (stream != null) stream.onChecksumError();
+                }
+                pos++;
+                discardedBytes++;
+            }
+        }
+        if (stream != null && pos > otherStart) stream.onOtherBytes(buf, otherStart, pos - otherStart);
+
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, count - pos);
+            count -= pos;
+        }
+    }
+
+    /**
+     * @return frame length if a valid frame starts at pos, NEED_MORE if one might,
+     *         INVALID or BAD_CHECKSUM if it cannot
+     */
+    private int check(int pos) {
+        if (count - pos < MIN_FRAME) return NEED_MORE;
+
+        int b1 = buf[pos + 1] & 0xFF, b2 = buf[pos + 2] & 0xFF;
+        int b3 = buf[pos + 3] & 0xFF, b4 = buf[pos + 4] & 0xFF;
+        int littleEndian = (b4 << 24) | (b3 << 16) | (b2 << 8) | b1;
+        int bigEndian = (b1 << 24) | (b2 << 16) | (b3 << 8) | b4;
+
+        int result = INVALID;
+        for (int length : new int[]{littleEndian, bigEndian}) {
+            if (length < 1 || length > MAX_PAYLOAD + 1) continue;
+
+            int frameLen = length + 7;
+            if (count - pos < frameLen) {
+                result = NEED_MORE;
+                continue;
+            }
+            if (buf[pos + frameLen - 1] != TAIL) continue;
+
+            byte checksum = 0;
+            for (int i = pos + 5; i < pos + 5 + length; i++) checksum ^= buf[i];
+            if (checksum == buf[pos + 5 + length]) return frameLen;
+            if (result == INVALID) result = BAD_CHECKSUM;
+        }
+        return result;
+    }
+
+    private int nextCompleteFrame(int from) {
+        for (int i = from; i < count; i++) {
+            if (buf[i] == HEADER && check(i) > 0) return i;
+        }
+        return -1;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= buf.length) return;
+        byte[] grown = new byte[Math.max(needed, buf.length * 2)];
+        System.arraycopy(buf, 0, grown, 0, count);
+        buf = grown;
+    }
+
+    // ======= STATISTICS =======
+
+    public long getValidFrames() {
+        return validFrames;
+    }
+
+    public long getChecksumErrors() {
+        return checksumErrors;
+    }
+
+    public long getDiscardedBytes() {
+        return discardedBytes;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Fraction of received bytes that are printable ASCII or line control
+     */
+    public double getPrintableRatio() {
+        return totalBytes == 0 ? 0.0 : (double) printableBytes / totalBytes;
+    }
+
+    /**
+     * Number of bytes buffered while waiting for the rest of a frame
+     */
+    public int getPendingBytes() {
+        return count;
+    }
+
+    /**
+     * Drop buffered bytes and clear all statistics
+     */
+    public void reset() {
+        count = 0;
+        validFrames = 0;
+        checksumErrors = 0;
+        discardedBytes = 0;
+        printableBytes = 0;
+        totalBytes = 0;
+    }
+}
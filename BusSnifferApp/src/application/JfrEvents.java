@@ -0,0 +1,130 @@
+package application;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder events for serial I/O and frame decoding
+ * Each type can be enabled, disabled or given a threshold in the recording
+ * settings by its name (e.g. seatcontroller.SerialRead#enabled=false).
+ * Events that are not enabled cost almost nothing: callers check
+ * shouldCommit() before filling in any fields.
+ */
+public final class JfrEvents {
+
+    private static final String CATEGORY = "Seat Controller";
+
+    private JfrEvents() {}
+
+    @Name("seatcontroller.SerialRead")
+    @Label("Serial Read")
+    @Category({CATEGORY, "Serial"})
+    @Description("One read from the serial port")
+    @StackTrace(false)
+    public static class SerialRead extends Event {
+        @Label("Port")
+        public String port;
+
+        @Label("Bytes")
+        @DataAmount
+        public int bytes;
+
+        @Label("Bytes Available")
+        @DataAmount
+        public int available;
+    }
+
+    @Name("seatcontroller.SerialWrite")
+    @Label("Serial Write")
+    @Category({CATEGORY, "Serial"})
+    @Description("One write to the serial port, including time spent in the send queue")
+    @StackTrace(false)
+    public static class SerialWrite extends Event {
+        @Label("Port")
+        public String port;
+
+        @Label("Bytes")
+        @DataAmount
+        public int bytes;
+
+        @Label("Bytes Written")
+        @DataAmount
+        public int written;
+
+        @Label("Queue Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        public long queueWait;
+
+        @Label("Queue Depth")
+        public int queueDepth;
+    }
+
+    @Name("seatcontroller.FrameDecode")
+    @Label("Frame Decode")
+    @Category({CATEGORY, "Protocol"})
+    @Description("Decoding of one received UART frame")
+    @StackTrace(false)
+    public static class FrameDecode extends Event {
+        @Label("Command ID")
+        public int cmdId;
+
+        @Label("Payload Length")
+        @DataAmount
+        public int payloadLength;
+
+        @Label("Status")
+        @Description("OK, BAD_CHECKSUM or ERROR")
+        public String status;
+    }
+
+    @Name("seatcontroller.SendQueueOverflow")
+    @Label("Send Queue Overflow")
+    @Category({CATEGORY, "Serial"})
+    @Description("Queued outbound frames were discarded")
+    @StackTrace(false)
+    public static class SendQueueOverflow extends Event {
+        @Label("Port")
+        public String port;
+
+        @Label("Frames Dropped")
+        public int dropped;
+
+        @Label("Reason")
+        public String reason;
+    }
+
+    @Name("seatcontroller.LinkLost")
+    @Label("Link Lost")
+    @Category({CATEGORY, "Connection"})
+    @StackTrace(false)
+    public static class LinkLost extends Event {
+        @Label("Port")
+        public String port;
+
+        @Label("Reason")
+        public String reason;
+    }
+
+    @Name("seatcontroller.Reconnect")
+    @Label("Reconnect Attempt")
+    @Category({CATEGORY, "Connection"})
+    @Description("One attempt to reopen a lost serial link")
+    @StackTrace(false)
+    public static class Reconnect extends Event {
+        @Label("Port")
+        public String port;
+
+        @Label("Success")
+        public boolean success;
+
+        @Label("Link Down")
+        @Timespan(Timespan.MILLISECONDS)
+        public long downMillis;
+    }
+}
@@ -0,0 +1,131 @@
+package application;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram for latency and jitter values in nanoseconds
+ * Each power-of-two range is split into 16 linear sub-buckets (~6% resolution),
+ * so recording is a few shifts and one atomic increment
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxValue = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Record a single value (negative values are clamped to zero)
+     */
+    public void record(long valueNanos) {
+        long v = Math.max(0, valueNanos);
+        counts.incrementAndGet(indexOf(v));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(v);
+
+        long min;
+        while (v < (min = minValue.get()) && !minValue.compareAndSet(min, v)) { }
+        long max;
+        while (v > (max = maxValue.get()) && !maxValue.compareAndSet(max, v)) { }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMin() {
+        return getCount() == 0 ? 0 : minValue.get();
+    }
+
+    public long getMax() {
+        return getCount() == 0 ? 0 : maxValue.get();
+    }
+
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0.0 : (double) totalSum.get() / n;
+    }
+
+    /**
+     * Get the value at the given percentile (0..100), accurate to the bucket width
+     */
+    public long getPercentile(double percentile) {
+        long n = getCount();
+        if (n == 0) return 0;
+
+        long target = (long) Math.ceil(n * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        if (target < 1) target = 1;
+
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(Math.max(upperBoundOf(i), getMin()), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Merge another histogram's counts into this one
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalSum.addAndGet(other.totalSum.get());
+        if (other.getCount() > 0) {
+            long min;
+            long otherMin = other.minValue.get();
+            while (otherMin < (min = minValue.get()) && !minValue.compareAndSet(min, otherMin)) { }
+            long max;
+            long otherMax = other.maxValue.get();
+            while (otherMax > (max = maxValue.get()) && !maxValue.compareAndSet(max, otherMax)) { }
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        minValue.set(Long.MAX_VALUE);
+        maxValue.set(Long.MIN_VALUE);
+    }
+
+    /**
+     * One-line summary in milliseconds, e.g. for console reports
+     */
+    public String toSummaryString() {
+        if (getCount() == 0) return "n=0";
+        return String.format("n=%d min=%.3f p50=%.3f p99=%.3f p99.9=%.3f max=%.3f ms",
+            getCount(), getMin() / 1e6, getPercentile(50) / 1e6, getPercentile(99) / 1e6,
+            getPercentile(99.9) / 1e6, getMax() / 1e6);
+    }
+
+    private static int indexOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int shift = msb - SUB_BUCKET_BITS;
+        int sub = (int) ((v >>> shift) & (SUB_BUCKETS - 1));
+        return (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int msb = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        int shift = msb - SUB_BUCKET_BITS;
+        long lower = ((long) (SUB_BUCKETS + sub)) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,234 @@
+package application;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Localhost-only HTTP endpoint exposing the sniffer's counters in Prometheus text format
+ * GET /metrics reads the lock-free counters and histograms of the current
+ * manager; the receive path is never paused. Latency histograms are exported
+ * as summaries (quantiles in seconds).
+ */
+public class MetricsServer {
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private final Supplier<SeatControllerSnifferManager> snifferSupplier;
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile long scrapes;
+
+    /**
+     * @param snifferSupplier current manager, or null while disconnected
+     */
+    public MetricsServer(Supplier<SeatControllerSnifferManager> snifferSupplier) {
+        this.snifferSupplier = snifferSupplier;
+    }
+
+    /**
+     * Bind to 127.0.0.1:port and start serving
+     * @return false if the port could not be bound
+     */
+    public synchronized boolean start(int port) {
+        if (server != null) return true;
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            System.err.println("Cannot start metrics endpoint on port " + port + ": " + e.getMessage());
+            return false;
+        }
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r);
+            t.setName("MetricsHttp");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handleMetrics);
+        server.start();
+        return true;
+    }
+
+    public synchronized void stop() {
+        if (server == null) return;
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * Bound port, or -1 if not running
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    public long getScrapes() {
+        return scrapes;
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            scrapes++;
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // ======= EXPOSITION =======
+
+    /**
+     * Current metrics in Prometheus text exposition format
+     */
+    public String render() {
+        StringBuilder sb = new StringBuilder(16 * 1024);
+        SeatControllerSnifferManager sniffer = snifferSupplier.get();
+
+        header(sb, "seat_sniffer_up", "gauge", "1 if the serial link is connected");
+        sample(sb, "seat_sniffer_up", null, sniffer != null && sniffer.isConnected() ? 1 : 0);
+        if (sniffer == null) return sb.toString();
+
+        header(sb, "seat_sniffer_reconnecting", "gauge", "1 while the link is being re-established");
+        sample(sb, "seat_sniffer_reconnecting", null, sniffer.isReconnecting() ? 1 : 0);
+
+        TraceListener.CommStatistics stats = sniffer.getStatistics();
+        counter(sb, "seat_sniffer_serial_reads_total", "Serial read events", stats.messagesReceived);
+        counter(sb, "seat_sniffer_serial_writes_total", "Serial writes (a batch of frames counts once)", stats.messagesSent);
+        counter(sb, "seat_sniffer_serial_rx_bytes_total", "Bytes read from the port", stats.bytesReceived);
+        counter(sb, "seat_sniffer_serial_tx_bytes_total", "Bytes written to the port", stats.bytesSent);
+        counter(sb, "seat_sniffer_serial_errors_total", "Read/write errors", stats.errors);
+
+        ReadSizer sizer = sniffer.getReadSizer();
+        header(sb, "seat_sniffer_reads_total", "counter", "Serial reads by receive mode");
+        sample(sb, "seat_sniffer_reads_total", "mode=\"per_event\"", sizer.getStats(false).getReads());
+        sample(sb, "seat_sniffer_reads_total", "mode=\"batched\"", sizer.getStats(true).getReads());
+        header(sb, "seat_sniffer_read_bytes_total", "counter", "Bytes read by receive mode");
+        sample(sb, "seat_sniffer_read_bytes_total", "mode=\"per_event\"", sizer.getStats(false).getBytes());
+        sample(sb, "seat_sniffer_read_bytes_total", "mode=\"batched\"", sizer.getStats(true).getBytes());
+        summary(sb, "seat_sniffer_read_holdback_seconds", "First byte seen to delivery of batched reads",
+            sizer.getStats(true).getHoldBack());
+
+        header(sb, "seat_sniffer_send_queue_depth", "gauge", "Frames waiting in the send queue");
+        sample(sb, "seat_sniffer_send_queue_depth", null, sniffer.getSendQueueDepth());
+        header(sb, "seat_sniffer_requests_in_flight", "gauge", "Requests waiting for a response");
+        sample(sb, "seat_sniffer_requests_in_flight", null, sniffer.getRequestsInFlight());
+
+        TrafficCounters counters = sniffer.getTrafficCounters();
+        TrafficCounters.Snapshot s = counters.snapshot();
+        header(sb, "seat_sniffer_frames_total", "counter", "Decoded frames by direction and command ID");
+        perCommand(sb, "seat_sniffer_frames_total", s.rxFrames, s.txFrames);
+        header(sb, "seat_sniffer_frame_bytes_total", "counter", "Frame bytes by direction and command ID");
+        perCommand(sb, "seat_sniffer_frame_bytes_total", s.rxBytes, s.txBytes);
+        counter(sb, "seat_sniffer_decode_errors_total", "Frames that could not be decoded", s.decodeErrors);
+        summary(sb, "seat_sniffer_response_latency_seconds", "Request to response latency",
+            counters.getResponseLatency());
+
+        AliveSupervisor alive = sniffer.getAliveSupervisor();
+        counter(sb, "seat_sniffer_alive_received_total", "ALIVE frames received", alive.getReceived());
+        counter(sb, "seat_sniffer_alive_missing_total", "ALIVE counter values never received", alive.getMissing());
+        counter(sb, "seat_sniffer_alive_duplicates_total", "Duplicate ALIVE frames", alive.getDuplicates());
+        counter(sb, "seat_sniffer_alive_late_total", "ALIVE frames received out of order", alive.getLate());
+        counter(sb, "seat_sniffer_alive_resyncs_total", "ALIVE counter restarts", alive.getResyncs());
+        counter(sb, "seat_sniffer_alive_stalls_total", "ALIVE link-stall alarms", alive.getStalls());
+        header(sb, "seat_sniffer_alive_stalled", "gauge", "1 while no ALIVE arrives within the stall timeout");
+        sample(sb, "seat_sniffer_alive_stalled", null, alive.isStalled() ? 1 : 0);
+        summary(sb, "seat_sniffer_alive_jitter_seconds", "ALIVE period deviation from 5 ms", alive.getJitter());
+        summary(sb, "seat_sniffer_alive_interval_seconds", "Time between ALIVE frames", alive.getInterArrival());
+
+        EcuClock clock = sniffer.getEcuClock();
+        if (clock.isAligned()) {
+            header(sb, "seat_sniffer_ecu_clock_drift_ppm", "gauge", "ECU clock drift against the host");
+            sample(sb, "seat_sniffer_ecu_clock_drift_ppm", null, clock.getDriftPpm());
+            summary(sb, "seat_sniffer_ecu_clock_residual_seconds", "ALIVE arrival minus fitted ECU time",
+                clock.getResiduals());
+        }
+
+        PipelineTracer tracer = sniffer.getPipelineTracer();
+        if (tracer.getEndToEnd().getCount() > 0) {
+            summary(sb, "seat_sniffer_pipeline_latency_seconds", "Read to trace recorded (sampled)",
+                tracer.getEndToEnd());
+        }
+
+        CyclicScheduler cyclic = sniffer.getCyclicScheduler();
+        if (cyclic != null) {
+            header(sb, "seat_sniffer_cyclic_missed_total", "counter", "Cyclic TX periods that were skipped");
+            for (CyclicScheduler.Task task : cyclic.getTasks()) {
+                sample(sb, "seat_sniffer_cyclic_missed_total", "task=\"" + task.getName() + "\"", task.getMissed());
+            }
+            summary(sb, "seat_sniffer_cyclic_jitter_seconds", "Cyclic TX release delay", cyclic.getJitter());
+        }
+        return sb.toString();
+    }
+
+    private static void perCommand(StringBuilder sb, String name, long[] rx, long[] tx) {
+        for (int id = 0; id < 256; id++) {
+            if (rx[id] != 0) sample(sb, name, commandLabels("rx", id), rx[id]);
+            if (tx[id] != 0) sample(sb, name, commandLabels("tx", id), tx[id]);
+        }
+    }
+
+    private static String commandLabels(String direction, int id) {
+        return String.format("direction=\"%s\",cmd=\"0x%02X\",name=\"%s\"",
+            direction, id, SeatControllerSnifferManager.commandName(id));
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, long value) {
+        header(sb, name, "counter", help);
+        sample(sb, name, null, value);
+    }
+
+    private static void summary(StringBuilder sb, String name, String help, LatencyHistogram h) {
+        header(sb, name, "summary", help);
+        long n = h.getCount();
+        for (double q : QUANTILES) {
+            sample(sb, name, "quantile=\"" + q + "\"", n == 0 ? Double.NaN : h.getPercentile(q * 100) / 1e9);
+        }
+        sample(sb, name + "_sum", null, h.getMean() * n / 1e9);
+        sample(sb, name + "_count", null, n);
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, long value) {
+        sb.append(name);
+        if (labels != null) sb.append('{').append(labels).append('}');
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name);
+        if (labels != null) sb.append('{').append(labels).append('}');
+        sb.append(' ');
+        if (Double.isNaN(value)) sb.append("NaN");
+        else sb.append(String.format(Locale.ROOT, "%.9g", value));
+        sb.append('\n');
+    }
+}
@@ -0,0 +1,105 @@
+package application;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer
+ * Producers never block: when the ring is full the item is dropped and counted,
+ * so hot paths such as the serial reader thread keep a constant cost
+ *
+ * A consumer thread may register itself to be unparked whenever an offer finds
+ * the ring empty, so it can park for long idle periods without adding latency.
+ */
+public class MpscRing<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long head = 0; // Only written by the consumer
+    private volatile Thread consumer;
+
+    /**
+     * @param capacity requested capacity, rounded up to a power of two
+     */
+    public MpscRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Publish an item (any thread)
+     * @return false if the ring was full and the item was dropped
+     */
+    public boolean offer(T item) {
+        if (item == null) throw new NullPointerException();
+        long t;
+        do {
+            t = tail.get();
+            if (t - head > mask) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        Thread c = consumer;
+        if (c == null) {
+            slots.lazySet((int) t & mask, item);
+            return true;
+        }
+        // Volatile store: the consumer either sees the item or we see it caught up
+        slots.set((int) t & mask, item);
+        if (t == head) LockSupport.unpark(c);
+        return true;
+    }
+
+    /**
+     * Thread to unpark on the empty to non-empty transition (null = none)
+     */
+    public void setConsumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Take the next item (consumer thread only)
+     * @return the item, or null if nothing is published yet
+     */
+    public T poll() {
+        long h = head;
+        int index = (int) h & mask;
+        T item = slots.get(index);
+        if (item == null) return null;
+        slots.lazySet(index, null);
+        head = h + 1;
+        return item;
+    }
+
+    /**
+     * Drain up to max items into the consumer (consumer thread only)
+     * @return number of items drained
+     */
+    public int drain(Consumer<T> consumer, int max) {
+        int n = 0;
+        T item;
+        while (n < max && (item = poll()) != null) {
+            consumer.accept(item);
+            n++;
+        }
+        return n;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,381 @@
+package application;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Captures several serial ports at once and merges them into one timeline
+ * Every port gets its own SeatControllerSnifferManager (own reader thread and
+ * decoder). Decoded frames and debug text lines are tagged with the source
+ * name and pushed into per-source streams, each of which is already in time
+ * order. A merger thread does a k-way merge of the stream heads on their
+ * System.nanoTime() stamps and hands the events to the listeners in global
+ * time order.
+ *
+ * An event is released once no stream can still produce anything older: a
+ * stream with a pending event bounds the merge by its head, an empty stream by
+ * its newest stamp or "now - holdback", whichever is later. The holdback only
+ * has to cover the delay between a serial read and the event reaching its
+ * stream, so a few milliseconds of latency buy a strictly ordered output.
+ */
+public class MultiPortCapture {
+
+    private static final int STREAM_CAPACITY = 16384;
+    private static final long IDLE_PARK_NS = 100_000_000L; // 100 ms; offers unpark the merger
+
+    public enum Kind { RX, TX, TEXT }
+
+    /**
+     * One frame or text line of one source
+     */
+    public static final class Event {
+        public final String source;
+        public final Kind kind;
+        public final long nanos;
+        public final int cmdId;      // -1 for TEXT
+        public final byte[] payload; // null for TEXT
+        public final String text;    // null for frames
+        public final double ecuMillis; // aligned ECU time of RX frames, else NaN
+
+        Event(String source, Kind kind, long nanos, int cmdId, byte[] payload, String text) {
+            this(source, kind, nanos, cmdId, payload, text, Double.NaN);
+        }
+
+        Event(String source, Kind kind, long nanos, int cmdId, byte[] payload, String text, double ecuMillis) {
+            this.source = source;
+            this.kind = kind;
+            this.nanos = nanos;
+            this.cmdId = cmdId;
+            this.payload = payload;
+            this.text = text;
+            this.ecuMillis = ecuMillis;
+        }
+    }
+
+    /**
+     * Receives the merged stream (called on the merger thread, in time order)
+     */
+    public interface Listener {
+        void onEvent(Event event);
+    }
+
+    /**
+     * Time-ordered events of one source and kind
+     * Producers: the source's reader thread (RX), sender (TX) or dispatcher (TEXT).
+     */
+    private static final class Stream {
+        final MpscRing<Event> ring = new MpscRing<>(STREAM_CAPACITY);
+        final ArrayDeque<Event> pending = new ArrayDeque<>(); // merger thread only
+        long newestNanos = Long.MIN_VALUE;                    // merger thread only
+        volatile long emitted;
+
+        // Stamps of one producer never go backwards; tolerate a second producer
+        void drain() {
+            Event e;
+            while ((e = ring.poll()) != null) {
+                if (!pending.isEmpty() && e.nanos < pending.peekLast().nanos) {
+                    insertSorted(e);
+                } else {
+                    pending.addLast(e);
+                }
+                if (e.nanos > newestNanos) newestNanos = e.nanos;
+            }
+        }
+
+        private void insertSorted(Event e) {
+            ArrayDeque<Event> tail = new ArrayDeque<>();
+            while (!pending.isEmpty() && pending.peekLast().nanos > e.nanos) {
+                tail.addFirst(pending.pollLast());
+            }
+            pending.addLast(e);
+            pending.addAll(tail);
+        }
+    }
+
+    /**
+     * One captured port
+     */
+    public final class Source implements SeatControllerSnifferManager.FrameObserver, TraceListener {
+        private final String name;
+        private final String portName;
+        private final int baud;
+        private final SeatControllerSnifferManager manager;
+        private final Stream rx = new Stream();
+        private final Stream tx = new Stream();
+        private final Stream text = new Stream();
+
+        Source(String name, String portName, int baud) {
+            this.name = name;
+            this.portName = portName;
+            this.baud = baud;
+            this.manager = new SeatControllerSnifferManager(this);
+            manager.addFrameObserver(this);
+        }
+
+        public String getName() { return name; }
+        public String getPortName() { return portName; }
+        public int getBaud() { return baud; }
+        public SeatControllerSnifferManager getManager() { return manager; }
+        public long getEmitted() { return rx.emitted + tx.emitted + text.emitted; }
+
+        /**
+         * Events dropped because the merger fell behind
+         */
+        public long getDropped() {
+            return rx.ring.getDroppedCount() + tx.ring.getDroppedCount() + text.ring.getDroppedCount();
+        }
+
+        @Override
+        public void onFrameReceived(int cmdId, byte[] payload, long rxNanos) {
+            onFrameReceived(cmdId, payload, rxNanos, Double.NaN);
+        }
+
+        @Override
+        public void onFrameReceived(int cmdId, byte[] payload, long rxNanos, double ecuMillis) {
+            rx.ring.offer(new Event(name, Kind.RX, rxNanos, cmdId, payload, null, ecuMillis));
+        }
+
+        @Override
+        public void onFrameSent(int cmdId, byte[] payload, long txNanos) {
+            tx.ring.offer(new Event(name, Kind.TX, txNanos, cmdId, payload, null));
+        }
+
+        // Device text output (debug UART, Arduino prints); frame traces come via the observer
+        @Override
+        public void onTrace(String message, long nanoTime) {
+            String line;
+            if (message.startsWith("DEBUG: ")) line = message.substring(7);
+            else if (message.startsWith("PARTIAL: ")) line = message.substring(9);
+            else return;
+            text.ring.offer(new Event(name, Kind.TEXT, nanoTime, -1, null, line));
+        }
+
+        @Override
+        public void onTrace(String message) {
+            onTrace(message, System.nanoTime());
+        }
+
+        @Override
+        public void onFrame(byte[] data, int len) {
+        }
+    }
+
+    private final List<Source> sources = new CopyOnWriteArrayList<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile long holdbackNanos = 20_000_000L;
+    private volatile boolean running;
+    private Thread mergerThread;
+
+    // Merger-thread statistics
+    private volatile long merged;
+    private volatile long maxHeldNanos;
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Longest expected delay between a serial read and its event being queued
+     */
+    public void setHoldbackMs(long holdbackMs) {
+        this.holdbackNanos = Math.max(1, holdbackMs) * 1_000_000L;
+    }
+
+    public long getHoldbackMs() {
+        return holdbackNanos / 1_000_000L;
+    }
+
+    /**
+     * Open a port and add it to the merged capture
+     * @param name tag shown on every event of this port
+     * @return null if the port could not be opened
+     */
+    public Source addSource(String name, String portName, int baud) {
+        for (Source s : sources) {
+            if (s.portName.equalsIgnoreCase(portName)) {
+                System.err.println("Port already captured: " + portName);
+                return null;
+            }
+        }
+        Source source = new Source(name, portName, baud);
+        if (!source.manager.start(portName, baud)) {
+            source.manager.close();
+            return null;
+        }
+        sources.add(source);
+        wakeMerger();
+        return source;
+    }
+
+    /**
+     * Add a source without opening a port; events are fed through its observer methods
+     */
+    Source addUnopenedSource(String name) {
+        Source source = new Source(name, name, 0);
+        sources.add(source);
+        wakeMerger();
+        return source;
+    }
+
+    public List<Source> getSources() {
+        return new ArrayList<>(sources);
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        mergerThread = new Thread(this::mergeLoop);
+        mergerThread.setName("CaptureMerger");
+        mergerThread.setDaemon(true);
+        mergerThread.start();
+    }
+
+    /**
+     * Close all ports, flush what is still buffered and stop the merger
+     */
+    public void stop() {
+        for (Source s : sources) s.manager.close();
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = mergerThread;
+            mergerThread = null;
+        }
+        if (t != null) {
+            LockSupport.unpark(t);
+            try {
+                t.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sources.clear();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // ======= K-WAY MERGE =======
+
+    // A new source's streams get the merger as consumer on its next pass
+    private synchronized void wakeMerger() {
+        if (mergerThread != null) LockSupport.unpark(mergerThread);
+    }
+
+    private void mergeLoop() {
+        PriorityQueue<Stream> heads = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.pending.peekFirst().nanos, b.pending.peekFirst().nanos));
+        List<Stream> streams = new ArrayList<>();
+        List<Source> known = new ArrayList<>();
+
+        while (running) {
+            if (known.size() != sources.size()) {
+                known = new ArrayList<>(sources);
+                streams.clear();
+                for (Source s : known) {
+                    streams.add(s.rx);
+                    streams.add(s.tx);
+                    streams.add(s.text);
+                }
+                for (Stream s : streams) s.ring.setConsumer(Thread.currentThread());
+            }
+            long holdback = holdbackNanos;
+            if (mergeOnce(streams, heads, System.nanoTime() - holdback) == 0) {
+                // New events unpark us; held events are due once the holdback has passed
+                long wait = IDLE_PARK_NS;
+                for (Stream s : streams) {
+                    if (!s.pending.isEmpty()) {
+                        wait = Math.min(wait, s.pending.peekFirst().nanos + holdback - System.nanoTime());
+                    }
+                }
+                if (wait > 0) LockSupport.parkNanos(wait);
+            }
+        }
+        // Final flush: nothing more can arrive
+        mergeOnce(streams, heads, Long.MAX_VALUE);
+    }
+
+    /**
+     * Emit every event that no stream can precede any more
+     * @param horizon stamps up to here are final for streams that are empty
+     * @return number of events emitted
+     */
+    private int mergeOnce(List<Stream> streams, PriorityQueue<Stream> heads, long horizon) {
+        heads.clear();
+        for (Stream s : streams) {
+            s.drain();
+            if (!s.pending.isEmpty()) heads.add(s);
+        }
+
+        // Oldest stamp an empty stream could still deliver
+        long watermark = Long.MAX_VALUE;
+        for (Stream s : streams) {
+            if (s.pending.isEmpty()) watermark = Math.min(watermark, Math.max(s.newestNanos, horizon));
+        }
+
+        int count = 0;
+        while (!heads.isEmpty()) {
+            Stream s = heads.poll();
+            Event e = s.pending.peekFirst();
+            if (e.nanos > watermark) break;
+            s.pending.pollFirst();
+            s.emitted++;
+            emit(e);
+            count++;
+            if (s.pending.isEmpty()) {
+                watermark = Math.min(watermark, Math.max(s.newestNanos, horizon));
+            } else {
+                heads.add(s);
+            }
+        }
+        return count;
+    }
+
+    private void emit(Event e) {
+        long held = System.nanoTime() - e.nanos;
+        if (held > maxHeldNanos) maxHeldNanos = held;
+        merged++;
+        for (Listener l : listeners) {
+            try {
+                l.onEvent(e);
+            } catch (RuntimeException ex) {
+                System.err.println("Capture listener failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    // ======= STATISTICS =======
+
+    public long getMerged() {
+        return merged;
+    }
+
+    /**
+     * Longest time an event waited between its read and its release (ms)
+     */
+    public double getMaxHeldMillis() {
+        return maxHeldNanos / 1e6;
+    }
+
+    public String toSummaryString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("merged=%d holdback=%d ms max held=%.1f ms",
+            merged, getHoldbackMs(), getMaxHeldMillis()));
+        for (Source s : sources) {
+            TrafficCounters.Snapshot traffic = s.manager.getTrafficCounters().snapshot();
+            sb.append(String.format("%n  %-10s %s @ %d %s frames rx=%d tx=%d emitted=%d dropped=%d",
+                s.name, s.portName, s.baud, s.manager.isConnected() ? "up" : "down",
+                traffic.totalRxFrames(), traffic.totalTxFrames(), s.getEmitted(), s.getDropped()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,124 @@
+package application;
+
+/**
+ * Optional per-stage latency tracing of the receive pipeline
+ * A sampled frame carries a Span that is stamped at every stage, from the
+ * serial read to the trace line being rendered or recorded. Each stage gets a
+ * histogram of the time since the previous stage. When disabled, begin()
+ * returns null after one volatile read and the other stages are skipped.
+ * When enabled, only every n-th frame is traced.
+ */
+public class PipelineTracer {
+
+    /**
+     * Receive pipeline stages, in order
+     */
+    public enum Stage {
+        READ,         // serial read event fired
+        REASSEMBLED,  // complete frame delimited in the read buffer
+        DECODED,      // header, payload and tail parsed; observers notified
+        ENQUEUED,     // trace handed to the dispatcher (EDT queue)
+        DEQUEUED,     // dispatcher picked it up
+        RECORDED      // listener rendered / recorded it
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    /**
+     * Stage timestamps of one sampled frame
+     */
+    public static final class Span {
+        private final long[] nanos = new long[STAGES.length];
+
+        public void mark(Stage stage) {
+            nanos[stage.ordinal()] = System.nanoTime();
+        }
+    }
+
+    private final LatencyHistogram[] stageLatency = new LatencyHistogram[STAGES.length];
+    private final LatencyHistogram endToEnd = new LatencyHistogram();
+
+    private volatile boolean enabled = false;
+    private volatile int sampleEvery = 64;
+    private int frameCount; // reader thread only
+
+    public PipelineTracer() {
+        for (int i = 0; i < STAGES.length; i++) stageLatency[i] = new LatencyHistogram();
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Trace one frame in every n (1 = every frame)
+     */
+    public void setSampleEvery(int n) {
+        this.sampleEvery = Math.max(1, n);
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    /**
+     * Start a span for a frame read at readNanos, or null if not sampled
+     * Called from the serial reader thread only.
+     */
+    public Span begin(long readNanos) {
+        if (!enabled) return null;
+        if (++frameCount < sampleEvery) return null;
+        frameCount = 0;
+        Span span = new Span();
+        span.nanos[Stage.READ.ordinal()] = readNanos;
+        return span;
+    }
+
+    /**
+     * Stamp the final stage and record the span
+     */
+    public void complete(Span span) {
+        span.mark(Stage.RECORDED);
+        long[] t = span.nanos;
+        for (int i = 1; i < t.length; i++) {
+            if (t[i] != 0 && t[i - 1] != 0) stageLatency[i].record(t[i] - t[i - 1]);
+        }
+        endToEnd.record(t[t.length - 1] - t[0]);
+    }
+
+    /**
+     * Time from the previous stage to the given stage in nanoseconds
+     */
+    public LatencyHistogram getStageLatency(Stage stage) {
+        return stageLatency[stage.ordinal()];
+    }
+
+    /**
+     * Time from the serial read to RECORDED in nanoseconds
+     */
+    public LatencyHistogram getEndToEnd() {
+        return endToEnd;
+    }
+
+    public void reset() {
+        for (LatencyHistogram h : stageLatency) h.reset();
+        endToEnd.reset();
+    }
+
+    /**
+     * Multi-line per-stage report in milliseconds
+     */
+    public String toReportString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Pipeline latency (%s, 1 in %d frames)%n", enabled ? "on" : "off", sampleEvery));
+        for (int i = 1; i < STAGES.length; i++) {
+            sb.append(String.format("  %-12s %s%n", STAGES[i], stageLatency[i].toSummaryString()));
+        }
+        sb.append(String.format("  %-12s %s", "END-TO-END", endToEnd.toSummaryString()));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package application;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * High-resolution wait helpers for ECU stimulation
+ * Parks the thread until shortly before the deadline, then spins the last stretch,
+ * which holds millisecond periods far tighter than Thread.sleep or java.util.Timer
+ */
+public final class PreciseTiming {
+
+    /** Remaining time below which we stop parking and start spinning */
+    public static final long DEFAULT_SPIN_THRESHOLD_NS = 200_000; // 200 us
+
+    private static volatile long spinThresholdNanos = DEFAULT_SPIN_THRESHOLD_NS;
+
+    // Wall-clock time of a System.nanoTime() reading: {wall ms, nanoTime}
+    private static volatile long[] wallAnchor = { System.currentTimeMillis(), System.nanoTime() };
+
+    private PreciseTiming() {}
+
+    /**
+     * Wait until System.nanoTime() reaches the absolute deadline
+     * @return false if the thread was interrupted while waiting
+     */
+    public static boolean sleepUntil(long deadlineNanos) {
+        long threshold = spinThresholdNanos;
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > threshold) {
+            LockSupport.parkNanos(remaining - threshold);
+            if (Thread.currentThread().isInterrupted()) return false;
+        }
+        while (deadlineNanos - System.nanoTime() > 0) {
+            if (Thread.currentThread().isInterrupted()) return false;
+            Thread.yield();
+        }
+        return true;
+    }
+
+    /**
+     * Wait for a relative duration
+     */
+    public static boolean sleepNanos(long durationNanos) {
+        return sleepUntil(System.nanoTime() + durationNanos);
+    }
+
+    /**
+     * Tune the park/spin boundary (0 = park only, never spin)
+     */
+    public static void setSpinThresholdNanos(long nanos) {
+        spinThresholdNanos = Math.max(0, nanos);
+    }
+
+    public static long getSpinThresholdNanos() {
+        return spinThresholdNanos;
+    }
+
+    /**
+     * Wall-clock time (epoch ms) of a System.nanoTime() value
+     * Event times are captured as nanoTime where they happen and converted for
+     * display later, so the shown time is the arrival time, not the render time.
+     */
+    public static long toWallMillis(long nanoTime) {
+        long[] anchor = wallAnchor;
+        return anchor[0] + Math.floorDiv(nanoTime - anchor[1], 1_000_000L);
+    }
+
+    /**
+     * Re-read the wall clock (e.g. on connect) to pick up clock adjustments
+     */
+    public static void reanchorWallClock() {
+        wallAnchor = new long[] { System.currentTimeMillis(), System.nanoTime() };
+    }
+
+    /**
+     * Parse a duration such as "5ms", "2s", "250us", "100ns" or plain "10" (ms)
+     * @return duration in nanoseconds
+     */
+    public static long parseDuration(String text) {
+        String t = text.trim().toLowerCase();
+        long multiplier;
+        String number;
+        if (t.endsWith("ns")) {
+            multiplier = 1L; number = t.substring(0, t.length() - 2);
+        } else if (t.endsWith("us")) {
+            multiplier = 1_000L; number = t.substring(0, t.length() - 2);
+        } else if (t.endsWith("ms")) {
+            multiplier = 1_000_000L; number = t.substring(0, t.length() - 2);
+        } else if (t.endsWith("s")) {
+            multiplier = 1_000_000_000L; number = t.substring(0, t.length() - 1);
+        } else {
+            multiplier = 1_000_000L; number = t;
+        }
+        double value = Double.parseDouble(number.trim());
+        if (value < 0) throw new IllegalArgumentException("Negative duration: " + text);
+        return (long) (value * multiplier);
+    }
+}
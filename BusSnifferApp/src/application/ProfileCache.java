@@ -0,0 +1,157 @@
+package application;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Host-side cache of seat profiles read from the ECU
+ * Entries are filled from LOAD_PROFILE replies, dropped when the profile is saved
+ * (the ECU copy changes), and persisted to seat_profiles.properties so the
+ * Profiles tab has values immediately in the next session. Writes are coalesced
+ * on the shared TimerWheel. Each port has its own cache, so ECUs in one process
+ * (see SessionPool) do not overwrite each other's slots.
+ */
+public class ProfileCache {
+
+    private static final String DEFAULT_FILE = "seat_profiles.properties";
+    private static final long PERSIST_DELAY_MS = 200;
+
+    private static ProfileCache shared;
+    private static final Map<String, ProfileCache> byPort = new HashMap<>();
+
+    /**
+     * Cached profile and when it was read from the ECU
+     */
+    public static class Entry {
+        public final SeatControllerSnifferManager.Profile profile;
+        public final long loadedAt;
+
+        Entry(SeatControllerSnifferManager.Profile profile, long loadedAt) {
+            this.profile = profile;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final File file;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private TimerWheel.Timeout pendingPersist;
+
+    public ProfileCache(File file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Process-wide cache backed by seat_profiles.properties
+     */
+    public static synchronized ProfileCache shared() {
+        if (shared == null) shared = new ProfileCache(new File(DEFAULT_FILE));
+        return shared;
+    }
+
+    /**
+     * Cache of the ECU on one port, backed by seat_profiles-<port>.properties
+     * @param portName null for the process-wide cache
+     */
+    public static synchronized ProfileCache forPort(String portName) {
+        if (portName == null) return shared();
+        String key = portName.replaceAll("[^A-Za-z0-9_.-]", "_"); // /dev/ttyUSB0 -> _dev_ttyUSB0
+        ProfileCache cache = byPort.get(key);
+        if (cache == null) {
+            cache = new ProfileCache(new File("seat_profiles-" + key + ".properties"));
+            byPort.put(key, cache);
+        }
+        return cache;
+    }
+
+    public Entry get(int id) {
+        return entries.get(id);
+    }
+
+    /**
+     * All cached entries ordered by profile id
+     */
+    public Map<Integer, Entry> getAll() {
+        return new TreeMap<>(entries);
+    }
+
+    public void put(SeatControllerSnifferManager.Profile profile) {
+        entries.put(profile.id, new Entry(profile, System.currentTimeMillis()));
+        schedulePersist();
+    }
+
+    public void invalidate(int id) {
+        if (entries.remove(id) != null) schedulePersist();
+    }
+
+    public void clear() {
+        entries.clear();
+        schedulePersist();
+    }
+
+    // ======= PERSISTENCE =======
+
+    private synchronized void schedulePersist() {
+        if (pendingPersist != null && !pendingPersist.isDone()) return;
+        pendingPersist = TimerWheel.shared().schedule(this::persist, PERSIST_DELAY_MS);
+    }
+
+    /**
+     * Write a pending change now (e.g. before exit)
+     */
+    public synchronized void flush() {
+        if (pendingPersist != null && pendingPersist.cancel()) persist();
+    }
+
+    /**
+     * Write the cache to disk now
+     */
+    public synchronized void persist() {
+        Properties p = new Properties();
+        for (Entry e : entries.values()) {
+            String prefix = "profile." + e.profile.id + ".";
+            p.setProperty(prefix + "heightCm", String.valueOf(e.profile.heightCm));
+            p.setProperty(prefix + "slideCm", String.valueOf(e.profile.slideCm));
+            p.setProperty(prefix + "inclineDeg", String.valueOf(e.profile.inclineDeg));
+            p.setProperty(prefix + "loadedAt", String.valueOf(e.loadedAt));
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            p.store(out, "Seat Controller profile cache");
+        } catch (Exception e) {
+            System.err.println("Cannot write profile cache: " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) return;
+        Properties p = new Properties();
+        try (FileInputStream in = new FileInputStream(file)) {
+            p.load(in);
+        } catch (Exception e) {
+            System.err.println("Cannot read profile cache: " + e.getMessage());
+            return;
+        }
+
+        for (String key : p.stringPropertyNames()) {
+            if (!key.startsWith("profile.") || !key.endsWith(".heightCm")) continue;
+            String prefix = key.substring(0, key.length() - "heightCm".length());
+            try {
+                int id = Integer.parseInt(prefix.substring("profile.".length(), prefix.length() - 1));
+                SeatControllerSnifferManager.Profile profile = new SeatControllerSnifferManager.Profile(id,
+                    Double.parseDouble(p.getProperty(prefix + "heightCm")),
+                    Double.parseDouble(p.getProperty(prefix + "slideCm")),
+                    Double.parseDouble(p.getProperty(prefix + "inclineDeg")));
+                long loadedAt = Long.parseLong(p.getProperty(prefix + "loadedAt", "0"));
+                entries.put(id, new Entry(profile, loadedAt));
+            } catch (Exception ignore) {
+                // skip malformed entries
+            }
+        }
+    }
+}
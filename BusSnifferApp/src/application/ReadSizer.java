@@ -0,0 +1,242 @@
+package application;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+
+/**
+ * Decides how much to read per serial read event
+ * LOW_LATENCY delivers whatever has arrived as soon as the port signals data.
+ * THROUGHPUT waits until at least minChunk bytes are buffered or the line has
+ * been idle for the inter-byte timeout, so fewer, larger reads carry the same
+ * traffic (like termios VMIN/VTIME). ADAPTIVE switches between the two from
+ * the measured arrival rate: it batches above 25% of the line capacity and
+ * goes back to per-event reads below 15%. Only the blocking reader and polled
+ * ports can wait for a chunk (see SerialComm.supportsBatchedReads()).
+ *
+ * Per effective mode it counts reads and bytes and records the hold-back
+ * delay (first byte seen to delivery), so the tradeoff can be checked.
+ * Used by one reading thread at a time; statistics may be read from any thread.
+ */
+public class ReadSizer {
+
+    public enum Mode {
+        LOW_LATENCY,
+        THROUGHPUT,
+        ADAPTIVE
+    }
+
+    private static final double ENTER_THROUGHPUT = 0.25; // share of line capacity
+    private static final double LEAVE_THROUGHPUT = 0.15;
+    private static final double EWMA_WEIGHT = 0.1;
+    private static final long MAX_POLL_NS = 100_000L;    // 100 us
+
+    /**
+     * Reads done in one effective mode
+     */
+    public static final class Stats {
+        private volatile long reads;
+        private volatile long bytes;
+        private final LatencyHistogram holdBack = new LatencyHistogram();
+
+        public long getReads() { return reads; }
+        public long getBytes() { return bytes; }
+
+        public double getBytesPerRead() {
+            return reads > 0 ? (double) bytes / reads : 0;
+        }
+
+        /**
+         * Time from the first byte being seen to its delivery in nanoseconds
+         */
+        public LatencyHistogram getHoldBack() {
+            return holdBack;
+        }
+
+        void reset() {
+            reads = bytes = 0;
+            holdBack.reset();
+        }
+    }
+
+    private volatile Mode mode = Mode.LOW_LATENCY;
+    private volatile int minChunk = 64;
+    private volatile long interByteTimeoutNanos = 500_000L;
+    private volatile int baudRate = 115200;
+
+    private final Stats lowLatencyStats = new Stats();
+    private final Stats throughputStats = new Stats();
+
+    // Adaptive state (reading thread only, except the volatile flag)
+    private volatile boolean batching;
+    private volatile long switches;
+    private double ewmaBytes;
+    private double ewmaIntervalNanos;
+    private long lastReadNanos;
+
+    // Deferred-read state for polled ports (driver thread only)
+    private int lastAvailable;
+    private long lastGrowthNanos;
+    private long firstSeenNanos;
+
+    public void setMode(Mode mode) {
+        this.mode = mode != null ? mode : Mode.LOW_LATENCY;
+        batching = false;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Throughput-mode read size and idle gap that ends a chunk early
+     */
+    public void setChunk(int minBytes, long interByteTimeoutMicros) {
+        this.minChunk = Math.max(1, minBytes);
+        this.interByteTimeoutNanos = Math.max(1, interByteTimeoutMicros) * 1000L;
+    }
+
+    public int getMinChunk() {
+        return minChunk;
+    }
+
+    public long getInterByteTimeoutMicros() {
+        return interByteTimeoutNanos / 1000L;
+    }
+
+    /**
+     * Line rate the adaptive thresholds are relative to
+     */
+    public void setBaudRate(int baudRate) {
+        if (baudRate > 0) this.baudRate = baudRate;
+    }
+
+    /**
+     * True if the next read should wait for a full chunk
+     */
+    public boolean isBatching() {
+        switch (mode) {
+            case THROUGHPUT: return true;
+            case ADAPTIVE: return batching;
+            default: return false;
+        }
+    }
+
+    /**
+     * Wait (on the calling reader thread) until a chunk is buffered or the line goes idle
+     * @param available bytes currently buffered (at least 1)
+     * @return bytes buffered now, or a negative value if the port failed
+     */
+    public int awaitChunk(IntSupplier bytesAvailable, int available) {
+        if (!isBatching()) return available;
+        int chunk = minChunk;
+        long gap = interByteTimeoutNanos;
+        long lastGrowth = System.nanoTime();
+        while (available < chunk) {
+            LockSupport.parkNanos(Math.min(MAX_POLL_NS, Math.max(1, gap / 4)));
+            int now = bytesAvailable.getAsInt();
+            if (now < 0) return now;
+            long t = System.nanoTime();
+            if (now > available) {
+                available = now;
+                lastGrowth = t;
+            } else if (t - lastGrowth >= gap) {
+                break;
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Non-blocking variant for polled ports: should this poll skip the read?
+     * @param available bytes currently buffered (at least 1)
+     */
+    public boolean deferRead(int available, long nowNanos) {
+        if (lastAvailable == 0) {
+            firstSeenNanos = nowNanos;
+            lastGrowthNanos = nowNanos;
+        } else if (available > lastAvailable) {
+            lastGrowthNanos = nowNanos;
+        }
+        if (isBatching() && available < minChunk && nowNanos - lastGrowthNanos < interByteTimeoutNanos) {
+            lastAvailable = available;
+            return true;
+        }
+        lastAvailable = 0;
+        return false;
+    }
+
+    /**
+     * When a polled port first saw the bytes that deferRead() last let through
+     */
+    public long getFirstSeenNanos() {
+        return firstSeenNanos;
+    }
+
+    /**
+     * Account one delivered read and update the arrival rate
+     * @param firstSeenNanos when its first byte was seen
+     */
+    public void recordRead(int bytes, long firstSeenNanos, long deliveredNanos, boolean batched) {
+        Stats s = batched ? throughputStats : lowLatencyStats;
+        s.reads++;
+        s.bytes += bytes;
+        s.holdBack.record(deliveredNanos - firstSeenNanos);
+
+        if (lastReadNanos != 0) {
+            long interval = firstSeenNanos - lastReadNanos;
+            ewmaBytes += EWMA_WEIGHT * (bytes - ewmaBytes);
+            ewmaIntervalNanos += EWMA_WEIGHT * (interval - ewmaIntervalNanos);
+        } else {
+            ewmaBytes = bytes;
+        }
+        lastReadNanos = firstSeenNanos;
+
+        if (mode == Mode.ADAPTIVE && ewmaIntervalNanos > 0) {
+            double load = getArrivalRate() / (baudRate / 10.0); // 8N1: 10 bits per byte
+            if (!batching && load >= ENTER_THROUGHPUT) {
+                batching = true;
+                switches++;
+            } else if (batching && load < LEAVE_THROUGHPUT) {
+                batching = false;
+                switches++;
+            }
+        }
+    }
+
+    /**
+     * Smoothed arrival rate in bytes per second
+     */
+    public double getArrivalRate() {
+        return ewmaIntervalNanos > 0 ? ewmaBytes * 1e9 / ewmaIntervalNanos : 0;
+    }
+
+    public long getSwitches() {
+        return switches;
+    }
+
+    public Stats getStats(boolean batched) {
+        return batched ? throughputStats : lowLatencyStats;
+    }
+
+    public void resetStats() {
+        lowLatencyStats.reset();
+        throughputStats.reset();
+        switches = 0;
+    }
+
+    public String toSummaryString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("mode=%s%s chunk=%d B gap=%d us rate=%.0f B/s switches=%d",
+            mode, mode == Mode.ADAPTIVE ? (batching ? " (batching)" : " (per-event)") : "",
+            minChunk, getInterByteTimeoutMicros(), getArrivalRate(), switches));
+        appendStats(sb, "per-event", lowLatencyStats);
+        appendStats(sb, "batched", throughputStats);
+        return sb.toString();
+    }
+
+    private static void appendStats(StringBuilder sb, String label, Stats s) {
+        if (s.reads == 0) return;
+        sb.append(String.format("%n  %-9s reads=%d bytes=%d B/read=%.1f hold %s",
+            label, s.reads, s.bytes, s.getBytesPerRead(), s.holdBack.toSummaryString()));
+    }
+}
@@ -0,0 +1,154 @@
+package application;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import communication.PortRegistry;
+import communication.PortUtil;
+
+/**
+ * Automatic reconnect after a lost serial link
+ * Retries with jittered exponential backoff and wakes up early when the port
+ * registry reports a newly attached port. The same port name is preferred; if
+ * the adapter re-enumerates under another name it is matched by VID/PID and
+ * serial number.
+ */
+public class ReconnectSupervisor implements PortUtil.PortChangeListener {
+
+    /**
+     * Identity of the adapter that was lost
+     */
+    public static class PortIdentity {
+        public final String portName;
+        public final int vendorId;
+        public final int productId;
+        public final String serialNumber;
+
+        public PortIdentity(String portName, int vendorId, int productId, String serialNumber) {
+            this.portName = portName;
+            this.vendorId = vendorId;
+            this.productId = productId;
+            this.serialNumber = serialNumber;
+        }
+
+        boolean matches(PortUtil.PortInfo info) {
+            if (vendorId == 0 && productId == 0) return false;
+            if (info.vendorId != vendorId || info.productId != productId) return false;
+            // Without a serial number any adapter of the same model would match
+            return serialNumber != null && !serialNumber.isEmpty() && serialNumber.equals(info.serialNumber);
+        }
+    }
+
+    /**
+     * Performs one reopen attempt on the given port name
+     */
+    public interface Reopener {
+        boolean reopen(String portName);
+    }
+
+    private final Reopener reopener;
+
+    private volatile long initialDelayMs = 250;
+    private volatile long maxDelayMs = 10_000;
+
+    private volatile PortIdentity target;
+    private volatile Thread worker;
+    private volatile int attempts;
+
+    public ReconnectSupervisor(Reopener reopener) {
+        this.reopener = reopener;
+    }
+
+    public void setBackoff(long initialDelayMs, long maxDelayMs) {
+        this.initialDelayMs = Math.max(10, initialDelayMs);
+        this.maxDelayMs = Math.max(this.initialDelayMs, maxDelayMs);
+    }
+
+    /**
+     * Start reconnecting to the given adapter (no-op if already running)
+     */
+    public synchronized void start(PortIdentity identity) {
+        if (worker != null) return;
+        target = identity;
+        attempts = 0;
+
+        PortRegistry.getInstance().addListener(this);
+        worker = new Thread(this::run);
+        worker.setName("SerialReconnect");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Give up reconnecting (e.g. the user disconnected)
+     */
+    public synchronized void stop() {
+        Thread t = worker;
+        worker = null;
+        PortRegistry.getInstance().removeListener(this);
+        if (t != null && t != Thread.currentThread()) {
+            t.interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return worker != null;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    private void run() {
+        long base = initialDelayMs;
+        while (worker == Thread.currentThread()) {
+            // Full jitter in [base/2, base] so several sniffers do not retry in lockstep
+            long delay = base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+            LockSupport.parkNanos(delay * 1_000_000L);
+            if (Thread.interrupted() || worker != Thread.currentThread()) break;
+
+            String portName = resolvePortName();
+            if (portName != null) {
+                attempts++;
+                if (reopener.reopen(portName)) {
+                    synchronized (this) {
+                        if (worker == Thread.currentThread()) {
+                            worker = null;
+                            PortRegistry.getInstance().removeListener(this);
+                        }
+                    }
+                    return;
+                }
+            }
+            base = Math.min(base * 2, maxDelayMs);
+        }
+    }
+
+    /**
+     * Find the port to reopen in the current registry snapshot
+     */
+    private String resolvePortName() {
+        PortIdentity id = target;
+        PortRegistry.Snapshot snapshot = PortRegistry.getInstance().getSnapshot();
+        if (snapshot.contains(id.portName)) return id.portName;
+        for (PortUtil.PortInfo info : snapshot.ports()) {
+            if (id.matches(info)) return info.systemPortName;
+        }
+        return null;
+    }
+
+    // ======= PORT REGISTRY EVENTS =======
+
+    @Override
+    public void onPortConnected(PortUtil.PortInfo portInfo) {
+        PortIdentity id = target;
+        Thread t = worker;
+        if (t != null && id != null && (portInfo.systemPortName.equals(id.portName) || id.matches(portInfo))) {
+            LockSupport.unpark(t); // retry now instead of waiting out the backoff
+        }
+    }
+
+    @Override
+    public void onPortDisconnected(String portName) {
+    }
+}
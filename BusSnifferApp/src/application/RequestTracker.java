@@ -0,0 +1,102 @@
+package application;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Matches responses to outstanding requests
+ * Requests are keyed (e.g. by command and profile id); several requests may be
+ * in flight per key and are completed oldest first. Each request gets a timeout
+ * on the shared TimerWheel.
+ *
+ * A timed-out request leaves a tombstone for another timeout period, so its
+ * late response is dropped instead of completing the next request with the
+ * same key. A reply later than that is taken for the next request's.
+ */
+public class RequestTracker {
+
+    private static final class Pending {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        volatile TimerWheel.Timeout timeout;
+    }
+
+    private final ConcurrentHashMap<Integer, Queue<Pending>> pending = new ConcurrentHashMap<>();
+    // Per key: one entry per timed-out request whose response may still arrive
+    private final ConcurrentHashMap<Integer, Queue<Object>> tombstones = new ConcurrentHashMap<>();
+    private final TimerWheel timers;
+
+    public RequestTracker() {
+        this(TimerWheel.shared());
+    }
+
+    public RequestTracker(TimerWheel timers) {
+        this.timers = timers;
+    }
+
+    /**
+     * Register a request before its frame is sent
+     * @param description used in the timeout message
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> register(int key, long timeoutMs, String description) {
+        Pending p = new Pending();
+        Queue<Pending> queue = pending.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>());
+        queue.add(p);
+        p.timeout = timers.schedule(() -> {
+            if (queue.remove(p)) {
+                bury(key, timeoutMs);
+                p.future.completeExceptionally(
+                    new TimeoutException(description + " timed out after " + timeoutMs + " ms"));
+            }
+        }, timeoutMs);
+        return (CompletableFuture<T>) (CompletableFuture<?>) p.future;
+    }
+
+    private void bury(int key, long lifetimeMs) {
+        Object tombstone = new Object();
+        Queue<Object> queue = tombstones.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>());
+        queue.add(tombstone);
+        timers.schedule(() -> queue.remove(tombstone), lifetimeMs);
+    }
+
+    /**
+     * Complete the oldest outstanding request for key
+     * @return false if nothing was waiting (unsolicited or late response)
+     */
+    public boolean complete(int key, Object value) {
+        Queue<Object> dead = tombstones.get(key);
+        if (dead != null && dead.poll() != null) return false; // response of a timed-out request
+        Queue<Pending> queue = pending.get(key);
+        if (queue == null) return false;
+        Pending p = queue.poll();
+        if (p == null) return false;
+        if (p.timeout != null) p.timeout.cancel();
+        return p.future.complete(value);
+    }
+
+    /**
+     * Fail every outstanding request (e.g. on disconnect)
+     */
+    public void failAll(Throwable cause) {
+        tombstones.clear();
+        for (Queue<Pending> queue : pending.values()) {
+            Pending p;
+            while ((p = queue.poll()) != null) {
+                if (p.timeout != null) p.timeout.cancel();
+                p.future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    /**
+     * Number of requests still waiting for a response
+     */
+    public int inFlight() {
+        int n = 0;
+        for (Queue<Pending> queue : pending.values()) n += queue.size();
+        return n;
+    }
+}
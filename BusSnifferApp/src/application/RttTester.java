@@ -0,0 +1,438 @@
+package application;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Round-trip latency test for serial links
+ * Sends sequence-numbered probe frames at a fixed rate and matches the echoed
+ * frames by sequence number. Per payload size it reports min / median / p99 /
+ * p99.9 / max RTT, loss, duplicates and replies that came after the timeout.
+ * The far end must return the probe frames unchanged: a TX-RX loopback plug
+ * on the adapter, an echo server behind a TCP link (e.g. ser2net or socat
+ * bridging an adapter), or the in-memory loopback that baselines the host side.
+ *
+ * RTT runs from the send call to the read that completed the reply, so it
+ * includes the send queue, driver, adapter and cable in both directions.
+ */
+public class RttTester {
+
+    public static final int PROBE_CMD = 0x70;
+    public static final int MIN_PAYLOAD = 4; // u32 sequence number
+
+    /**
+     * Receives raw bytes from a link (on the link's reader thread)
+     */
+    public interface Receiver {
+        void onBytes(byte[] data, int len, long rxNanos);
+    }
+
+    /**
+     * Byte transport under test
+     */
+    public interface Link {
+        boolean open(Receiver receiver);
+
+        void send(byte[] frame);
+
+        void close();
+
+        String describe();
+    }
+
+    /**
+     * Results of one payload size
+     */
+    public static final class Result {
+        private final int payloadSize;
+        private final LatencyHistogram rtt = new LatencyHistogram();
+        // Single writers: sent by the test thread, the rest by the link reader thread
+        private volatile long sent;
+        private volatile long received;
+        private volatile long duplicates;
+        private volatile long late;
+        private volatile long stray;
+        private double seconds;
+
+        Result(int payloadSize) {
+            this.payloadSize = payloadSize;
+        }
+
+        public int getPayloadSize() { return payloadSize; }
+        public long getSent() { return sent; }
+        public long getReceived() { return received; }
+        public long getDuplicates() { return duplicates; }
+        public long getLate() { return late; }
+        public double getSeconds() { return seconds; }
+
+        public long getLost() {
+            return sent - received;
+        }
+
+        public double getLossRatio() {
+            return sent > 0 ? (double) getLost() / sent : 0.0;
+        }
+
+        /**
+         * Round-trip times of replies within the timeout, in nanoseconds
+         */
+        public LatencyHistogram getRtt() {
+            return rtt;
+        }
+
+        public String toSummaryString() {
+            if (rtt.getCount() == 0) {
+                return String.format("%5d B  sent=%d received=0 loss=100%%", payloadSize, sent);
+            }
+            return String.format("%5d B  min=%.3f p50=%.3f p99=%.3f p99.9=%.3f max=%.3f ms  "
+                    + "sent=%d loss=%.2f%% dup=%d late=%d%s",
+                payloadSize, rtt.getMin() / 1e6, rtt.getPercentile(50) / 1e6, rtt.getPercentile(99) / 1e6,
+                rtt.getPercentile(99.9) / 1e6, rtt.getMax() / 1e6,
+                sent, getLossRatio() * 100.0, duplicates, late, stray > 0 ? " stray=" + stray : "");
+        }
+    }
+
+    private final Link link;
+    private int probes = 1000;
+    private int warmup = 50;
+    private double ratePerSecond = 100.0;
+    private long timeoutNanos = 500_000_000L;
+
+    // Current run; written by the test thread, read by the link's reader thread
+    private final FrameScanner scanner = new FrameScanner();
+    private volatile long baseSeq;
+    private volatile AtomicLongArray sentNanos;
+    private volatile AtomicLongArray replyNanos;
+    private volatile Result current;
+    private long nextSeq = 1;
+    private long rxNanos; // reader thread only
+
+    public RttTester(Link link) {
+        this.link = link;
+    }
+
+    public RttTester setProbes(int probes) {
+        this.probes = Math.max(1, probes);
+        return this;
+    }
+
+    /**
+     * Probes sent and discarded before the first size, so class loading,
+     * JIT compilation and driver start-up do not show up as outliers
+     */
+    public RttTester setWarmup(int probes) {
+        this.warmup = Math.max(0, probes);
+        return this;
+    }
+
+    public RttTester setRate(double probesPerSecond) {
+        this.ratePerSecond = Math.max(0.1, probesPerSecond);
+        return this;
+    }
+
+    public RttTester setTimeoutMs(long timeoutMs) {
+        this.timeoutNanos = Math.max(1, timeoutMs) * 1_000_000L;
+        return this;
+    }
+
+    /**
+     * Open the link, run every payload size in turn and close it
+     * @return one result per size, or null if the link could not be opened
+     */
+    public Result[] run(int... payloadSizes) {
+        if (!link.open(this::onBytes)) return null;
+        try {
+            if (warmup > 0 && payloadSizes.length > 0) runSize(payloadSizes[0], warmup);
+            Result[] results = new Result[payloadSizes.length];
+            for (int i = 0; i < payloadSizes.length; i++) {
+                results[i] = runSize(payloadSizes[i], probes);
+                if (Thread.currentThread().isInterrupted()) break;
+            }
+            return results;
+        } finally {
+            link.close();
+        }
+    }
+
+    private Result runSize(int payloadSize, int count) {
+        int size = Math.max(MIN_PAYLOAD, Math.min(payloadSize, FrameScanner.MAX_PAYLOAD));
+        Result result = new Result(size);
+        AtomicLongArray sent = new AtomicLongArray(count);
+        AtomicLongArray replies = new AtomicLongArray(count);
+        baseSeq = nextSeq;
+        sentNanos = sent;
+        replyNanos = replies;
+        current = result;
+
+        byte[] payload = new byte[size];
+        ByteBuffer seqField = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN);
+        long period = (long) (1e9 / ratePerSecond);
+        long start = System.nanoTime();
+        long next = start;
+        for (int i = 0; i < count; i++) {
+            if (!PreciseTiming.sleepUntil(next)) break;
+            seqField.putInt(0, (int) (baseSeq + i));
+            byte[] frame = encode(payload);
+            sent.set(i, System.nanoTime());
+            link.send(frame);
+            result.sent++;
+            next += period;
+        }
+
+        // Wait for the last replies
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (result.received < result.sent && System.nanoTime() < deadline) {
+            if (!PreciseTiming.sleepNanos(1_000_000L)) break;
+        }
+        result.seconds = (System.nanoTime() - start) / 1e9;
+        nextSeq = baseSeq + count;
+        current = null;
+        return result;
+    }
+
+    private static byte[] encode(byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(payload.length + 8).order(ByteOrder.LITTLE_ENDIAN);
+        frame.put(FrameScanner.HEADER);
+        frame.putInt(payload.length + 1);
+        frame.put((byte) PROBE_CMD);
+        frame.put(payload);
+        byte checksum = (byte) PROBE_CMD;
+        for (byte b : payload) checksum ^= b;
+        frame.put(checksum);
+        frame.put(FrameScanner.TAIL);
+        return frame.array();
+    }
+
+    // Link reader thread
+    private void onBytes(byte[] data, int len, long nanos) {
+        rxNanos = nanos;
+        scanner.feed(data, len, this::onFrame);
+    }
+
+    private void onFrame(int cmdId, byte[] payload) {
+        Result result = current;
+        if (result == null || cmdId != PROBE_CMD || payload.length < MIN_PAYLOAD) return;
+        long seq = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN).getInt(0) & 0xFFFFFFFFL;
+        long index = seq - baseSeq;
+        AtomicLongArray sent = sentNanos;
+        if (index < 0 || index >= sent.length()) {
+            result.stray++; // from an earlier size
+            return;
+        }
+        int i = (int) index;
+        long sentAt = sent.get(i);
+        if (sentAt == 0) {
+            result.stray++;
+            return;
+        }
+        if (!replyNanos.compareAndSet(i, 0, rxNanos)) {
+            result.duplicates++;
+            return;
+        }
+        long rtt = rxNanos - sentAt;
+        if (rtt > timeoutNanos) {
+            result.late++;
+            return;
+        }
+        result.rtt.record(rtt);
+        result.received++;
+    }
+
+    public String describe() {
+        return String.format("%s, %d probes at %.0f/s (+%d warm-up), timeout %d ms",
+            link.describe(), probes, ratePerSecond, warmup, timeoutNanos / 1_000_000L);
+    }
+
+    // ======= LINKS =======
+
+    /**
+     * A physical serial port, opened for the test only
+     */
+    public static final class SerialLink implements Link {
+        private final String portName;
+        private final int baud;
+        private final SerialComm comm = new SerialComm();
+
+        public SerialLink(String portName, int baud) {
+            this.portName = portName;
+            this.baud = baud;
+        }
+
+        /**
+         * The connection, to select the I/O and receive mode before the run
+         */
+        public SerialComm getComm() {
+            return comm;
+        }
+
+        @Override
+        public boolean open(Receiver receiver) {
+            comm.setAutoReconnect(false);
+            comm.setSink(new SerialComm.DataSink() {
+                @Override
+                public void onBytes(byte[] data, int len) {
+                    receiver.onBytes(data, len, System.nanoTime());
+                }
+
+                @Override
+                public void onBytes(byte[] data, int len, long rxNanos) {
+                    receiver.onBytes(data, len, rxNanos);
+                }
+            });
+            return comm.connect(portName, baud);
+        }
+
+        @Override
+        public void send(byte[] frame) {
+            comm.send(frame);
+        }
+
+        @Override
+        public void close() {
+            comm.disconnect();
+        }
+
+        @Override
+        public String describe() {
+            return String.format("%s @ %d (%s, %s)", portName, baud, comm.getIoMode(),
+                comm.getReadSizer().getMode());
+        }
+    }
+
+    /**
+     * In-memory echo with an optional fixed delay; measures the host side only
+     */
+    public static final class LoopbackLink implements Link {
+        private final long delayNanos;
+        private final BlockingQueue<Object[]> queue = new LinkedBlockingQueue<>(); // {frame, sent nanos}
+        private volatile Thread worker;
+
+        public LoopbackLink(long delayMicros) {
+            this.delayNanos = Math.max(0, delayMicros) * 1000L;
+        }
+
+        @Override
+        public boolean open(Receiver receiver) {
+            Thread t = new Thread(() -> {
+                try {
+                    while (worker == Thread.currentThread()) {
+                        Object[] item = queue.take();
+                        byte[] frame = (byte[]) item[0];
+                        long due = (Long) item[1] + delayNanos;
+                        if (!PreciseTiming.sleepUntil(due)) break;
+                        receiver.onBytes(frame, frame.length, System.nanoTime());
+                    }
+                } catch (InterruptedException e) {
+                    // closed
+                }
+            });
+            t.setName("RttLoopback");
+            t.setDaemon(true);
+            worker = t;
+            t.start();
+            return true;
+        }
+
+        @Override
+        public void send(byte[] frame) {
+            queue.offer(new Object[] { frame, System.nanoTime() });
+        }
+
+        @Override
+        public void close() {
+            Thread t = worker;
+            worker = null;
+            if (t != null) t.interrupt();
+        }
+
+        @Override
+        public String describe() {
+            return "in-memory loopback" + (delayNanos > 0 ? " +" + delayNanos / 1000 + " us" : "");
+        }
+    }
+
+    /**
+     * TCP connection to an echo endpoint (e.g. an adapter bridged by ser2net/socat)
+     */
+    public static final class TcpLink implements Link {
+        private final String host;
+        private final int port;
+        private Socket socket;
+        private OutputStream out;
+        private volatile Thread reader;
+
+        public TcpLink(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        @Override
+        public boolean open(Receiver receiver) {
+            try {
+                socket = new Socket();
+                socket.setTcpNoDelay(true);
+                socket.connect(new InetSocketAddress(host, port), 2000);
+                out = socket.getOutputStream();
+                InputStream in = socket.getInputStream();
+                Thread t = new Thread(() -> {
+                    byte[] buffer = new byte[4096];
+                    try {
+                        int n;
+                        while ((n = in.read(buffer)) > 0) {
+                            receiver.onBytes(buffer, n, System.nanoTime());
+                        }
+                    } catch (IOException e) {
+                        // closed
+                    }
+                });
+                t.setName("RttTcpReader");
+                t.setDaemon(true);
+                reader = t;
+                t.start();
+                return true;
+            } catch (IOException e) {
+                System.err.println("Cannot connect to " + host + ":" + port + ": " + e.getMessage());
+                close();
+                return false;
+            }
+        }
+
+        @Override
+        public void send(byte[] frame) {
+            try {
+                out.write(frame);
+            } catch (IOException e) {
+                System.err.println("TCP write failed: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (socket != null) socket.close();
+            } catch (IOException ignored) {}
+            Thread t = reader;
+            reader = null;
+            if (t != null) {
+                try {
+                    t.join(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public String describe() {
+            return "tcp " + host + ":" + port;
+        }
+    }
+}
@@ -7,7 +7,11 @@ import communication.PortUtil;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -41,15 +45,25 @@ public class SeatControllerBusSniffer extends JFrame {
     private JPanel profilesPanel;
     private JComboBox<String> profileSelect;
     private JTextField profHeightField, profSlideField, profInclineField;
-    private JButton saveProfileBtn, loadProfileBtn;
+    private JButton saveProfileBtn, loadProfileBtn, loadAllProfilesBtn;
+    private JLabel profileCacheLabel;
+    private boolean portsScanned; // EDT only; portCombo holds a placeholder until then
     
     private JTextArea traceArea;
-    private SeatControllerSnifferManager sniffer;
+    private final CachedTimestampFormatter traceTimeFormat = new CachedTimestampFormatter(); // EDT only
+    private volatile SeatControllerSnifferManager sniffer;
+    private final MetricsServer metricsServer = new MetricsServer(() -> sniffer);
     private JToggleButton connectBtn;
     
-    // Message timing
-    private Timer aliveTimer, gearboxTimer, seatCurrentTimer;
-    private int aliveCounter = 0;
+    // Spec cycles (ALIVE / GEARBOX_STATUS / current position)
+    private JCheckBox cyclicCheck;
+    
+    // Startup timing (time to first usable window)
+    private static volatile long launchNanos = System.nanoTime();
+    private long windowShownNanos = 0;
+    
+    // Tabs whose contents are built on first selection
+    private final Map<Component, Runnable> lazyTabs = new HashMap<>();
     
     public SeatControllerBusSniffer() {
         super("Seat Controller ECU Bus Sniffer");
@@ -60,24 +74,79 @@ public class SeatControllerBusSniffer extends JFrame {
         
         initializeComponents();
         setupLayout();
-        loadConfig();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                windowShownNanos = System.nanoTime();
+            }
+        });
         setVisible(true);
+        
+        // Native library loading, port enumeration and config I/O run off the EDT
+        startBackgroundInit();
+    }
+    
+    /**
+     * Result of the background startup work
+     */
+    private static class StartupResult {
+        String[] ports = new String[0];
+        Properties config = new Properties();
+    }
+    
+    private void startBackgroundInit() {
+        new SwingWorker<StartupResult, Void>() {
+            @Override
+            protected StartupResult doInBackground() {
+                StartupResult result = new StartupResult();
+                result.config = readConfig();
+                result.ports = PortUtil.getAllPorts(); // first call loads the jSerialComm native library
+                return result;
+            }
+            
+            @Override
+            protected void done() {
+                StartupResult result;
+                try {
+                    result = get();
+                } catch (Exception e) {
+                    traceArea.append("[STARTUP] Port enumeration failed: " + e.getMessage() + "\n");
+                    result = new StartupResult();
+                }
+                updatePortCombo(result.ports);
+                applyConfig(result.config);
+                portsScanned = true;
+                if (profileCacheLabel != null) showCachedProfile();
+                connectBtn.setEnabled(true);
+                monitorPorts();
+                
+                long now = System.nanoTime();
+                long shown = windowShownNanos != 0 ? windowShownNanos : now;
+                traceArea.append(String.format("[STARTUP] Window shown after %d ms, %d port(s) ready after %d ms%n",
+                    (shown - launchNanos) / 1_000_000, result.ports.length, (now - launchNanos) / 1_000_000));
+            }
+        }.execute();
     }
     
     private void initializeComponents() {
         // === Settings Panel Components ===
         portCombo = new JComboBox<>();
-        String[] ports = PortUtil.getAllPorts();
-        for (String p : ports) {
-            if (p != null && !p.isEmpty()) portCombo.addItem(p);
-        }
+        portCombo.addItem("Scanning ports...");
         
         protocolCombo = new JComboBox<>(new String[]{"UART"});
 		baudField = new JTextField("9600");
 		baudField.setColumns(8);
         connectBtn = new JToggleButton("Connect");
+        connectBtn.setEnabled(false); // enabled once the port list is available
         connectBtn.addActionListener(e -> toggleConnection());
-        
+        cyclicCheck = new JCheckBox("Cyclic ALIVE / GEARBOX / position");
+        cyclicCheck.setToolTipText("Send the spec cycles (5 / 10 / 2 ms) while connected");
+        cyclicCheck.addActionListener(e -> {
+            if (sniffer == null) return;
+            if (cyclicCheck.isSelected()) startPeriodicMessages();
+            else stopPeriodicMessages();
+        });
+                
         // === Seat Control Panel Components ===
         seatControlPanel = new JPanel(new GridLayout(4, 4, 5, 5));
         seatControlPanel.setBorder(BorderFactory.createTitledBorder("Seat Control Messages"));
@@ -129,9 +198,44 @@ public class SeatControllerBusSniffer extends JFrame {
         statusLabel = new JLabel("Disconnected");
     }
     
+    /**
+     * Follow hot-plug events from the shared port registry
+     */
+    private void monitorPorts() {
+        PortUtil.monitorPorts(new PortUtil.PortChangeListener() {
+            @Override
+            public void onPortConnected(PortUtil.PortInfo portInfo) {
+                SwingUtilities.invokeLater(() -> {
+                    updatePortCombo(PortUtil.getAllPorts());
+                    traceArea.append("[PORT] + " + portInfo.systemPortName + " (" + portInfo.descriptivePortName + ")\n");
+                });
+            }
+            
+            @Override
+            public void onPortDisconnected(String portName) {
+                SwingUtilities.invokeLater(() -> {
+                    updatePortCombo(PortUtil.getAllPorts());
+                    traceArea.append("[PORT] - " + portName + "\n");
+                });
+            }
+        }, 2000);
+    }
+    
+    /**
+     * Replace the port list from a registry snapshot, keeping the current selection
+     */
+    private void updatePortCombo(String[] ports) {
+        Object selected = portCombo.getSelectedItem();
+        portCombo.removeAllItems();
+        for (String p : ports) {
+            if (p != null && !p.isEmpty()) portCombo.addItem(p);
+        }
+        if (selected != null) portCombo.setSelectedItem(selected);
+    }
+    
     private void setupLayout() {
         // Top panel with settings
-        JPanel settingsPanel = new JPanel(new GridLayout(4, 2, 5, 5));
+        JPanel settingsPanel = new JPanel(new GridLayout(5, 2, 5, 5));
         settingsPanel.setBorder(BorderFactory.createTitledBorder("Connection Settings"));
         
         settingsPanel.add(new JLabel("COM Port:"));
@@ -140,6 +244,8 @@ public class SeatControllerBusSniffer extends JFrame {
         settingsPanel.add(protocolCombo);
         settingsPanel.add(new JLabel("Baud Rate:"));
         settingsPanel.add(baudField);
+        settingsPanel.add(new JLabel("Cyclic TX:"));
+        settingsPanel.add(cyclicCheck);
         settingsPanel.add(new JLabel(""));
         settingsPanel.add(connectBtn);
         
@@ -156,9 +262,7 @@ public class SeatControllerBusSniffer extends JFrame {
         wavePanel.add(waveformPanel, BorderLayout.CENTER);
         centerPanel.add(wavePanel);
         
-        // Setup seat control panel layout
-        setupSeatControlPanel();
-        setupFaultPanel();
+        // Seat control and fault panels are laid out lazily (see addLazyTab)
         // (EEPROM panel removed)
         setupProfilesPanel();
         
@@ -174,12 +278,13 @@ public class SeatControllerBusSniffer extends JFrame {
         menuBar.add(profilesMenu);
         setJMenuBar(menuBar);
 
-        // Control panels in tabs
+        // Control panels in tabs (rarely used tabs are filled on first selection)
         JTabbedPane controlTabs = new JTabbedPane();
-        controlTabs.addTab("Seat Control", seatControlPanel);
-        controlTabs.addTab("Fault Monitor", faultPanel);
+        addLazyTab(controlTabs, "Seat Control", seatControlPanel, this::setupSeatControlPanel);
+        addLazyTab(controlTabs, "Fault Monitor", faultPanel, this::setupFaultPanel);
         controlTabs.addTab("Profiles", profilesPanel);
         controlTabs.setSelectedIndex(2); // Show Profiles tab by default so buttons are visible
+        controlTabs.addChangeListener(e -> buildLazyTab(controlTabs.getSelectedComponent()));
         centerPanel.add(controlTabs);
         
         // Status panel
@@ -205,6 +310,19 @@ public class SeatControllerBusSniffer extends JFrame {
         add(bottomPanel, BorderLayout.SOUTH);
     }
     
+    private void addLazyTab(JTabbedPane tabs, String title, JPanel panel, Runnable builder) {
+        tabs.addTab(title, panel);
+        lazyTabs.put(panel, builder);
+    }
+    
+    private void buildLazyTab(Component tab) {
+        Runnable builder = lazyTabs.remove(tab);
+        if (builder != null) {
+            builder.run();
+            tab.revalidate();
+        }
+    }
+    
     private void setupSeatControlPanel() {
         seatControlPanel.add(new JLabel("Height Target (cm):"));
         seatControlPanel.add(heightTargetField);
@@ -243,11 +361,15 @@ public class SeatControllerBusSniffer extends JFrame {
         profilesPanel = new JPanel(new GridBagLayout());
         profilesPanel.setBorder(BorderFactory.createTitledBorder("Profiles"));
         profileSelect = new JComboBox<>();
-        for (int i = 0; i < 10; i++) profileSelect.addItem(String.valueOf(i));
+        for (int i = 0; i < SeatControllerSnifferManager.PROFILE_SLOTS; i++) profileSelect.addItem(String.valueOf(i));
+        profileSelect.addActionListener(e -> showCachedProfile());
         saveProfileBtn = new JButton("Save Profile");
         loadProfileBtn = new JButton("Load Profile");
+        loadAllProfilesBtn = new JButton("Load All");
         saveProfileBtn.addActionListener(e -> saveProfile());
         loadProfileBtn.addActionListener(e -> loadProfile());
+        loadAllProfilesBtn.addActionListener(e -> loadAllProfiles());
+        profileCacheLabel = new JLabel(" ");
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(6,8,6,8);
         gbc.fill = GridBagConstraints.HORIZONTAL;
@@ -279,7 +401,55 @@ public class SeatControllerBusSniffer extends JFrame {
         JPanel buttonRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
         buttonRow.add(saveProfileBtn);
         buttonRow.add(loadProfileBtn);
+        buttonRow.add(loadAllProfilesBtn);
         gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 2; gbc.weightx = 1; profilesPanel.add(buttonRow, gbc);
+        
+        // Row 5: Cache status
+        gbc.gridx = 0; gbc.gridy = 5; gbc.gridwidth = 2; profilesPanel.add(profileCacheLabel, gbc);
+        
+        showCachedProfile();
+    }
+    
+    /**
+     * Fill the profile fields from the host-side cache (no ECU round trip)
+     */
+    private void showCachedProfile() {
+        int id = profileSelect.getSelectedIndex();
+        SeatControllerSnifferManager s = sniffer;
+        String port = (String) portCombo.getSelectedItem();
+        if (s == null && (!portsScanned || port == null)) {
+            // No real port name yet: don't create a cache for the placeholder
+            profileCacheLabel.setText("Profile " + id + ": waiting for port scan");
+            return;
+        }
+        ProfileCache cache = s != null ? s.getProfileCache() : ProfileCache.forPort(port);
+        ProfileCache.Entry entry = cache.get(id);
+        if (entry == null) {
+            profileCacheLabel.setText("Profile " + id + ": not cached - use Load or Load All");
+            return;
+        }
+        profHeightField.setText(String.format("%.1f", entry.profile.heightCm));
+        profSlideField.setText(String.format("%.1f", entry.profile.slideCm));
+        profInclineField.setText(String.format("%.1f", entry.profile.inclineDeg));
+        profileCacheLabel.setText("Profile " + id + ": cached, read from ECU "
+            + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(entry.loadedAt)));
+    }
+    
+    /**
+     * Sync all profile slots from the ECU in one pipelined burst
+     */
+    private void loadAllProfiles() {
+        if (sniffer == null) return;
+        loadAllProfilesBtn.setEnabled(false);
+        long start = System.nanoTime();
+        traceArea.append("[SENT] loadprofile 0.." + (SeatControllerSnifferManager.PROFILE_SLOTS - 1) + " (pipelined)\n");
+        sniffer.loadAllProfilesAsync().whenComplete((profiles, error) -> SwingUtilities.invokeLater(() -> {
+            loadAllProfilesBtn.setEnabled(true);
+            int loaded = profiles != null ? profiles.size() : 0;
+            traceArea.append(String.format("[PROFILES] %d/%d slots synced in %.1f ms%n",
+                loaded, SeatControllerSnifferManager.PROFILE_SLOTS, (System.nanoTime() - start) / 1e6));
+            showCachedProfile();
+        }));
     }
 
     private void saveProfile() {
@@ -292,6 +462,7 @@ public class SeatControllerBusSniffer extends JFrame {
             double incline = Double.parseDouble(profInclineField.getText().trim());
             sniffer.saveProfile(id, height, slide, incline);
             traceArea.append("[SENT] saveprofile " + id + " H=" + height + " S=" + slide + " I=" + incline + "\n");
+            profileCacheLabel.setText("Profile " + id + ": saved, cache invalidated");
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Invalid profile id");
         }
@@ -327,8 +498,14 @@ public class SeatControllerBusSniffer extends JFrame {
             sniffer = new SeatControllerSnifferManager(new TraceListener() {
                 @Override
                 public void onTrace(String message) {
-                    SwingUtilities.invokeLater(() -> {
-                        String timestamp = new SimpleDateFormat("HH:mm:ss.SSS").format(new Date());
+                    onTrace(message, System.nanoTime());
+                }
+                
+                @Override
+                public void onTrace(String message, long nanoTime) {
+                    Runnable render = () -> {
+                        // Time of the event, not of this repaint
+                        String timestamp = traceTimeFormat.format(PreciseTiming.toWallMillis(nanoTime));
                         traceArea.append("[" + timestamp + "] " + message + "\n");
                         traceArea.setCaretPosition(traceArea.getDocument().getLength());
                         
@@ -339,14 +516,31 @@ public class SeatControllerBusSniffer extends JFrame {
                         
                         // Parse specific messages
                         parseMessage(message);
-                    });
+                    };
+                    // The manager already dispatches on the EDT; avoid a second hop
+                    if (SwingUtilities.isEventDispatchThread()) render.run();
+                    else SwingUtilities.invokeLater(render);
                 }
                 
                 @Override
                 public void onFrame(byte[] data, int len) {
+                    onFrame(data, len, System.nanoTime());
+                }
+                
+                @Override
+                public void onFrame(byte[] data, int len, long rxNanos) {
+                    onFrame(data, len, rxNanos, Double.NaN);
+                }
+                
+                @Override
+                public void onFrame(byte[] data, int len, long rxNanos, double ecuMillis) {
                     SwingUtilities.invokeLater(() -> {
                         String hexData = SeatControllerBusSniffer.this.bytesToHex(data, len);
-                        traceArea.append("[FRAME] " + hexData + "\n");
+                        StringBuilder line = new StringBuilder(hexData.length() + 48);
+                        line.append('[').append(traceTimeFormat.format(PreciseTiming.toWallMillis(rxNanos))).append(']');
+                        if (!Double.isNaN(ecuMillis)) EcuClock.appendEcuTime(line, ecuMillis);
+                        line.append(" [FRAME] ").append(hexData).append('\n');
+                        traceArea.append(line.toString());
                     });
                 }
                 
@@ -356,6 +550,9 @@ public class SeatControllerBusSniffer extends JFrame {
                         @SuppressWarnings("unchecked")
                         java.util.Map<String, Object> map = (java.util.Map<String, Object>) data;
                         SwingUtilities.invokeLater(() -> {
+                            // Bulk loads deliver every slot; only show the selected one
+                            Object id = map.get("id");
+                            if (id instanceof Number && ((Number) id).intValue() != profileSelect.getSelectedIndex()) return;
                             Object h = map.get("heightCm");
                             Object s = map.get("slideCm");
                             Object i = map.get("inclineDeg");
@@ -364,6 +561,7 @@ public class SeatControllerBusSniffer extends JFrame {
                             if (s instanceof Number) profSlideField.setText(String.format("%.1f", ((Number)s).doubleValue()));
                             if (i instanceof Number) profInclineField.setText(String.format("%.1f", ((Number)i).doubleValue()));
                             // no address field to update
+                            showCachedProfile();
                         });
                     }
                 }
@@ -452,13 +650,22 @@ public class SeatControllerBusSniffer extends JFrame {
     }
     
     private void startPeriodicMessages() {
-        // Stop periodic auto-sends; user controls actions explicitly
+        // Auto-sends only when the user opted in
+        if (sniffer == null || !cyclicCheck.isSelected()) return;
+        try {
+            sniffer.setSimulatedPosition(Double.parseDouble(heightTargetField.getText()),
+                Double.parseDouble(slideTargetField.getText()),
+                Double.parseDouble(inclineTargetField.getText()));
+        } catch (NumberFormatException e) {
+            // keep the previous simulated position
+        }
+        if (!sniffer.startCyclicMessages()) {
+            cyclicCheck.setSelected(false);
+        }
     }
     
     private void stopPeriodicMessages() {
-        if (aliveTimer != null) aliveTimer.stop();
-        if (gearboxTimer != null) gearboxTimer.stop();
-        if (seatCurrentTimer != null) seatCurrentTimer.stop();
+        if (sniffer != null) sniffer.stopCyclicMessages();
     }
     
     private void parseMessage(String message) {
@@ -489,23 +696,48 @@ public class SeatControllerBusSniffer extends JFrame {
         return sb.toString().trim();
     }
     
-    private void loadConfig() {
-        try {
-            Properties p = new Properties();
-            File f = new File("seat_sniffer.properties");
-            if (!f.exists()) return;
-            p.load(new FileInputStream(f));
-            baudField.setText(p.getProperty("baud", "115200"));
-            String lastPort = p.getProperty("port");
-            if (lastPort != null) portCombo.setSelectedItem(lastPort);
-            String lastProtocol = p.getProperty("protocol");
-            if (lastProtocol != null) protocolCombo.setSelectedItem(lastProtocol);
+    /**
+     * Read saved settings (called off the EDT during startup)
+     */
+    private static Properties readConfig() {
+        Properties p = new Properties();
+        File f = new File("seat_sniffer.properties");
+        if (!f.exists()) return p;
+        try (FileInputStream in = new FileInputStream(f)) {
+            p.load(in);
         } catch (Exception ignore) {}
+        return p;
+    }
+    
+    private void applyConfig(Properties p) {
+        if (p.isEmpty()) return;
+        baudField.setText(p.getProperty("baud", "115200"));
+        String lastPort = p.getProperty("port");
+        if (lastPort != null) portCombo.setSelectedItem(lastPort);
+        String lastProtocol = p.getProperty("protocol");
+        if (lastProtocol != null) protocolCombo.setSelectedItem(lastProtocol);
+        
+        // Optional Prometheus endpoint for rig monitoring (metrics.port, 0 = off)
+        try {
+            int metricsPort = Integer.parseInt(p.getProperty("metrics.port", "0").trim());
+            if (metricsPort > 0 && metricsServer.start(metricsPort)) {
+                traceArea.append("[METRICS] http://127.0.0.1:" + metricsServer.getPort() + "/metrics\n");
+            }
+        } catch (NumberFormatException e) {
+            traceArea.append("[METRICS] Invalid metrics.port: " + p.getProperty("metrics.port") + "\n");
+        }
     }
     
     private void saveConfig(String port, String protocol, int baud) {
         try {
+            // Keep other settings (e.g. log.*) that live in the same file
             Properties p = new Properties();
+            File f = new File("seat_sniffer.properties");
+            if (f.exists()) {
+                try (FileInputStream in = new FileInputStream(f)) {
+                    p.load(in);
+                }
+            }
             p.setProperty("port", port);
             p.setProperty("protocol", protocol);
             p.setProperty("baud", String.valueOf(baud));
@@ -595,6 +827,7 @@ public class SeatControllerBusSniffer extends JFrame {
     }
     
     public static void main(String[] args) {
+        launchNanos = System.nanoTime();
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager.getLookAndFeel());
@@ -3,8 +3,15 @@ package application;
 import javax.swing.SwingUtilities;
 
 import application.TraceListener.CommStatistics;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -12,6 +19,46 @@ import java.nio.ByteOrder;
 public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCloseable {
     private final SerialComm serial = new SerialComm();
     private TraceListener listener;
+    // Runs TraceListener callbacks; the EDT unless the session is pooled
+    private volatile Executor dispatcher = SwingUtilities::invokeLater;
+
+    /**
+     * Low-level observer for decoded frames, called synchronously on the serial
+     * reader/sender threads (not the EDT) - implementations must be fast
+     */
+    public interface FrameObserver {
+        void onFrameReceived(int cmdId, byte[] payload, long rxNanos);
+
+        /**
+         * Variant with the frame's aligned ECU time
+         * @param ecuMillis ms on the unwrapped ECU timeline (EcuClock), NaN until aligned
+         */
+        default void onFrameReceived(int cmdId, byte[] payload, long rxNanos, double ecuMillis) {
+            onFrameReceived(cmdId, payload, rxNanos);
+        }
+
+        default void onFrameSent(int cmdId, byte[] payload, long txNanos) {}
+
+        /**
+         * A frame is about to be queued for sending; called on the thread that sends it
+         */
+        default void onFrameQueued(int cmdId, byte[] payload) {}
+
+        /**
+         * The link was lost and has been re-established after gapMillis
+         */
+        default void onLinkResumed(String portName, long gapMillis) {}
+    }
+
+    private final List<FrameObserver> frameObservers = new CopyOnWriteArrayList<>();
+    private final TrafficCounters counters = new TrafficCounters();
+    private final AliveSupervisor aliveSupervisor = new AliveSupervisor();
+    private final EcuClock ecuClock = new EcuClock();
+    private final PipelineTracer pipelineTracer = new PipelineTracer();
+    private PipelineTracer.Span rxSpan; // sampled frame being decoded (serial reader thread only)
+
+    // Per-frame TX trace for cyclic messages (disabled while stress testing)
+    private volatile boolean cyclicTxTrace = true;
 
     // Frame format constants
     private static final byte HEADER = 0x7E;
@@ -35,8 +82,26 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
     // Buffer for accumulating incoming data
     private StringBuilder textBuffer = new StringBuilder();
 
+    // Frame reassembly across reads; reader thread only (or the session's decode lane)
+    private final FrameScanner scanner = new FrameScanner();
+    private long scanRxNanos;
+    private byte[] scanFrameBytes;
+
     public SeatControllerSnifferManager(TraceListener listener) {
         this.listener = listener;
+        frameObservers.add(counters);
+        frameObservers.add(aliveSupervisor);
+        aliveSupervisor.setStallListener(new AliveSupervisor.StallListener() {
+            @Override
+            public void onAliveStall(long silentMillis) {
+                log("ALIVE_STALL: no ALIVE for " + silentMillis + " ms");
+            }
+
+            @Override
+            public void onAliveRecovered(long stalledMillis) {
+                log("ALIVE_RECOVERED: after " + stalledMillis + " ms");
+            }
+        });
     }
 
     /**
@@ -44,6 +109,9 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
      */
     public boolean start(String portName, int baud, String protocol) {
         serial.setSink(this);
+        scanner.reset();
+        textBuffer.setLength(0);
+        profileCache = ProfileCache.forPort(portName);
         boolean ok = serial.connect(portName, baud);
         if (!ok) {
             System.err.println("Failed to open port " + portName);
@@ -58,6 +126,44 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
         return start(portName, baud, "UART");
     }
 
+    /**
+     * Run serial I/O on a shared driver and decode on the given ordered executor
+     * instead of per-port threads; call before start() (see SessionPool)
+     */
+    public void setIoDriver(SerialComm.IoDriver driver, Executor decoder) {
+        serial.setIoDriver(driver);
+        serial.setReceiveExecutor(decoder);
+    }
+
+    /**
+     * Callback or blocking-loop reads; call before start()
+     */
+    public void setIoMode(SerialComm.IoMode mode) {
+        serial.setIoMode(mode);
+    }
+
+    public SerialComm.IoMode getIoMode() {
+        return serial.getIoMode();
+    }
+
+    /**
+     * Receive mode and per-mode read statistics of the serial link
+     */
+    public ReadSizer getReadSizer() {
+        return serial.getReadSizer();
+    }
+
+    public boolean supportsBatchedReads() {
+        return serial.supportsBatchedReads();
+    }
+
+    /**
+     * Where TraceListener callbacks run (default: the Swing EDT)
+     */
+    public void setDispatcher(Executor dispatcher) {
+        this.dispatcher = dispatcher != null ? dispatcher : SwingUtilities::invokeLater;
+    }
+
     // ======= SEAT CONTROLLER SPECIFIC COMMANDS =======
     
     /**
@@ -65,14 +171,9 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
      * Structure: {u16 timestamp, u16 counter}
      */
     public void sendAliveMessage(long timestamp, int counter) {
-        ByteBuffer payload = ByteBuffer.allocate(4);
-        payload.order(ByteOrder.LITTLE_ENDIAN);
-        payload.putShort((short)(timestamp & 0xFFFF));
-        payload.putShort((short)(counter & 0xFFFF));
-        
-        byte[] frame = buildFrame(CMD_ALIVE_MSG, payload.array());
-        serial.send(frame);
-        log("ALIVE: ts=" + (timestamp & 0xFFFF) + " cnt=" + (counter & 0xFFFF));
+        byte[] frame = buildFrame(CMD_ALIVE_MSG, alivePayload(timestamp, counter));
+        transmit(frame);
+        logTx("ALIVE: ts=" + (timestamp & 0xFFFF) + " cnt=" + (counter & 0xFFFF));
     }
     
     /**
@@ -80,15 +181,9 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
      * Structure: {u16 GearNumber, u16 CurrentTorque, u16 MaxAllowedTorque}
      */
     public void sendGearboxStatus(int gear, int currentTorque, int maxTorque) {
-        ByteBuffer payload = ByteBuffer.allocate(6);
-        payload.order(ByteOrder.LITTLE_ENDIAN);
-        payload.putShort((short)gear);
-        payload.putShort((short)currentTorque);
-        payload.putShort((short)maxTorque);
-        
-        byte[] frame = buildFrame(CMD_GEARBOX_STATUS, payload.array());
-        serial.send(frame);
-        log("GEARBOX: gear=" + gear + " torque=" + currentTorque + "/" + maxTorque);
+        byte[] frame = buildFrame(CMD_GEARBOX_STATUS, gearboxPayload(gear, currentTorque, maxTorque));
+        transmit(frame);
+        logTx("GEARBOX: gear=" + gear + " torque=" + currentTorque + "/" + maxTorque);
     }
     
     /**
@@ -108,86 +203,162 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
         payload.putShort((short)inclineRaw);
         
         byte[] frame = buildFrame(CMD_SEND_REQ, payload.array());
-        serial.send(frame);
+        transmit(frame);
         log("SEND_REQ: H=" + heightCm + "cm S=" + slideCm + "cm I=" + inclineDeg + "°");
     }
+
+    // Payload builders shared by the single-frame senders and Batch
+
+    private static byte[] alivePayload(long timestamp, int counter) {
+        ByteBuffer payload = ByteBuffer.allocate(4);
+        payload.order(ByteOrder.LITTLE_ENDIAN);
+        payload.putShort((short)(timestamp & 0xFFFF));
+        payload.putShort((short)(counter & 0xFFFF));
+        return payload.array();
+    }
+
+    private static byte[] gearboxPayload(int gear, int currentTorque, int maxTorque) {
+        ByteBuffer payload = ByteBuffer.allocate(6);
+        payload.order(ByteOrder.LITTLE_ENDIAN);
+        payload.putShort((short)gear);
+        payload.putShort((short)currentTorque);
+        payload.putShort((short)maxTorque);
+        return payload.array();
+    }
+
+    private static byte[] shortPayload(int value) {
+        ByteBuffer payload = ByteBuffer.allocate(2);
+        payload.order(ByteOrder.LITTLE_ENDIAN);
+        payload.putShort((short)value);
+        return payload.array();
+    }
     
     /**
      * Send individual seat target messages
      */
     public void sendSeatHeightTarget(double heightCm) {
         int heightMM = (int)(heightCm * 10); // Convert cm to mm
-        ByteBuffer payload = ByteBuffer.allocate(2);
-        payload.order(ByteOrder.LITTLE_ENDIAN);
-        payload.putShort((short)heightMM);
-        
-        byte[] frame = buildFrame(CMD_SEAT_HEIGHT_TARGET, payload.array());
-        serial.send(frame);
+        byte[] frame = buildFrame(CMD_SEAT_HEIGHT_TARGET, shortPayload(heightMM));
+        transmit(frame);
         log("SEAT_HEIGHT_TARGET: " + heightMM + "mm");
     }
     
     public void sendSeatSlideTarget(double slideCm) {
         int slideMM = (int)(slideCm * 10);
-        ByteBuffer payload = ByteBuffer.allocate(2);
-        payload.order(ByteOrder.LITTLE_ENDIAN);
-        payload.putShort((short)slideMM);
-        
-        byte[] frame = buildFrame(CMD_SEAT_SLIDE_TARGET, payload.array());
-        serial.send(frame);
+        byte[] frame = buildFrame(CMD_SEAT_SLIDE_TARGET, shortPayload(slideMM));
+        transmit(frame);
         log("SEAT_SLIDE_TARGET: " + slideMM + "mm");
     }
     
     public void sendSeatInclineTarget(double inclineDeg) {
         int inclineRad = (int)(Math.toRadians(inclineDeg) * 1000); // Convert to milliradians
-        ByteBuffer payload = ByteBuffer.allocate(2);
-        payload.order(ByteOrder.LITTLE_ENDIAN);
-        payload.putShort((short)inclineRad);
-        
-        byte[] frame = buildFrame(CMD_SEAT_INCLINE_TARGET, payload.array());
-        serial.send(frame);
+        byte[] frame = buildFrame(CMD_SEAT_INCLINE_TARGET, shortPayload(inclineRad));
+        transmit(frame);
         log("SEAT_INCLINE_TARGET: " + inclineRad + "mrad (" + inclineDeg + "°)");
     }
     
     /**
      * Send current seat position (periodic, 2ms)
+     * The three frames go out in a single write so they stay back-to-back on the wire.
      */
     public void sendSeatCurrentPosition(double heightCm, double slideCm, double inclineDeg) {
-        // Send individual current position messages
-        sendSeatHeightCurrent(heightCm);
-        sendSeatSlideCurrent(slideCm);
-        sendSeatInclineCurrent(inclineDeg);
-    }
-    
-    private void sendSeatHeightCurrent(double heightCm) {
-        int heightMM = (int)(heightCm * 10);
-        ByteBuffer payload = ByteBuffer.allocate(2);
-        payload.order(ByteOrder.LITTLE_ENDIAN);
-        payload.putShort((short)heightMM);
-        
-        byte[] frame = buildFrame(CMD_SEAT_HEIGHT_CURRENT, payload.array());
-        serial.send(frame);
+        batch().heightCurrent(heightCm)
+               .slideCurrent(slideCm)
+               .inclineCurrent(inclineDeg)
+               .send();
     }
     
-    private void sendSeatSlideCurrent(double slideCm) {
-        int slideMM = (int)(slideCm * 10);
-        ByteBuffer payload = ByteBuffer.allocate(2);
-        payload.order(ByteOrder.LITTLE_ENDIAN);
-        payload.putShort((short)slideMM);
-        
-        byte[] frame = buildFrame(CMD_SEAT_SLIDE_CURRENT, payload.array());
-        serial.send(frame);
+    // ======= BATCHED FRAMES =======
+
+    /**
+     * Start a batch of frames that are encoded into one buffer and sent as one write
+     */
+    public Batch batch() {
+        return new Batch();
     }
-    
-    private void sendSeatInclineCurrent(double inclineDeg) {
-        int inclineRad = (int)(Math.toRadians(inclineDeg) * 1000);
-        ByteBuffer payload = ByteBuffer.allocate(2);
-        payload.order(ByteOrder.LITTLE_ENDIAN);
-        payload.putShort((short)inclineRad);
-        
-        byte[] frame = buildFrame(CMD_SEAT_INCLINE_CURRENT, payload.array());
-        serial.send(frame);
+
+    /**
+     * Collects frames and submits them as one contiguous buffer
+     * Nothing else can be queued between the frames of a batch. Not thread-safe;
+     * build and send from one thread.
+     */
+    public class Batch {
+        private byte[] cmdIds = new byte[4]; // cmdIds[i] goes with payloads.get(i)
+        private final List<byte[]> payloads = new ArrayList<>(4);
+        private int length;
+
+        private Batch() {
+        }
+
+        /**
+         * Append a frame with an arbitrary command ID
+         */
+        public Batch frame(byte cmdId, byte[] payload) {
+            byte[] p = payload != null ? payload : new byte[0];
+            int i = payloads.size();
+            if (i == cmdIds.length) cmdIds = Arrays.copyOf(cmdIds, i * 2);
+            cmdIds[i] = cmdId;
+            payloads.add(p);
+            length += uartFrameLength(p);
+            return this;
+        }
+
+        public Batch alive(long timestamp, int counter) {
+            return frame(CMD_ALIVE_MSG, alivePayload(timestamp, counter));
+        }
+
+        public Batch gearbox(int gear, int currentTorque, int maxTorque) {
+            return frame(CMD_GEARBOX_STATUS, gearboxPayload(gear, currentTorque, maxTorque));
+        }
+
+        public Batch heightCurrent(double heightCm) {
+            return frame(CMD_SEAT_HEIGHT_CURRENT, shortPayload((int)(heightCm * 10)));
+        }
+
+        public Batch slideCurrent(double slideCm) {
+            return frame(CMD_SEAT_SLIDE_CURRENT, shortPayload((int)(slideCm * 10)));
+        }
+
+        public Batch inclineCurrent(double inclineDeg) {
+            return frame(CMD_SEAT_INCLINE_CURRENT, shortPayload((int)(Math.toRadians(inclineDeg) * 1000)));
+        }
+
+        public Batch heightTarget(double heightCm) {
+            return frame(CMD_SEAT_HEIGHT_TARGET, shortPayload((int)(heightCm * 10)));
+        }
+
+        public Batch slideTarget(double slideCm) {
+            return frame(CMD_SEAT_SLIDE_TARGET, shortPayload((int)(slideCm * 10)));
+        }
+
+        public Batch inclineTarget(double inclineDeg) {
+            return frame(CMD_SEAT_INCLINE_TARGET, shortPayload((int)(Math.toRadians(inclineDeg) * 1000)));
+        }
+
+        public int size() {
+            return payloads.size();
+        }
+
+        /**
+         * Encode all frames into one buffer
+         */
+        public byte[] toBytes() {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            for (int i = 0; i < payloads.size(); i++) {
+                putUARTFrame(buffer, cmdIds[i], payloads.get(i));
+            }
+            return buffer.array();
+        }
+
+        /**
+         * Submit the batch as a single write; an empty batch sends nothing
+         */
+        public void send() {
+            if (payloads.isEmpty()) return;
+            transmit(toBytes());
+        }
     }
-    
+
     /**
      * Send fault messages
      */
@@ -198,12 +369,35 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
         payload.putInt((int)(System.currentTimeMillis() & 0xFFFFFFFF)); // Fault timestamp
         
         byte[] frame = buildFrame(cmdId, payload.array());
-        serial.send(frame);
+        transmit(frame);
         log("FAULT_" + faultNumber + ": triggered at " + System.currentTimeMillis());
     }
 
     // (EEPROM commands removed)
     
+    /**
+     * Human-readable name for a command/response ID
+     */
+    public static String commandName(int cmdId) {
+        String suffix = (cmdId & 0x80) != 0 ? "_RSP" : "";
+        switch (cmdId & 0x7F) {
+            case CMD_ALIVE_MSG:            return "ALIVE" + suffix;
+            case CMD_GEARBOX_STATUS:       return "GEARBOX_STATUS" + suffix;
+            case CMD_SEAT_HEIGHT_TARGET:   return "HEIGHT_TARGET" + suffix;
+            case CMD_SEAT_SLIDE_TARGET:    return "SLIDE_TARGET" + suffix;
+            case CMD_SEAT_INCLINE_TARGET:  return "INCLINE_TARGET" + suffix;
+            case CMD_SEAT_HEIGHT_CURRENT:  return "HEIGHT_CURRENT" + suffix;
+            case CMD_SEAT_SLIDE_CURRENT:   return "SLIDE_CURRENT" + suffix;
+            case CMD_SEAT_INCLINE_CURRENT: return "INCLINE_CURRENT" + suffix;
+            case CMD_SEND_REQ:             return "SEAT_CONTROL_REQ" + suffix;
+            case CMD_FAULT_1:              return "FAULT_1" + suffix;
+            case CMD_FAULT_2:              return "FAULT_2" + suffix;
+            case CMD_SAVE_PROFILE:         return "SAVE_PROFILE" + suffix;
+            case CMD_LOAD_PROFILE:         return "LOAD_PROFILE" + suffix;
+            default:                       return String.format("0x%02X", cmdId & 0xFF);
+        }
+    }
+    
     // ======= PROTOCOL-SPECIFIC FRAME BUILDING =======
     
     private byte[] buildFrame(byte cmdId, byte[] payload) {
@@ -216,9 +410,19 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
      * Format: [HEADER][LENGTH][CMD_ID][PAYLOAD][CHECKSUM][TAIL]
      */
     private byte[] buildUARTFrame(byte cmdId, byte[] payload) {
-        int frameLen = 1 + 4 + 1 + payload.length + 1 + 1; // H + LEN + CMD + PAYLOAD + CHK + T
-        ByteBuffer frame = ByteBuffer.allocate(frameLen);
-        
+        ByteBuffer frame = ByteBuffer.allocate(uartFrameLength(payload));
+        putUARTFrame(frame, cmdId, payload);
+        return frame.array();
+    }
+
+    private static int uartFrameLength(byte[] payload) {
+        return 1 + 4 + 1 + payload.length + 1 + 1; // H + LEN + CMD + PAYLOAD + CHK + T
+    }
+
+    /**
+     * Encode one UART frame at the buffer's position
+     */
+    private static void putUARTFrame(ByteBuffer frame, byte cmdId, byte[] payload) {
         frame.put(HEADER);
         frame.putInt(payload.length + 1); // Include command ID in length
         frame.put(cmdId);
@@ -231,8 +435,6 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
         }
         frame.put(checksum);
         frame.put(TAIL);
-        
-        return frame.array();
     }
     
     // I2C/SPI removed: UART is the only supported transport
@@ -242,61 +444,99 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
      */
     @Override
     public void onBytes(byte[] data, int len) {
+        onBytes(data, len, System.nanoTime());
+    }
+
+    @Override
+    public void onBytes(byte[] data, int len, long rxNanos) {
         if (len < 1) return;
+        // Reads can split a frame or carry several; the scanner keeps the unfinished rest
+        scanRxNanos = rxNanos;
+        scanner.feed(data, len, frameHandler);
+    }
 
-        // Check if this looks like a framed response
-        if (data[0] == HEADER && len > 6) {
-            // Trace raw frame bytes
-            if (listener != null) {
-                byte[] copy = new byte[len];
-                System.arraycopy(data, 0, copy, 0, len);
-                TraceListener l = listener;
-                SwingUtilities.invokeLater(() -> l.onFrame(copy, copy.length));
-            }
-            handleBinaryFrame(data, len);
-        } else {
-            // Handle as text/debug output
-            handleTextData(data, len);
+    private final FrameScanner.StreamHandler frameHandler = new FrameScanner.StreamHandler() {
+        @Override
+        public void onFrameBytes(byte[] data, int offset, int len) {
+            scanFrameBytes = Arrays.copyOfRange(data, offset, offset + len);
+        }
+
+        @Override
+        public void onFrame(int cmdId, byte[] payload) {
+            handleFrame(scanFrameBytes, cmdId, payload, scanRxNanos);
+        }
+
+        @Override
+        public void onOtherBytes(byte[] data, int offset, int len) {
+            handleTextData(data, offset, len, scanRxNanos);
+        }
+
+        @Override
+        public void onChecksumError() {
+            counters.recordDecodeError();
+            JfrEvents.FrameDecode event = new JfrEvents.FrameDecode();
+            event.begin();
+            commitDecodeEvent(event, "BAD_CHECKSUM");
+            log("Checksum error: frame dropped", scanRxNanos);
         }
+    };
+
+    private void handleFrame(byte[] frame, int cmdId, byte[] payload, long rxNanos) {
+        PipelineTracer.Span span = pipelineTracer.begin(rxNanos);
+        if (span != null) span.mark(PipelineTracer.Stage.REASSEMBLED);
+        // Align first, so this frame and every consumer see the same ECU time
+        ecuClock.onFrameReceived(cmdId, payload, rxNanos);
+        double ecuMillis = ecuClock.toEcuMillis(rxNanos);
+        // Trace raw frame bytes
+        if (listener != null) {
+            TraceListener l = listener;
+            dispatcher.execute(() -> l.onFrame(frame, frame.length, rxNanos, ecuMillis));
+        }
+        handleBinaryFrame(frame, cmdId, payload, rxNanos, ecuMillis, span);
     }
 
-    private void handleBinaryFrame(byte[] data, int len) {
+    /**
+     * Dispatch one frame the scanner has already checked (tail and checksum)
+     */
+    private void handleBinaryFrame(byte[] frame, int cmdId, byte[] payload, long rxNanos, double ecuMillis,
+                                   PipelineTracer.Span span) {
+        JfrEvents.FrameDecode event = new JfrEvents.FrameDecode();
+        event.begin();
+        event.cmdId = cmdId;
+        event.payloadLength = payload.length;
         try {
-            // Parse UART frame format
-            if (len < 7) return; // Minimum frame size
-            
-            ByteBuffer buffer = ByteBuffer.wrap(data);
-            buffer.order(ByteOrder.LITTLE_ENDIAN);
-            
-            byte header = buffer.get();
-            if (header != HEADER) return;
-            
-            int payloadLen = buffer.getInt();
-            byte cmdId = buffer.get();
-            
-            // Extract payload
-            byte[] payload = new byte[payloadLen - 1]; // Subtract 1 for cmdId
-            buffer.get(payload);
-            
-            byte checksum = buffer.get();
-            byte tail = buffer.get();
-            
-            if (tail != TAIL) {
-                log("Invalid frame tail: " + String.format("0x%02X", tail));
-                return;
+            for (FrameObserver observer : frameObservers) {
+                observer.onFrameReceived(cmdId, payload, rxNanos, ecuMillis);
+            }
+            if (span != null) {
+                span.mark(PipelineTracer.Stage.DECODED);
+                rxSpan = span; // carried by the frame's first trace line
             }
             
             // Process response based on command ID
-            handleFrameResponse(cmdId, payload);
+            handleFrameResponse((byte) cmdId, payload, rxNanos);
+            rxSpan = null;
+            commitDecodeEvent(event, "OK");
             
         } catch (Exception e) {
-            log("Error parsing frame: " + e.getMessage());
+            rxSpan = null;
+            counters.recordDecodeError();
+            commitDecodeEvent(event, "ERROR");
+            log("Error parsing frame: " + e.getMessage(), rxNanos);
             // Fall back to hex dump
-            log("HEX: " + bytesToHex(data, len));
+            log("HEX: " + bytesToHex(frame, frame.length), rxNanos);
+        }
+    }
+
+    private static void commitDecodeEvent(JfrEvents.FrameDecode event, String status) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.status = status;
+            event.commit();
         }
     }
     
-    private void handleFrameResponse(byte cmdId, byte[] payload) {
+    private void handleFrameResponse(byte cmdId, byte[] payload, long rxNanos) {
         ByteBuffer buffer = ByteBuffer.wrap(payload);
         buffer.order(ByteOrder.LITTLE_ENDIAN);
         
@@ -305,7 +545,7 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
                 if (payload.length >= 4) {
                     int timestamp = buffer.getShort() & 0xFFFF;
                     int counter = buffer.getShort() & 0xFFFF;
-                    log("ALIVE_RECEIVED: ts=" + timestamp + " cnt=" + counter);
+                    log("ALIVE_RECEIVED: ts=" + timestamp + " cnt=" + counter, rxNanos);
                 }
                 break;
                 
@@ -313,7 +553,7 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
                 if (payload.length >= 2) {
                     int heightMM = buffer.getShort() & 0xFFFF;
                     double heightCM = heightMM / 10.0;
-                    log("SEAT_HEIGHT_CURRENT: " + heightCM + " cm");
+                    log("SEAT_HEIGHT_CURRENT: " + heightCM + " cm", rxNanos);
                 }
                 break;
                 
@@ -321,7 +561,7 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
                 if (payload.length >= 2) {
                     int slideMM = buffer.getShort() & 0xFFFF;
                     double slideCM = slideMM / 10.0;
-                    log("SEAT_SLIDE_CURRENT: " + slideCM + " cm");
+                    log("SEAT_SLIDE_CURRENT: " + slideCM + " cm", rxNanos);
                 }
                 break;
                 
@@ -329,7 +569,7 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
                 if (payload.length >= 2) {
                     int inclineMRad = buffer.getShort();
                     double inclineDeg = Math.toDegrees(inclineMRad / 1000.0);
-                    log("SEAT_INCLINE_CURRENT: " + String.format("%.1f", inclineDeg) + "°");
+                    log("SEAT_INCLINE_CURRENT: " + String.format("%.1f", inclineDeg) + "°", rxNanos);
                 }
                 break;
             
@@ -344,7 +584,10 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
                     double heightCm = heightRaw / 100.0;
                     double slideCm = slideRaw / 100.0;
                     double inclineDeg = inclineRaw / 100.0;
-                    log("PROFILE_DATA: id=" + profileId + " H=" + heightCm + " S=" + slideCm + " I=" + inclineDeg);
+                    log("PROFILE_DATA: id=" + profileId + " H=" + heightCm + " S=" + slideCm + " I=" + inclineDeg, rxNanos);
+                    Profile profile = new Profile(profileId, heightCm, slideCm, inclineDeg);
+                    profileCache.put(profile);
+                    requests.complete(requestKey(CMD_LOAD_PROFILE, profileId), profile);
                     if (listener != null) {
                         Map<String, Object> data = new HashMap<>();
                         data.put("id", profileId);
@@ -352,20 +595,32 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
                         data.put("slideCm", slideCm);
                         data.put("inclineDeg", inclineDeg);
                         TraceListener l = listener;
-                        SwingUtilities.invokeLater(() -> l.onSeatControllerMessage(TraceListener.SeatControllerMessageType.USER_PROFILE_DATA, data));
+                        dispatcher.execute(() -> l.onSeatControllerMessage(TraceListener.SeatControllerMessageType.USER_PROFILE_DATA, data));
                     }
                 }
                 break;
                 
+            case CMD_SAVE_PROFILE:
+            case (byte)0xE0: // Possible response code for SAVE_PROFILE
+                // Expected payload: [u8 id][u8 status (optional, 0 = OK)]; longer payloads are echoed requests
+                if (payload.length >= 1 && payload.length <= 2) {
+                    int profileId = payload[0] & 0xFF;
+                    int status = payload.length >= 2 ? payload[1] & 0xFF : 0;
+                    log("PROFILE_SAVED: id=" + profileId + " status=" + status, rxNanos);
+                    requests.complete(requestKey(CMD_SAVE_PROFILE, profileId),
+                        new Ack(CMD_SAVE_PROFILE & 0xFF, profileId, status));
+                }
+                break;
+                
             default:
                 log("UNKNOWN_RESPONSE: cmdId=0x" + Integer.toHexString(cmdId & 0xFF) + 
-                    " payload=" + bytesToHex(payload, payload.length));
+                    " payload=" + bytesToHex(payload, payload.length), rxNanos);
                 break;
         }
     }
 
-    private void handleTextData(byte[] data, int len) {
-        String part = new String(data, 0, len, java.nio.charset.StandardCharsets.UTF_8);
+    private void handleTextData(byte[] data, int offset, int len, long rxNanos) {
+        String part = new String(data, offset, len, java.nio.charset.StandardCharsets.UTF_8);
         textBuffer.append(part);
 
         // Process complete lines
@@ -374,7 +629,7 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
         while ((newlinePos = content.indexOf('\n')) != -1) {
             String line = content.substring(0, newlinePos).trim();
             if (!line.isEmpty()) {
-                log("DEBUG: " + line);
+                log("DEBUG: " + line, rxNanos);
             }
             content = content.substring(newlinePos + 1);
         }
@@ -385,15 +640,41 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
         
         // If buffer gets too long without newline, dump it
         if (textBuffer.length() > 500) {
-            log("PARTIAL: " + textBuffer.toString());
+            log("PARTIAL: " + textBuffer.toString(), rxNanos);
             textBuffer.setLength(0);
         }
     }
 
+    private void logTx(String message) {
+        if (cyclicTxTrace) log(message);
+    }
+
     private void log(String message) {
-        if (listener != null) {
-            SwingUtilities.invokeLater(() -> listener.onTrace(message));
+        dispatchTrace(message, System.nanoTime(), null);
+    }
+
+    /**
+     * Trace a message from the receive path, stamped with the frame's read time
+     * Serial reader thread only; the first trace of a sampled frame completes its span.
+     */
+    private void log(String message, long rxNanos) {
+        PipelineTracer.Span span = rxSpan;
+        rxSpan = null;
+        dispatchTrace(message, rxNanos, span);
+    }
+
+    private void dispatchTrace(String message, long nanoTime, PipelineTracer.Span span) {
+        if (listener == null) return;
+        if (span == null) {
+            dispatcher.execute(() -> listener.onTrace(message, nanoTime));
+            return;
         }
+        span.mark(PipelineTracer.Stage.ENQUEUED);
+        dispatcher.execute(() -> {
+            span.mark(PipelineTracer.Stage.DEQUEUED);
+            listener.onTrace(message, nanoTime);
+            pipelineTracer.complete(span);
+        });
     }
 
     private String bytesToHex(byte[] data, int len) {
@@ -406,16 +687,20 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
 
     @Override
     public void close() {
+        stopCyclicMessages();
+        aliveSupervisor.stop();
         serial.disconnect();
+        requests.failAll(new IllegalStateException("Connection closed"));
+        profileCache.flush();
         if (listener != null) {
             TraceListener l = listener;
-            SwingUtilities.invokeLater(() -> l.onConnectionStatus(false, "", "UART"));
+            dispatcher.execute(() -> l.onConnectionStatus(false, "", "UART"));
         }
     }
     
     // Additional utility methods for raw communication
     public void sendRaw(byte[] data) {
-        serial.send(data);
+        transmit(data);
         log("RAW_SENT: " + bytesToHex(data, data.length));
     }
     
@@ -432,12 +717,146 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
         return serial.getStatistics();
     }
 
+    public TrafficCounters getTrafficCounters() {
+        return counters;
+    }
+
+    public AliveSupervisor getAliveSupervisor() {
+        return aliveSupervisor;
+    }
+
+    /**
+     * Optional per-stage latency tracing of received frames (off by default)
+     */
+    public PipelineTracer getPipelineTracer() {
+        return pipelineTracer;
+    }
+
+    /**
+     * ECU-to-host clock alignment from the ALIVE timestamps
+     */
+    public EcuClock getEcuClock() {
+        return ecuClock;
+    }
+
+    public int getSendQueueDepth() {
+        return serial.getSendQueueDepth();
+    }
+
+    /**
+     * Enable/disable the per-frame trace of cyclic ALIVE/GEARBOX transmissions
+     */
+    public void setCyclicTxTrace(boolean enabled) {
+        this.cyclicTxTrace = enabled;
+    }
+
+    // ======= CYCLIC MESSAGES =======
+
+    private CyclicScheduler cyclicScheduler;
+    private final List<CyclicScheduler.Task> cyclicTasks = new ArrayList<>();
+    private boolean cyclicShared;
+    private volatile double simHeightCm = 3.5, simSlideCm = 5.0, simInclineDeg = 85.0;
+    private int cyclicAliveCounter = 0;
+    private int cyclicGear = 1;
+
+    /**
+     * Start the spec cycles: ALIVE 5 ms, GEARBOX_STATUS 10 ms, current position 2 ms
+     * The per-frame TX trace is muted while they run. Cycles pause (nothing is
+     * queued) while the link is reconnecting and stop once it is closed.
+     * @return false if not connected
+     */
+    public boolean startCyclicMessages() {
+        return startCyclicMessages(null);
+    }
+
+    /**
+     * Start the spec cycles on a shared scheduler (null = a dedicated one)
+     * A shared scheduler keeps running when the link drops; the cycles are
+     * removed from it by stopCyclicMessages() and close().
+     */
+    public synchronized boolean startCyclicMessages(CyclicScheduler shared) {
+        if (!isConnected()) return false;
+        if (cyclicScheduler != null && cyclicScheduler.isRunning()) return true;
+
+        CyclicScheduler scheduler = shared != null ? shared : new CyclicScheduler("CyclicTx");
+        cyclicTasks.clear();
+        cyclicTasks.add(scheduler.addTask("ALIVE", 5_000_000L, () -> {
+            if (isConnected()) sendAliveMessage(System.currentTimeMillis() & 0xFFFF, cyclicAliveCounter++);
+        }));
+        cyclicTasks.add(scheduler.addTask("GEARBOX_STATUS", 10_000_000L, () -> {
+            if (!isConnected()) return;
+            sendGearboxStatus(cyclicGear, 100 + (cyclicAliveCounter % 200), 400);
+            cyclicGear = (cyclicGear % 6) + 1;
+        }));
+        cyclicTasks.add(scheduler.addTask("SEAT_CURRENT", 2_000_000L, () -> {
+            if (isConnected()) sendSeatCurrentPosition(simHeightCm, simSlideCm, simInclineDeg);
+        }));
+        if (shared == null) {
+            scheduler.setRunCondition(() -> serial.isConnected() || serial.isReconnecting());
+        }
+
+        setCyclicTxTrace(false);
+        cyclicScheduler = scheduler;
+        cyclicShared = shared != null;
+        scheduler.start();
+        log("CYCLIC: started (ALIVE 5ms, GEARBOX 10ms, SEAT_CURRENT 2ms)");
+        return true;
+    }
+
+    /**
+     * Stop the spec cycles and log their timing summary
+     * @return the finished scheduler (for its statistics), or null if none was started
+     */
+    public CyclicScheduler stopCyclicMessages() {
+        CyclicScheduler scheduler;
+        List<CyclicScheduler.Task> tasks;
+        boolean shared;
+        synchronized (this) {
+            scheduler = cyclicScheduler;
+            cyclicScheduler = null;
+            tasks = new ArrayList<>(cyclicTasks);
+            cyclicTasks.clear();
+            shared = cyclicShared;
+        }
+        if (scheduler == null) return null;
+        if (shared) {
+            for (CyclicScheduler.Task task : tasks) scheduler.removeTask(task);
+        } else {
+            scheduler.stop();
+        }
+        setCyclicTxTrace(true);
+        for (CyclicScheduler.Task task : tasks) {
+            log("CYCLIC: " + task.toSummaryString());
+        }
+        return scheduler;
+    }
+
+    public synchronized boolean isCyclicRunning() {
+        return cyclicScheduler != null && cyclicScheduler.isRunning();
+    }
+
+    /**
+     * Scheduler of the current cyclic run, or null if not started
+     */
+    public synchronized CyclicScheduler getCyclicScheduler() {
+        return cyclicScheduler;
+    }
+
+    /**
+     * Position reported by the cyclic SEAT_CURRENT frames
+     */
+    public void setSimulatedPosition(double heightCm, double slideCm, double inclineDeg) {
+        this.simHeightCm = heightCm;
+        this.simSlideCm = slideCm;
+        this.simInclineDeg = inclineDeg;
+    }
+
     // SerialComm.DataSink lifecycle callbacks
     @Override
     public void onConnectionEstablished(String portName, int baudRate) {
         if (listener != null) {
             TraceListener l = listener;
-            SwingUtilities.invokeLater(() -> l.onConnectionStatus(true, portName, "UART"));
+            dispatcher.execute(() -> l.onConnectionStatus(true, portName, "UART"));
         }
     }
 
@@ -446,15 +865,91 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
         log("Connection lost: " + reason);
         if (listener != null) {
             TraceListener l = listener;
-            SwingUtilities.invokeLater(() -> l.onConnectionStatus(false, "", "UART"));
+            dispatcher.execute(() -> l.onConnectionStatus(false, "", "UART"));
         }
     }
 
+    @Override
+    public void onConnectionResumed(String portName, long gapMillis) {
+        log("Reconnected to " + portName + " after " + gapMillis + " ms");
+        for (FrameObserver observer : frameObservers) {
+            observer.onLinkResumed(portName, gapMillis);
+        }
+    }
+
+    // ======= AUTO-RECONNECT =======
+
+    public void setAutoReconnect(boolean enable) {
+        serial.setAutoReconnect(enable);
+    }
+
+    public boolean isAutoReconnect() {
+        return serial.isAutoReconnect();
+    }
+
+    public boolean isReconnecting() {
+        return serial.isReconnecting();
+    }
+
+    public void setQueuePolicy(SerialComm.QueuePolicy policy) {
+        serial.setQueuePolicy(policy);
+    }
+
+    public SerialComm.QueuePolicy getQueuePolicy() {
+        return serial.getQueuePolicy();
+    }
+
     @Override
     public void onError(String error) {
         log("ERROR: " + error);
     }
 
+    @Override
+    public void onBytesSent(byte[] data, int len) {
+        if (frameObservers.isEmpty()) return;
+        long txNanos = System.nanoTime();
+        forEachSentFrame(data, len, (cmdId, payload) -> {
+            for (FrameObserver observer : frameObservers) {
+                observer.onFrameSent(cmdId, payload, txNanos);
+            }
+        });
+    }
+
+    /**
+     * Queue bytes for the port; observers see the frames first so they can
+     * recognise them in onFrameSent
+     */
+    private void transmit(byte[] data) {
+        forEachSentFrame(data, data.length, (cmdId, payload) -> {
+            for (FrameObserver observer : frameObservers) {
+                observer.onFrameQueued(cmdId, payload);
+            }
+        });
+        serial.send(data);
+    }
+
+    /**
+     * Frames of a host write (big-endian LEN, as built here); a batched write
+     * carries several back-to-back
+     */
+    private static void forEachSentFrame(byte[] data, int len, FrameScanner.FrameHandler handler) {
+        int pos = 0;
+        while (pos + 8 <= len && data[pos] == HEADER) {
+            int frameLen = ByteBuffer.wrap(data, pos + 1, 4).getInt() + 7;
+            if (frameLen < 8 || pos + frameLen > len) break;
+            handler.onFrame(data[pos + 5] & 0xFF, Arrays.copyOfRange(data, pos + 6, pos + frameLen - 2));
+            pos += frameLen;
+        }
+    }
+
+    public void addFrameObserver(FrameObserver observer) {
+        if (observer != null) frameObservers.add(observer);
+    }
+
+    public void removeFrameObserver(FrameObserver observer) {
+        frameObservers.remove(observer);
+    }
+
     // ======= PROFILE COMMANDS =======
     private static final byte CMD_SAVE_PROFILE = 0x60;
     private static final byte CMD_LOAD_PROFILE = 0x61;
@@ -464,7 +959,8 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
         ByteBuffer payload = ByteBuffer.allocate(1);
         payload.put((byte)(profileId & 0xFF));
         byte[] frame = buildFrame(CMD_SAVE_PROFILE, payload.array());
-        serial.send(frame);
+        profileCache.invalidate(profileId);
+        transmit(frame);
         log("PROFILE_SAVE: id=" + profileId + " (no values provided)");
     }
 
@@ -479,7 +975,8 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
         payload.putShort((short)slideRaw);
         payload.putShort((short)inclineRaw);
         byte[] frame = buildFrame(CMD_SAVE_PROFILE, payload.array());
-        serial.send(frame);
+        profileCache.invalidate(profileId);
+        transmit(frame);
         log("PROFILE_SAVE: id=" + profileId + " H=" + heightCm + " S=" + slideCm + " I=" + inclineDeg);
     }
 
@@ -487,9 +984,147 @@ public class SeatControllerSnifferManager implements SerialComm.DataSink, AutoCl
         ByteBuffer payload = ByteBuffer.allocate(1);
         payload.put((byte)(profileId & 0xFF));
         byte[] frame = buildFrame(CMD_LOAD_PROFILE, payload.array());
-        serial.send(frame);
+        transmit(frame);
         log("PROFILE_LOAD: id=" + profileId);
     }
 
     // saveProfileAt / loadProfileAt removed (EEPROM/address-based access removed)
+
+    // ======= ASYNC REQUEST API =======
+
+    /**
+     * Profile values returned by the ECU
+     */
+    public static class Profile {
+        public final int id;
+        public final double heightCm;
+        public final double slideCm;
+        public final double inclineDeg;
+
+        public Profile(int id, double heightCm, double slideCm, double inclineDeg) {
+            this.id = id;
+            this.heightCm = heightCm;
+            this.slideCm = slideCm;
+            this.inclineDeg = inclineDeg;
+        }
+
+        @Override
+        public String toString() {
+            return "Profile " + id + ": H=" + heightCm + " S=" + slideCm + " I=" + inclineDeg;
+        }
+    }
+
+    /**
+     * Acknowledgement of a write request
+     */
+    public static class Ack {
+        public final int cmdId;
+        public final int id;
+        public final int status;
+
+        public Ack(int cmdId, int id, int status) {
+            this.cmdId = cmdId;
+            this.id = id;
+            this.status = status;
+        }
+
+        public boolean isOk() {
+            return status == 0;
+        }
+
+        @Override
+        public String toString() {
+            return commandName(cmdId) + " id=" + id + (isOk() ? " OK" : " status=" + status);
+        }
+    }
+
+    public static final int PROFILE_SLOTS = 10;
+
+    private final RequestTracker requests = new RequestTracker();
+    private volatile ProfileCache profileCache = ProfileCache.shared(); // per port once started
+    private volatile long requestTimeoutMs = 1000;
+
+    private static int requestKey(byte cmdId, int id) {
+        return ((cmdId & 0x7F) << 8) | (id & 0xFF);
+    }
+
+    public void setRequestTimeoutMs(long timeoutMs) {
+        this.requestTimeoutMs = Math.max(10, timeoutMs);
+    }
+
+    public long getRequestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    /**
+     * Number of async requests still waiting for a response
+     */
+    public int getRequestsInFlight() {
+        return requests.inFlight();
+    }
+
+    /**
+     * Load a profile and complete with the ECU's reply
+     * Fails with TimeoutException if no reply arrives within the request timeout
+     */
+    public CompletableFuture<Profile> loadProfileAsync(int profileId) {
+        CompletableFuture<Profile> notSent = failIfOffline();
+        if (notSent != null) return notSent;
+        CompletableFuture<Profile> future = requests.register(requestKey(CMD_LOAD_PROFILE, profileId),
+            requestTimeoutMs, "LOAD_PROFILE id=" + profileId);
+        loadProfile(profileId);
+        return future;
+    }
+
+    /**
+     * Save a profile and complete with the ECU's acknowledgement
+     */
+    public CompletableFuture<Ack> saveProfileAsync(int profileId, double heightCm, double slideCm, double inclineDeg) {
+        CompletableFuture<Ack> notSent = failIfOffline();
+        if (notSent != null) return notSent;
+        CompletableFuture<Ack> future = requests.register(requestKey(CMD_SAVE_PROFILE, profileId),
+            requestTimeoutMs, "SAVE_PROFILE id=" + profileId);
+        saveProfile(profileId, heightCm, slideCm, inclineDeg);
+        return future;
+    }
+
+    /**
+     * Read all profile slots in one pipelined burst
+     * All requests are queued back to back and their replies collected as they
+     * arrive; slots that fail or time out are left out of the result.
+     */
+    public CompletableFuture<Map<Integer, Profile>> loadAllProfilesAsync() {
+        return loadAllProfilesAsync(PROFILE_SLOTS);
+    }
+
+    public CompletableFuture<Map<Integer, Profile>> loadAllProfilesAsync(int slots) {
+        Map<Integer, Profile> results = new ConcurrentSkipListMap<>();
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[slots];
+        for (int id = 0; id < slots; id++) {
+            int slot = id;
+            pending[id] = loadProfileAsync(id).handle((profile, error) -> {
+                if (profile != null) {
+                    results.put(slot, profile);
+                } else {
+                    log("PROFILE_LOAD failed: id=" + slot + " (" + error.getMessage() + ")");
+                }
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(pending).thenApply(v -> results);
+    }
+
+    /**
+     * Profiles of the ECU on this manager's port
+     */
+    public ProfileCache getProfileCache() {
+        return profileCache;
+    }
+
+    private <T> CompletableFuture<T> failIfOffline() {
+        if (serial.isConnected() || serial.isReconnecting()) return null;
+        CompletableFuture<T> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("Not connected"));
+        return failed;
+    }
 }
\ No newline at end of file
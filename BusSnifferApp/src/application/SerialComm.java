@@ -1,8 +1,14 @@
 package application;
 
 import com.fazecast.jSerialComm.*;
+
+import communication.PortRegistry;
+import communication.PortUtil;
+
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -17,11 +23,60 @@ public class SerialComm {
      */
     public interface DataSink {
         void onBytes(byte[] data, int len);
+
+        /**
+         * Timestamped variant; rxNanos is System.nanoTime() when the read event fired
+         * (see PreciseTiming.toWallMillis for the wall-clock time)
+         */
+        default void onBytes(byte[] data, int len, long rxNanos) {
+            onBytes(data, len);
+        }
         
         // Optional callbacks with default implementations
         default void onConnectionEstablished(String portName, int baudRate) {}
         default void onConnectionLost(String reason) {}
         default void onError(String error) {}
+        default void onBytesSent(byte[] data, int len) {}
+        default void onConnectionResumed(String portName, long gapMillis) {}
+    }
+
+    /**
+     * Drives reads and writes of a connection from a shared thread (see SessionPool)
+     * instead of the per-port jSerialComm event thread and SerialSender thread
+     */
+    public interface IoDriver {
+        void attach(SerialComm comm);
+
+        void detach(SerialComm comm);
+    }
+
+    /**
+     * How a connection reads from the port (a shared IoDriver overrides both)
+     */
+    public enum IoMode {
+        CALLBACK,  // jSerialComm DATA_AVAILABLE events on its event thread
+        BLOCKING   // own reader thread in a blocking read loop
+    }
+
+    /**
+     * What happens to queued outbound frames while the link is down
+     */
+    public enum QueuePolicy {
+        KEEP,   // keep queued frames (and accept new ones) and send them after reconnect
+        DROP    // discard queued frames when the link is lost
+    }
+
+    /**
+     * Queued outbound data and when it was queued
+     */
+    private static final class Outgoing {
+        final byte[] data;
+        final long queuedNanos;
+
+        Outgoing(byte[] data, long queuedNanos) {
+            this.data = data;
+            this.queuedNanos = queuedNanos;
+        }
     }
 
     private SerialPort comPort;
@@ -30,9 +85,14 @@ public class SerialComm {
     
     // Enhanced features
     private final TraceListener.CommStatistics statistics = new TraceListener.CommStatistics();
-    private final BlockingQueue<byte[]> sendQueue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Outgoing> sendQueue = new LinkedBlockingQueue<>();
     private Thread senderThread;
+    private Thread readerThread;
     private volatile boolean running = false;
+    private volatile IoMode ioMode = IoMode.CALLBACK;
+    private final ReadSizer readSizer = new ReadSizer();
+    private IoDriver ioDriver;
+    private Executor receiveExecutor;
     
     // Configuration parameters
     private int readTimeout = 100;  // ms
@@ -40,6 +100,30 @@ public class SerialComm {
     private int maxBufferSize = 4096;
     private boolean enableFlowControl = false;
     private boolean enableEcho = false;
+    
+    // Auto-reconnect
+    private final Object linkLock = new Object();
+    private final ReconnectSupervisor reconnectSupervisor = new ReconnectSupervisor(this::reopen);
+    private volatile boolean autoReconnect = true;
+    private volatile QueuePolicy queuePolicy = QueuePolicy.KEEP;
+    private volatile boolean reconnecting = false;
+    private volatile long linkLostAt = 0;
+    private static final int MAX_QUEUED_WHILE_DOWN = 1024;
+    private int lastBaudRate, lastDataBits, lastStopBits, lastParity;
+    
+    private final PortUtil.PortChangeListener portWatcher = new PortUtil.PortChangeListener() {
+        @Override
+        public void onPortConnected(PortUtil.PortInfo portInfo) {
+        }
+        
+        @Override
+        public void onPortDisconnected(String portName) {
+            SerialPort port = comPort;
+            if (port != null && portName.equals(port.getSystemPortName())) {
+                handleConnectionLoss("Port removed");
+            }
+        }
+    };
 
     /**
      * Enhanced connection method with comprehensive port configuration
@@ -55,10 +139,34 @@ public class SerialComm {
      * Connect with full serial parameters
      */
     public boolean connect(String portName, int baudRate, int dataBits, int stopBits, int parity) {
+        // Close existing connection if any
+        disconnect();
+        
+        synchronized (linkLock) {
+            lastBaudRate = baudRate;
+            lastDataBits = dataBits;
+            lastStopBits = stopBits;
+            lastParity = parity;
+            if (!open(portName)) return false;
+        }
+        
+        if (sink != null) {
+            sink.onConnectionEstablished(portName, baudRate);
+        }
+        
+        System.out.println("Connected to " + portName + " @ " + baudRate + " baud");
+        return true;
+    }
+    
+    /**
+     * Open and configure the port with the last used parameters
+     */
+    private boolean open(String portName) {
+        int baudRate = lastBaudRate;
+        int dataBits = lastDataBits;
+        int stopBits = lastStopBits;
+        int parity = lastParity;
         try {
-            // Close existing connection if any
-            disconnect();
-            
             // Get and configure the port
             comPort = SerialPort.getCommPort(portName);
             if (comPort == null) {
@@ -68,13 +176,12 @@ public class SerialComm {
             
             // Configure serial parameters
             comPort.setBaudRate(baudRate);
+            readSizer.setBaudRate(baudRate);
             comPort.setNumDataBits(dataBits);
             comPort.setNumStopBits(stopBits);
             comPort.setParity(parity);
             
-            // Set timeouts
-            comPort.setComPortTimeouts(SerialPort.TIMEOUT_READ_BLOCKING | SerialPort.TIMEOUT_WRITE_BLOCKING,
-                                     readTimeout, writeTimeout);
+            applyTimeouts(comPort);
             
             // Configure flow control
             if (enableFlowControl) {
@@ -87,37 +194,63 @@ public class SerialComm {
             boolean opened = comPort.openPort();
             if (!opened) {
                 notifyError("Failed to open port " + portName);
+                comPort = null;
                 return false;
             }
             
+            if (ioDriver != null) {
+                connected.set(true);
+                PreciseTiming.reanchorWallClock();
+                statistics.connectionTime = System.currentTimeMillis();
+                ioDriver.attach(this);
+                PortRegistry.getInstance().addListener(portWatcher);
+                return true;
+            }
+            
+            if (ioMode == IoMode.BLOCKING) {
+                connected.set(true);
+                PreciseTiming.reanchorWallClock();
+                statistics.connectionTime = System.currentTimeMillis();
+                // The read loop exits as soon as it sees running == false
+                running = true;
+                startReaderThread(comPort);
+                startSenderThread();
+                PortRegistry.getInstance().addListener(portWatcher);
+                return true;
+            }
+            
             // Setup data listener for incoming data
             comPort.addDataListener(new SerialPortDataListener() {
                 @Override
                 public int getListeningEvents() {
-                    return SerialPort.LISTENING_EVENT_DATA_AVAILABLE;
+                    return SerialPort.LISTENING_EVENT_DATA_AVAILABLE | SerialPort.LISTENING_EVENT_PORT_DISCONNECTED;
                 }
 
                 @Override
                 public void serialEvent(SerialPortEvent event) {
+                    if (event.getEventType() == SerialPort.LISTENING_EVENT_PORT_DISCONNECTED) {
+                        handleConnectionLoss("Port disconnected");
+                        return;
+                    }
                     handleIncomingData();
                 }
             });
             
-            // Start sender thread for queued transmission
-            startSenderThread();
-            
+            // Sender thread must see connected == true before it starts
             connected.set(true);
+            PreciseTiming.reanchorWallClock();
             statistics.connectionTime = System.currentTimeMillis();
             
-            if (sink != null) {
-                sink.onConnectionEstablished(portName, baudRate);
-            }
+            // Start sender thread for queued transmission
+            startSenderThread();
             
-            System.out.println("Connected to " + portName + " @ " + baudRate + " baud");
+            // Hot-unplug is also reported by the shared port registry
+            PortRegistry.getInstance().addListener(portWatcher);
             return true;
             
         } catch (Exception e) {
             notifyError("Connection failed: " + e.getMessage());
+            closePort();
             return false;
         }
     }
@@ -125,44 +258,188 @@ public class SerialComm {
     /**
      * Handle incoming data with robust error handling
      */
-    private void handleIncomingData() {
-        if (!isConnected()) return;
+    private int handleIncomingData() {
+        SerialPort port = comPort; // may be closed by another thread
+        if (!isConnected() || port == null) return 0;
+        long rxNanos = System.nanoTime(); // first byte seen; later frames of a chunk share it
         
         try {
-            int available = comPort.bytesAvailable();
-            if (available <= 0) return;
+            int available = port.bytesAvailable();
+            if (available < 0 && ioDriver != null) {
+                // Polled ports get no PORT_DISCONNECTED event
+                handleConnectionLoss("Port disconnected");
+                return 0;
+            }
+            if (available <= 0) return 0;
+            
+            // A polled port skips reads until a chunk has arrived or the line is idle.
+            // The jSerialComm event thread must not wait, so callback reads are per event.
+            boolean batched = ioDriver != null && readSizer.isBatching();
+            if (ioDriver != null) {
+                if (readSizer.deferRead(available, rxNanos)) return 0;
+                rxNanos = readSizer.getFirstSeenNanos();
+            }
             
             // Limit buffer size to prevent memory issues
             int readSize = Math.min(available, maxBufferSize);
             byte[] buffer = new byte[readSize];
             
-            int bytesRead = comPort.readBytes(buffer, readSize);
+            JfrEvents.SerialRead event = new JfrEvents.SerialRead();
+            event.begin();
+            int bytesRead = port.readBytes(buffer, readSize);
+            event.end();
+            if (event.shouldCommit()) {
+                event.port = port.getSystemPortName();
+                event.bytes = bytesRead;
+                event.available = available;
+                event.commit();
+            }
             
             if (bytesRead > 0) {
-                statistics.messagesReceived++;
-                statistics.bytesReceived += bytesRead;
-                statistics.lastMessageTime = System.currentTimeMillis();
-                
-                if (sink != null) {
-                    // Handle echo suppression if enabled
-                    if (enableEcho) {
-                        sink.onBytes(buffer, bytesRead);
-                    } else {
-                        // Filter out echoed data (simple implementation)
-                        sink.onBytes(buffer, bytesRead);
-                    }
-                }
+                readSizer.recordRead(bytesRead, rxNanos, System.nanoTime(), batched);
+                deliver(buffer, bytesRead, rxNanos);
             }
+            return Math.max(0, bytesRead);
             
         } catch (Exception e) {
             statistics.errors++;
             notifyError("Read error: " + e.getMessage());
             
             // Check if connection is still valid
-            if (!comPort.isOpen()) {
+            if (!port.isOpen()) {
                 handleConnectionLoss("Port unexpectedly closed");
             }
+            return 0;
+        }
+    }
+    
+    private void deliver(byte[] buffer, int bytesRead, long rxNanos) {
+        statistics.messagesReceived++;
+        statistics.bytesReceived += bytesRead;
+        statistics.lastMessageTime = PreciseTiming.toWallMillis(rxNanos);
+        
+        DataSink target = sink;
+        if (target != null) {
+            Executor decoder = receiveExecutor;
+            if (decoder != null) {
+                // Decode on a shared worker; the buffer is not reused
+                decoder.execute(() -> target.onBytes(buffer, bytesRead, rxNanos));
+            } else if (enableEcho) {
+                // Handle echo suppression if enabled
+                target.onBytes(buffer, bytesRead, rxNanos);
+            } else {
+                // Filter out echoed data (simple implementation)
+                target.onBytes(buffer, bytesRead, rxNanos);
+            }
+        }
+    }
+    
+    // ======= BLOCKING I/O =======
+    
+    /**
+     * Select callback or blocking reads; takes effect on the next connect()
+     */
+    public void setIoMode(IoMode mode) {
+        this.ioMode = mode != null ? mode : IoMode.CALLBACK;
+    }
+    
+    public IoMode getIoMode() {
+        return ioMode;
+    }
+    
+    /**
+     * Start the blocking read loop; it exits when the link is closed or lost
+     */
+    private void startReaderThread(SerialPort port) {
+        readerThread = new Thread(() -> readLoop(port));
+        readerThread.setName("SerialReader");
+        readerThread.setDaemon(true);
+        readerThread.setPriority(Thread.MAX_PRIORITY);
+        readerThread.start();
+    }
+    
+    private void readLoop(SerialPort port) {
+        byte[] buffer = new byte[maxBufferSize];
+        while (running && connected.get()) {
+            // Semi-blocking: returns what has arrived once the first byte is there, 0 on timeout
+            JfrEvents.SerialRead event = new JfrEvents.SerialRead();
+            event.begin();
+            int bytesRead = port.readBytes(buffer, buffer.length);
+            long rxNanos = System.nanoTime();
+            if (bytesRead < 0) {
+                if (running) handleConnectionLoss("Port disconnected");
+                break;
+            }
+            if (bytesRead == 0) continue;
+            
+            boolean batched = readSizer.isBatching();
+            if (batched && bytesRead < readSizer.getMinChunk() && bytesRead < buffer.length) {
+                int have = bytesRead;
+                int buffered = readSizer.awaitChunk(() -> {
+                    int a = port.bytesAvailable();
+                    return a < 0 ? a : have + a;
+                }, have);
+                int more = Math.min(buffered, buffer.length) - have;
+                if (more > 0) {
+                    int n = port.readBytes(buffer, more, have);
+                    if (n > 0) bytesRead += n;
+                }
+            }
+            
+            event.end();
+            if (event.shouldCommit()) {
+                event.port = port.getSystemPortName();
+                event.bytes = bytesRead;
+                event.available = bytesRead;
+                event.commit();
+            }
+            try {
+                readSizer.recordRead(bytesRead, rxNanos, System.nanoTime(), batched);
+                deliver(Arrays.copyOf(buffer, bytesRead), bytesRead, rxNanos);
+            } catch (Exception e) {
+                statistics.errors++;
+                notifyError("Read error: " + e.getMessage());
+            }
+        }
+    }
+    
+    // ======= DRIVER-POLLED I/O =======
+    
+    /**
+     * Use a shared I/O driver instead of per-port threads; set before connect()
+     */
+    public void setIoDriver(IoDriver driver) {
+        this.ioDriver = driver;
+    }
+    
+    /**
+     * Hand received chunks to this executor instead of calling the sink on the
+     * reading thread; it must run them in order. Set before connect().
+     */
+    public void setReceiveExecutor(Executor executor) {
+        this.receiveExecutor = executor;
+    }
+    
+    /**
+     * Read whatever is available without blocking (driver thread only)
+     * @return bytes read
+     */
+    int pollRead() {
+        return handleIncomingData();
+    }
+    
+    /**
+     * Write up to maxFrames queued frames (driver thread only)
+     * @return frames written
+     */
+    int pollWrite(int maxFrames) {
+        int n = 0;
+        Outgoing next;
+        while (n < maxFrames && isConnected() && (next = sendQueue.poll()) != null) {
+            if (next.data.length > 0) sendImmediate(next.data, next.queuedNanos);
+            n++;
         }
+        return n;
     }
     
     /**
@@ -173,9 +450,9 @@ public class SerialComm {
         senderThread = new Thread(() -> {
             while (running && isConnected()) {
                 try {
-                    byte[] data = sendQueue.take(); // Blocking wait for data
-                    if (data != null && data.length > 0) {
-                        sendImmediate(data);
+                    Outgoing next = sendQueue.take(); // Blocking wait for data
+                    if (next.data.length > 0) {
+                        sendImmediate(next.data, next.queuedNanos);
                     }
                 } catch (InterruptedException e) {
                     break; // Thread interrupted, exit
@@ -200,8 +477,28 @@ public class SerialComm {
      * Disconnect and cleanup resources
      */
     public void disconnect() {
+        synchronized (linkLock) {
+            reconnecting = false;
+            reconnectSupervisor.stop();
+            closePort();
+        }
+        
+        // Clear send queue
+        sendQueue.clear();
+        
+        System.out.println("Serial port disconnected");
+    }
+    
+    /**
+     * Stop the sender thread and close the port, keeping the send queue
+     */
+    private void closePort() {
         connected.set(false);
         running = false;
+        PortRegistry.getInstance().removeListener(portWatcher);
+        if (ioDriver != null) {
+            ioDriver.detach(this);
+        }
         
         // Stop sender thread
         if (senderThread != null) {
@@ -214,6 +511,17 @@ public class SerialComm {
             senderThread = null;
         }
         
+        // The reader leaves its blocking read within readTimeout; close the port after it
+        Thread reader = readerThread;
+        readerThread = null;
+        if (reader != null && reader != Thread.currentThread()) {
+            try {
+                reader.join(readTimeout + 1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
         // Close serial port
         if (comPort != null) {
             try {
@@ -225,11 +533,6 @@ public class SerialComm {
             }
             comPort = null;
         }
-        
-        // Clear send queue
-        sendQueue.clear();
-        
-        System.out.println("Serial port disconnected");
     }
 
     /**
@@ -245,14 +548,19 @@ public class SerialComm {
     public void send(byte[] data) {
         if (data == null || data.length == 0) return;
         
-        if (!isConnected()) {
+        if (!isConnected() && !(reconnecting && queuePolicy == QueuePolicy.KEEP)) {
             notifyError("Cannot send - not connected");
             return;
         }
         
         try {
+            // While reconnecting keep only the newest frames
+            if (reconnecting && sendQueue.size() >= MAX_QUEUED_WHILE_DOWN) {
+                sendQueue.poll();
+                recordQueueOverflow(1, "queue full while reconnecting");
+            }
             // Add to send queue for thread-safe transmission
-            sendQueue.offer(data.clone());
+            sendQueue.offer(new Outgoing(data.clone(), System.nanoTime()));
         } catch (Exception e) {
             notifyError("Failed to queue data: " + e.getMessage());
         }
@@ -261,29 +569,43 @@ public class SerialComm {
     /**
      * Send data immediately (blocking)
      */
-    private void sendImmediate(byte[] data) {
-        if (!isConnected()) return;
+    private void sendImmediate(byte[] data, long queuedNanos) {
+        SerialPort port = comPort; // may be closed by another thread
+        if (!isConnected() || port == null) return;
         
         try {
-            int bytesWritten = comPort.writeBytes(data, data.length);
+            JfrEvents.SerialWrite event = new JfrEvents.SerialWrite();
+            long writeStart = System.nanoTime();
+            event.begin();
+            int bytesWritten = port.writeBytes(data, data.length);
+            event.end();
+            if (event.shouldCommit()) {
+                event.port = port.getSystemPortName();
+                event.bytes = data.length;
+                event.written = bytesWritten;
+                event.queueWait = writeStart - queuedNanos;
+                event.queueDepth = sendQueue.size();
+                event.commit();
+            }
             
             if (bytesWritten == data.length) {
                 statistics.messagesSent++;
                 statistics.bytesSent += bytesWritten;
+                if (sink != null) {
+                    sink.onBytesSent(data, bytesWritten);
+                }
             } else {
                 statistics.errors++;
                 notifyError("Incomplete write: " + bytesWritten + "/" + data.length + " bytes");
             }
-            
-            // Optional: flush the output
-            comPort.flushIOBuffers();
+            // No flushIOBuffers() here: it would also discard received bytes not yet read
             
         } catch (Exception e) {
             statistics.errors++;
             notifyError("Write error: " + e.getMessage());
             
             // Check connection integrity
-            if (!comPort.isOpen()) {
+            if (!port.isOpen()) {
                 handleConnectionLoss("Port closed during write");
             }
         }
@@ -325,6 +647,13 @@ public class SerialComm {
         return statistics;
     }
     
+    /**
+     * Number of frames queued but not yet written to the port
+     */
+    public int getSendQueueDepth() {
+        return sendQueue.size();
+    }
+    
     /**
      * Reset statistics counters
      */
@@ -332,25 +661,93 @@ public class SerialComm {
         statistics.reset();
     }
     
+    /**
+     * Enable or disable automatic reconnect after a lost link
+     */
+    public void setAutoReconnect(boolean enable) {
+        this.autoReconnect = enable;
+        if (!enable) {
+            synchronized (linkLock) {
+                reconnecting = false;
+                reconnectSupervisor.stop();
+            }
+        }
+    }
+    
+    public boolean isAutoReconnect() {
+        return autoReconnect;
+    }
+    
+    /**
+     * True while the link is lost and a reconnect is in progress
+     */
+    public boolean isReconnecting() {
+        return reconnecting;
+    }
+    
+    public void setQueuePolicy(QueuePolicy policy) {
+        this.queuePolicy = policy;
+    }
+    
+    public QueuePolicy getQueuePolicy() {
+        return queuePolicy;
+    }
+    
+    public ReconnectSupervisor getReconnectSupervisor() {
+        return reconnectSupervisor;
+    }
+    
     /**
      * Configure communication parameters
      */
     public void setReadTimeout(int timeoutMs) {
         this.readTimeout = timeoutMs;
         if (comPort != null && comPort.isOpen()) {
-            comPort.setComPortTimeouts(SerialPort.TIMEOUT_READ_BLOCKING | SerialPort.TIMEOUT_WRITE_BLOCKING,
-                                     readTimeout, writeTimeout);
+            applyTimeouts(comPort);
         }
     }
     
     public void setWriteTimeout(int timeoutMs) {
         this.writeTimeout = timeoutMs;
         if (comPort != null && comPort.isOpen()) {
-            comPort.setComPortTimeouts(SerialPort.TIMEOUT_READ_BLOCKING | SerialPort.TIMEOUT_WRITE_BLOCKING,
-                                     readTimeout, writeTimeout);
+            applyTimeouts(comPort);
         }
     }
     
+    /**
+     * Port timeouts for the current read path
+     */
+    private void applyTimeouts(SerialPort port) {
+        if (ioDriver != null) {
+            // A shared driver polls, so its reads must never block
+            port.setComPortTimeouts(SerialPort.TIMEOUT_NONBLOCKING | SerialPort.TIMEOUT_WRITE_BLOCKING,
+                                  0, writeTimeout);
+        } else if (ioMode == IoMode.BLOCKING) {
+            // Return as soon as any byte arrives; the timeout lets the loop see a disconnect
+            port.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING | SerialPort.TIMEOUT_WRITE_BLOCKING,
+                                  readTimeout, writeTimeout);
+        } else {
+            port.setComPortTimeouts(SerialPort.TIMEOUT_READ_BLOCKING | SerialPort.TIMEOUT_WRITE_BLOCKING,
+                                  readTimeout, writeTimeout);
+        }
+    }
+    
+    /**
+     * Receive mode (per-event, chunked or adaptive) and its per-mode read statistics
+     */
+    public ReadSizer getReadSizer() {
+        return readSizer;
+    }
+    
+    /**
+     * True if the throughput and adaptive receive modes take effect: only the
+     * blocking reader and a shared driver can wait for a chunk; callback reads
+     * stay per event
+     */
+    public boolean supportsBatchedReads() {
+        return ioDriver != null || ioMode == IoMode.BLOCKING;
+    }
+    
     public void setMaxBufferSize(int size) {
         this.maxBufferSize = Math.max(64, Math.min(size, 65536)); // Limit between 64B and 64KB
     }
@@ -386,12 +783,86 @@ public class SerialComm {
         }
     }
     
+    private void recordQueueOverflow(int dropped, String reason) {
+        JfrEvents.SendQueueOverflow event = new JfrEvents.SendQueueOverflow();
+        if (event.shouldCommit()) {
+            SerialPort port = comPort;
+            event.port = port != null ? port.getSystemPortName() : "";
+            event.dropped = dropped;
+            event.reason = reason;
+            event.commit();
+        }
+    }
+    
     private void handleConnectionLoss(String reason) {
-        connected.set(false);
+        if (!connected.getAndSet(false)) return; // already handled
+        
+        // Callers include the jSerialComm event thread and the sender thread,
+        // neither of which may close the port or join itself
+        Thread cleanup = new Thread(() -> {
+            synchronized (linkLock) {
+                SerialPort port = comPort;
+                if (port == null) return; // user disconnected meanwhile
+                
+                ReconnectSupervisor.PortIdentity identity = new ReconnectSupervisor.PortIdentity(
+                    port.getSystemPortName(), port.getVendorID(), port.getProductID(), port.getSerialNumber());
+                linkLostAt = System.currentTimeMillis();
+                JfrEvents.LinkLost lost = new JfrEvents.LinkLost();
+                if (lost.shouldCommit()) {
+                    lost.port = identity.portName;
+                    lost.reason = reason;
+                    lost.commit();
+                }
+                closePort();
+                
+                if (queuePolicy == QueuePolicy.DROP) {
+                    int dropped = sendQueue.size();
+                    sendQueue.clear();
+                    if (dropped > 0) recordQueueOverflow(dropped, "link lost, drop policy");
+                }
+                if (autoReconnect) {
+                    reconnecting = true;
+                    reconnectSupervisor.start(identity);
+                }
+            }
+            
+            if (sink != null) {
+                sink.onConnectionLost(reason);
+            }
+            System.err.println("Connection lost: " + reason);
+        });
+        cleanup.setName("SerialLinkLost");
+        cleanup.setDaemon(true);
+        cleanup.start();
+    }
+    
+    /**
+     * One reconnect attempt, called by the supervisor
+     */
+    private boolean reopen(String portName) {
+        long gap;
+        JfrEvents.Reconnect event = new JfrEvents.Reconnect();
+        synchronized (linkLock) {
+            if (!reconnecting) return false; // user disconnected meanwhile
+            event.begin();
+            boolean ok = open(portName);
+            event.end();
+            gap = System.currentTimeMillis() - linkLostAt;
+            if (event.shouldCommit()) {
+                event.port = portName;
+                event.success = ok;
+                event.downMillis = gap;
+                event.commit();
+            }
+            if (!ok) return false;
+            reconnecting = false;
+        }
+        
         if (sink != null) {
-            sink.onConnectionLost(reason);
+            sink.onConnectionEstablished(portName, lastBaudRate);
+            sink.onConnectionResumed(portName, gap);
         }
-        System.err.println("Connection lost: " + reason);
+        return true;
     }
     
     private byte[] hexStringToBytes(String hex) {
@@ -410,26 +881,4 @@ public class SerialComm {
         }
         return result;
     }
-    
-    /**
-     * Test method for loopback testing
-     */
-    public boolean performLoopbackTest() {
-        if (!isConnected()) return false;
-        
-        byte[] testData = "LOOPBACK_TEST".getBytes();
-        long startTime = System.currentTimeMillis();
-        
-        // This is a simple test - real implementation would need echo detection
-        send(testData);
-        
-        try {
-            Thread.sleep(100); // Wait for potential echo
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return false;
-        }
-        
-        return System.currentTimeMillis() - startTime < 1000; // Test completed within 1 second
-    }
 }
\ No newline at end of file
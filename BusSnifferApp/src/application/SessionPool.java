@@ -0,0 +1,299 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs many ECU sessions (one SeatControllerSnifferManager per port) on a fixed
+ * set of threads, e.g. for an end-of-line tester
+ * A few I/O threads poll the ports of their sessions round-robin, reading what
+ * is available without blocking and writing a bounded burst of queued frames,
+ * so one busy port cannot starve its neighbours. Received chunks are decoded on
+ * shared decode workers; each session has an ordered lane on that pool that
+ * also runs its TraceListener callbacks. Cyclic messages of all sessions share
+ * one scheduler, and timeouts use the shared TimerWheel. The thread count is
+ * I/O + decode + 1 regardless of the number of sessions; only sessions that
+ * are reconnecting briefly use a thread of their own.
+ */
+public class SessionPool implements AutoCloseable {
+
+    private static final int WRITE_BURST = 8;          // frames per session per pass
+    private static final int LANE_BURST = 64;          // tasks per lane per turn
+    private static final long IDLE_PARK_NS = 200_000L; // 200 us
+
+    /**
+     * Runs the tasks of one session in order on the shared decode pool
+     * A lane gives up its worker after LANE_BURST tasks, so sessions take turns.
+     */
+    private final class Lane implements Executor, Runnable {
+        private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private final AtomicInteger backlog = new AtomicInteger();
+
+        @Override
+        public void execute(Runnable task) {
+            queue.offer(task);
+            backlog.incrementAndGet();
+            if (scheduled.compareAndSet(false, true)) {
+                submit();
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < LANE_BURST; i++) {
+                Runnable task = queue.poll();
+                if (task == null) break;
+                backlog.decrementAndGet();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Session task failed: " + e.getMessage());
+                }
+            }
+            scheduled.set(false);
+            // Re-check: a producer may have enqueued after the last poll
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                submit();
+            }
+        }
+
+        private void submit() {
+            try {
+                decodePool.execute(this);
+            } catch (RejectedExecutionException e) {
+                queue.clear(); // pool shut down
+                backlog.set(0);
+            }
+        }
+    }
+
+    /**
+     * Polls the ports of its sessions
+     */
+    private final class IoWorker implements SerialComm.IoDriver, Runnable {
+        private final List<SerialComm> ports = new CopyOnWriteArrayList<>();
+        private final Thread thread;
+        private volatile long passes;
+        private volatile long bytesRead;
+        private volatile long framesWritten;
+
+        IoWorker(int index) {
+            thread = new Thread(this);
+            thread.setName("SessionIo-" + index);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void attach(SerialComm comm) {
+            if (!ports.contains(comm)) ports.add(comm);
+        }
+
+        @Override
+        public void detach(SerialComm comm) {
+            ports.remove(comm);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                int work = 0;
+                for (SerialComm comm : ports) {
+                    int n = comm.pollRead();
+                    int w = comm.pollWrite(WRITE_BURST);
+                    bytesRead += n;
+                    framesWritten += w;
+                    work += n + w;
+                }
+                passes++;
+                if (work == 0) LockSupport.parkNanos(IDLE_PARK_NS);
+            }
+        }
+    }
+
+    /**
+     * One ECU connection in the pool
+     */
+    public static final class Session {
+        private final String name;
+        private final String portName;
+        private final SeatControllerSnifferManager manager;
+        private final IoWorker worker;
+        private final Lane lane;
+
+        private Session(String name, String portName, SeatControllerSnifferManager manager, IoWorker worker, Lane lane) {
+            this.name = name;
+            this.portName = portName;
+            this.manager = manager;
+            this.worker = worker;
+            this.lane = lane;
+        }
+
+        public String getName() { return name; }
+        public String getPortName() { return portName; }
+        public SeatControllerSnifferManager getManager() { return manager; }
+
+        /**
+         * Chunks and callbacks waiting for a decode worker
+         */
+        public int getDecodeBacklog() {
+            return lane.backlog.get();
+        }
+    }
+
+    private final IoWorker[] workers;
+    private final ExecutorService decodePool;
+    private final int decodeThreads;
+    private final CyclicScheduler timers = new CyclicScheduler("SessionCyclic");
+    private final List<Session> sessions = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+
+    /**
+     * @param ioThreads threads polling the ports
+     * @param decodeThreads threads decoding frames and running callbacks
+     */
+    public SessionPool(int ioThreads, int decodeThreads) {
+        workers = new IoWorker[Math.max(1, ioThreads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new IoWorker(i);
+            workers[i].thread.start();
+        }
+        this.decodeThreads = Math.max(1, decodeThreads);
+        AtomicInteger decodeIndex = new AtomicInteger();
+        decodePool = Executors.newFixedThreadPool(this.decodeThreads, r -> {
+            Thread t = new Thread(r);
+            t.setName("SessionDecode-" + decodeIndex.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Pool sized for the machine: 2 I/O threads, half the cores for decoding
+     */
+    public SessionPool() {
+        this(2, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Connect a new session; it is served by the I/O thread with the fewest ports
+     * @param listener trace callbacks, run on the session's decode lane (may be null)
+     * @return null if the port could not be opened
+     */
+    public Session open(String name, String portName, int baud, TraceListener listener) {
+        if (!running) return null;
+        IoWorker worker = workers[0];
+        for (IoWorker w : workers) {
+            if (assigned(w) < assigned(worker)) worker = w;
+        }
+        Lane lane = new Lane();
+        SeatControllerSnifferManager manager = new SeatControllerSnifferManager(listener);
+        manager.setIoDriver(worker, lane);
+        manager.setDispatcher(lane);
+        Session session = new Session(name, portName, manager, worker, lane);
+        // Count it before connecting so concurrent opens spread over the workers
+        sessions.add(session);
+        if (!manager.start(portName, baud)) {
+            sessions.remove(session);
+            manager.close();
+            return null;
+        }
+        return session;
+    }
+
+    private int assigned(IoWorker worker) {
+        int n = 0;
+        for (Session s : sessions) {
+            if (s.worker == worker) n++;
+        }
+        return n;
+    }
+
+    /**
+     * Close one session
+     */
+    public void close(Session session) {
+        if (sessions.remove(session)) {
+            session.manager.close();
+        }
+    }
+
+    /**
+     * Start the spec cycles of a session on the shared scheduler
+     */
+    public boolean startCyclic(Session session) {
+        return session.manager.startCyclicMessages(timers);
+    }
+
+    public void stopCyclic(Session session) {
+        session.manager.stopCyclicMessages();
+    }
+
+    /**
+     * Scheduler shared by the cyclic messages of all sessions
+     */
+    public CyclicScheduler getTimers() {
+        return timers;
+    }
+
+    public List<Session> getSessions() {
+        return new ArrayList<>(sessions);
+    }
+
+    /**
+     * Threads owned by the pool (I/O, decode and the cyclic scheduler)
+     */
+    public int getThreadCount() {
+        return workers.length + decodeThreads + (timers.isRunning() ? 1 : 0);
+    }
+
+    @Override
+    public void close() {
+        for (Session s : sessions) s.manager.close();
+        sessions.clear();
+        running = false;
+        timers.stop();
+        for (IoWorker w : workers) {
+            try {
+                w.thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        decodePool.shutdown();
+        try {
+            decodePool.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String toSummaryString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d sessions on %d threads, cyclic jitter %s",
+            sessions.size(), getThreadCount(), timers.getJitter().toSummaryString()));
+        for (int i = 0; i < workers.length; i++) {
+            IoWorker w = workers[i];
+            sb.append(String.format("%n  io-%d ports=%d passes=%d rx=%d B tx=%d frames",
+                i, w.ports.size(), w.passes, w.bytesRead, w.framesWritten));
+        }
+        for (Session s : sessions) {
+            TraceListener.CommStatistics stats = s.manager.getStatistics();
+            sb.append(String.format("%n  %-10s %s %s rx=%d B tx=%d B queue=%d backlog=%d alive missing=%d",
+                s.name, s.portName, s.manager.isConnected() ? "up" : "down",
+                stats.bytesReceived, stats.bytesSent, s.manager.getSendQueueDepth(),
+                s.getDecodeBacklog(), s.manager.getAliveSupervisor().getMissing()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,145 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timer wheel for many short, mostly cancelled timeouts
+ * Scheduling and cancelling are O(1) and allocation-light; one daemon thread
+ * advances the wheel every tick and runs expired tasks. Expiry is accurate to
+ * one tick, which is plenty for request timeouts.
+ */
+public class TimerWheel {
+
+    private static final TimerWheel SHARED = new TimerWheel(10, 512);
+
+    /**
+     * Handle for a scheduled task
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private long remainingRounds;
+
+        Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * @return true if the task had not run yet and now never will
+         */
+        public boolean cancel() {
+            return done.compareAndSet(false, true);
+        }
+
+        public boolean isDone() {
+            return done.get();
+        }
+    }
+
+    private static final class Pending {
+        final Timeout timeout;
+        final long deadlineNanos;
+
+        Pending(Timeout timeout, long deadlineNanos) {
+            this.timeout = timeout;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    private final long tickNanos;
+    private final List<Timeout>[] wheel;
+    private final int mask;
+    private final ConcurrentLinkedQueue<Pending> incoming = new ConcurrentLinkedQueue<>();
+
+    private final long startNanos;
+    private long tick = 0;
+    private Thread worker;
+
+    /**
+     * The process-wide wheel (10 ms ticks)
+     */
+    public static TimerWheel shared() {
+        return SHARED;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(long tickMs, int slots) {
+        int size = Integer.highestOneBit(Math.max(2, slots - 1) << 1); // round up to a power of two
+        this.tickNanos = tickMs * 1_000_000L;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) wheel[i] = new ArrayList<>();
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Run task after delayMs unless cancelled first
+     */
+    public Timeout schedule(Runnable task, long delayMs) {
+        Timeout t = new Timeout(task);
+        incoming.add(new Pending(t, System.nanoTime() + Math.max(0, delayMs) * 1_000_000L));
+        ensureStarted();
+        return t;
+    }
+
+    private synchronized void ensureStarted() {
+        if (worker != null) return;
+        worker = new Thread(this::run);
+        worker.setName("TimerWheel");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void run() {
+        while (true) {
+            long nextTickAt = startNanos + tick * tickNanos;
+            long wait;
+            while ((wait = nextTickAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            transferIncoming();
+            List<Timeout> bucket = wheel[(int) (tick & mask)];
+            for (int i = bucket.size() - 1; i >= 0; i--) {
+                Timeout t = bucket.get(i);
+                if (t.isDone()) {
+                    removeAt(bucket, i);
+                } else if (t.remainingRounds <= 0) {
+                    removeAt(bucket, i);
+                    if (t.done.compareAndSet(false, true)) {
+                        try {
+                            t.task.run();
+                        } catch (Exception e) {
+                            System.err.println("Timer task failed: " + e.getMessage());
+                        }
+                    }
+                } else {
+                    t.remainingRounds--;
+                }
+            }
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Pending p;
+        while ((p = incoming.poll()) != null) {
+            if (p.timeout.isDone()) continue;
+            long ticks = (p.deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+            ticks = Math.max(ticks, tick); // already due: fire on the current tick
+            p.timeout.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(p.timeout);
+        }
+    }
+
+    // Swap-remove; order within a bucket does not matter
+    private static void removeAt(List<Timeout> bucket, int i) {
+        int last = bucket.size() - 1;
+        bucket.set(i, bucket.get(last));
+        bucket.remove(last);
+    }
+}
@@ -12,12 +12,36 @@ public interface TraceListener {
      */
     void onTrace(String message);
 
+    /**
+     * Timestamped variant of onTrace
+     * @param nanoTime System.nanoTime() when the traced event happened
+     */
+    default void onTrace(String message, long nanoTime) {
+        onTrace(message);
+    }
+
     /**
      * Called when a binary frame is received
      * @param data The raw frame data
      * @param len The length of valid data in the array
      */
     void onFrame(byte[] data, int len);
+
+    /**
+     * Timestamped variant of onFrame
+     * @param rxNanos System.nanoTime() when the frame was read
+     */
+    default void onFrame(byte[] data, int len, long rxNanos) {
+        onFrame(data, len);
+    }
+
+    /**
+     * Variant with the frame's aligned ECU time
+     * @param ecuMillis ms on the unwrapped ECU timeline (EcuClock), NaN until aligned
+     */
+    default void onFrame(byte[] data, int len, long rxNanos, double ecuMillis) {
+        onFrame(data, len, rxNanos);
+    }
     
     /**
      * Called when a specific seat controller message is parsed
@@ -109,7 +133,7 @@ public interface TraceListener {
      */
     class CommStatistics {
         public long messagesReceived = 0;
-        public long messagesSent = 0;
+        public long messagesSent = 0; // serial writes; a batch of several frames counts once
         public long errors = 0;
         public long bytesReceived = 0;
         public long bytesSent = 0;
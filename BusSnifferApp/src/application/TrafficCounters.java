@@ -0,0 +1,137 @@
+package application;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Always-on per-command traffic counters for live displays
+ * Updated with a few atomic increments per frame on the serial threads;
+ * readers take cheap snapshots and compute rates from snapshot deltas
+ */
+public class TrafficCounters implements SeatControllerSnifferManager.FrameObserver {
+
+    // UART frame overhead: HEADER + LEN(4) + CMD + CHECKSUM + TAIL
+    public static final int FRAME_OVERHEAD = 8;
+
+    private static final int CMD_ALIVE_MSG = 0x10;
+
+    private final AtomicLongArray rxFrames = new AtomicLongArray(256);
+    private final AtomicLongArray rxBytes = new AtomicLongArray(256);
+    private final AtomicLongArray txFrames = new AtomicLongArray(256);
+    private final AtomicLongArray txBytes = new AtomicLongArray(256);
+    private final AtomicLongArray lastTxNanos = new AtomicLongArray(256);
+
+    private final AtomicLong decodeErrors = new AtomicLong();
+    private final AtomicLong aliveGaps = new AtomicLong();
+    private volatile int lastAliveCounter = -1;
+
+    private final LatencyHistogram responseLatency = new LatencyHistogram();
+
+    /**
+     * Immutable point-in-time copy of all counters
+     */
+    public static class Snapshot {
+        public final long nanoTime;
+        public final long[] rxFrames = new long[256];
+        public final long[] rxBytes = new long[256];
+        public final long[] txFrames = new long[256];
+        public final long[] txBytes = new long[256];
+        public long decodeErrors;
+        public long aliveGaps;
+
+        Snapshot(long nanoTime) {
+            this.nanoTime = nanoTime;
+        }
+
+        public long totalRxFrames() { return sum(rxFrames); }
+        public long totalTxFrames() { return sum(txFrames); }
+        public long totalRxBytes() { return sum(rxBytes); }
+        public long totalTxBytes() { return sum(txBytes); }
+
+        private static long sum(long[] values) {
+            long total = 0;
+            for (long v : values) total += v;
+            return total;
+        }
+    }
+
+    @Override
+    public void onFrameReceived(int cmdId, byte[] payload, long rxNanos) {
+        rxFrames.incrementAndGet(cmdId);
+        rxBytes.addAndGet(cmdId, payload.length + FRAME_OVERHEAD);
+
+        // Response latency: last request with the same ID (or ID - 0x80 for replies)
+        int requestId = (cmdId & 0x80) != 0 ? cmdId & 0x7F : cmdId;
+        long tx = lastTxNanos.getAndSet(requestId, 0);
+        if (tx != 0 && rxNanos - tx >= 0 && !isCyclic(requestId)) {
+            responseLatency.record(rxNanos - tx);
+        }
+
+        if (cmdId == CMD_ALIVE_MSG && payload.length >= 4) {
+            int counter = (payload[2] & 0xFF) | ((payload[3] & 0xFF) << 8);
+            int last = lastAliveCounter;
+            if (last >= 0) {
+                int missing = ((counter - last) & 0xFFFF) - 1;
+                if (missing > 0) aliveGaps.addAndGet(missing);
+            }
+            lastAliveCounter = counter;
+        }
+    }
+
+    @Override
+    public void onFrameSent(int cmdId, byte[] payload, long txNanos) {
+        txFrames.incrementAndGet(cmdId);
+        txBytes.addAndGet(cmdId, payload.length + FRAME_OVERHEAD);
+        lastTxNanos.set(cmdId, txNanos);
+    }
+
+    @Override
+    public void onLinkResumed(String portName, long gapMillis) {
+        // Alive frames missed while the link was down are an outage, not bus gaps
+        lastAliveCounter = -1;
+    }
+
+    // Periodic messages are not request/response pairs
+    private static boolean isCyclic(int cmdId) {
+        return cmdId == CMD_ALIVE_MSG || cmdId == 0x11 || (cmdId >= 0x30 && cmdId <= 0x32);
+    }
+
+    public void recordDecodeError() {
+        decodeErrors.incrementAndGet();
+    }
+
+    public Snapshot snapshot() {
+        Snapshot s = new Snapshot(System.nanoTime());
+        for (int i = 0; i < 256; i++) {
+            s.rxFrames[i] = rxFrames.get(i);
+            s.rxBytes[i] = rxBytes.get(i);
+            s.txFrames[i] = txFrames.get(i);
+            s.txBytes[i] = txBytes.get(i);
+        }
+        s.decodeErrors = decodeErrors.get();
+        s.aliveGaps = aliveGaps.get();
+        return s;
+    }
+
+    public LatencyHistogram getResponseLatency() {
+        return responseLatency;
+    }
+
+    public long getDecodeErrors() {
+        return decodeErrors.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < 256; i++) {
+            rxFrames.set(i, 0);
+            rxBytes.set(i, 0);
+            txFrames.set(i, 0);
+            txBytes.set(i, 0);
+            lastTxNanos.set(i, 0);
+        }
+        decodeErrors.set(0);
+        aliveGaps.set(0);
+        lastAliveCounter = -1;
+        responseLatency.reset();
+    }
+}
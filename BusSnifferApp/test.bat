@@ -0,0 +1,18 @@
+@echo off
+cd /d %~dp0
+if not exist out-test mkdir out-test
+set JAR=lib\jSerialComm-2.11.2.jar
+echo Compiling checks...
+javac -encoding UTF-8 -cp "%JAR%" -d out-test src\application\*.java communication\*.java test\application\*.java
+if errorlevel 1 (
+  echo Build FAILED.
+  pause
+  exit /b 1
+)
+java -Djava.awt.headless=true -cp "out-test;%JAR%" application.AllChecks
+if errorlevel 1 (
+  echo Checks FAILED.
+  pause
+  exit /b 1
+)
+pause
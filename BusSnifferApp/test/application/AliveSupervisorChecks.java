@@ -0,0 +1,114 @@
+package application;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AliveSupervisor counter classification on synthetic ALIVE frames, and the stall alarm
+ */
+final class AliveSupervisorChecks {
+
+    private static final int CMD_ALIVE = 0x10;
+    private static final long PERIOD = AliveSupervisor.NOMINAL_PERIOD_NANOS;
+
+    static void run(Check c) throws Exception {
+        checkSequence(c);
+        checkResync(c);
+        checkStall(c);
+    }
+
+    // In-sequence, gap, late and duplicate frames around the u16 wrap
+    private static void checkSequence(Check c) {
+        AliveSupervisor s = new AliveSupervisor();
+        long t = 1_000_000_000L;
+        for (int counter : new int[] { 0xFFFD, 0xFFFE, 0xFFFF, 0x0000, 0x0001 }) {
+            alive(s, counter, t);
+            t += PERIOD;
+        }
+        c.equal(5, s.getReceived(), "frames received");
+        c.equal(4, s.getInSequence(), "counter continues across the u16 wrap");
+        c.equal(0, s.getMissing(), "no gap across the wrap");
+        c.isTrue(s.getJitter().getMax() < 1_000, "exact 5 ms spacing has no jitter");
+
+        alive(s, 0x0004, t += 3 * PERIOD); // 2 and 3 skipped
+        c.equal(2, s.getMissing(), "gap counts the skipped counters");
+        alive(s, 0x0002, t += 100_000);
+        c.equal(1, s.getLate(), "older unseen counter is late");
+        c.equal(1, s.getMissing(), "late frame is no longer missing");
+        alive(s, 0x0002, t += 100_000);
+        c.equal(1, s.getDuplicates(), "late counter seen twice is a duplicate");
+        alive(s, 0x0004, t += 100_000);
+        c.equal(2, s.getDuplicates(), "newest counter repeated is a duplicate");
+        c.equal(1, s.getLate(), "duplicates are not late");
+
+        // Gap across the wrap, then a frame older than the 64-frame bitmap
+        AliveSupervisor w = new AliveSupervisor();
+        alive(w, 0xFFFF, t);
+        alive(w, 0x0001, t += 2 * PERIOD);
+        c.equal(1, w.getMissing(), "gap across the wrap counts 0x0000");
+        alive(w, 0xFF00, t += PERIOD);
+        c.equal(1, w.getLate(), "frame outside the bitmap but near is late");
+        c.equal(1, w.getMissing(), "outside the bitmap the missing count stays");
+        c.equal(0, w.getResyncs(), "near frames do not resync");
+    }
+
+    // Restarts and link outages start a new sequence instead of counting a gap
+    private static void checkResync(Check c) {
+        AliveSupervisor s = new AliveSupervisor();
+        long t = 1_000_000_000L;
+        alive(s, 100, t);
+        alive(s, 101, t += PERIOD);
+        alive(s, 5000, t += PERIOD);
+        c.equal(1, s.getResyncs(), "large jump resyncs");
+        c.equal(0, s.getMissing(), "resync is not counted as missing");
+
+        alive(s, 4999, t += PERIOD);
+        c.equal(1, s.getLate(), "frame just before the resync point is late");
+        c.equal(0, s.getMissing(), "validMask: no missing correction from before the resync");
+
+        s.onLinkResumed("COM1", 2000);
+        alive(s, 20000, t += 2_000_000_000L);
+        c.equal(1, s.getResyncs(), "first frame after a link outage starts over silently");
+        c.equal(0, s.getMissing(), "frames lost during the outage are not counter gaps");
+        alive(s, 20001, t += PERIOD);
+        c.equal(2, s.getInSequence(), "sequence continues after the outage");
+
+        s.reset();
+        c.equal(0, s.getReceived(), "reset clears the counters");
+    }
+
+    private static void checkStall(Check c) throws Exception {
+        AliveSupervisor s = new AliveSupervisor();
+        s.setStallTimeoutMs(30);
+        CountDownLatch stalled = new CountDownLatch(1);
+        AtomicLong recoveredAfter = new AtomicLong(-1);
+        s.setStallListener(new AliveSupervisor.StallListener() {
+            @Override
+            public void onAliveStall(long silentMillis) {
+                stalled.countDown();
+            }
+
+            @Override
+            public void onAliveRecovered(long stalledMillis) {
+                recoveredAfter.set(stalledMillis);
+            }
+        });
+
+        alive(s, 1, System.nanoTime());
+        c.isTrue(stalled.await(2, TimeUnit.SECONDS), "stall alarm after the timeout");
+        c.isTrue(s.isStalled(), "supervisor reports the stall");
+        c.equal(1, s.getStalls(), "one stall counted");
+
+        alive(s, 2, System.nanoTime());
+        c.isTrue(!s.isStalled(), "next ALIVE clears the stall");
+        c.isTrue(recoveredAfter.get() >= 30, "recovery reports the stall length (" + recoveredAfter.get() + " ms)");
+        c.equal(0, s.getJitter().getCount(), "stall silence is not recorded as jitter");
+        s.stop();
+    }
+
+    private static void alive(AliveSupervisor s, int counter, long rxNanos) {
+        byte[] payload = { 0, 0, (byte) counter, (byte) (counter >> 8) };
+        s.onFrameReceived(CMD_ALIVE, payload, rxNanos);
+    }
+}
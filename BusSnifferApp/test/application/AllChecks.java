@@ -0,0 +1,41 @@
+package application;
+
+/**
+ * Runs every check suite and exits non-zero if any check failed
+ * Build and run with test.bat (or the javac/java lines in it).
+ */
+public class AllChecks {
+
+    interface Suite {
+        void run(Check check) throws Exception;
+    }
+
+    public static void main(String[] args) {
+        int failed = 0;
+        failed += run("PreciseTiming", PreciseTimingChecks::run);
+        failed += run("LatencyHistogram", LatencyHistogramChecks::run);
+        failed += run("MpscRing", MpscRingChecks::run);
+        failed += run("FrameScanner", FrameScannerChecks::run);
+        failed += run("TimerWheel", TimerWheelChecks::run);
+        failed += run("MultiPortCapture", MultiPortCaptureChecks::run);
+        failed += run("SnifferManager", SnifferManagerChecks::run);
+        failed += run("ReadSizer", ReadSizerChecks::run);
+        failed += run("RttTester", RttTesterChecks::run);
+        failed += run("AliveSupervisor", AliveSupervisorChecks::run);
+        failed += run("EcuClock", EcuClockChecks::run);
+        failed += run("CyclicScheduler", CyclicSchedulerChecks::run);
+        System.out.println(failed == 0 ? "All checks passed" : failed + " check(s) FAILED");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    private static int run(String name, Suite suite) {
+        Check check = new Check(name);
+        try {
+            suite.run(check);
+        } catch (Exception e) {
+            check.isTrue(false, "threw " + e);
+        }
+        System.out.printf("%-20s %3d passed, %d failed%n", name, check.getPassed(), check.getFailed());
+        return check.getFailed();
+    }
+}
@@ -0,0 +1,42 @@
+package application;
+
+/**
+ * Minimal assertion helper for the plain-Java checks under test/
+ * (the tree builds with javac alone, so there is no test framework)
+ */
+final class Check {
+
+    private final String suite;
+    private int passed;
+    private int failed;
+
+    Check(String suite) {
+        this.suite = suite;
+    }
+
+    void isTrue(boolean condition, String what) {
+        if (condition) {
+            passed++;
+        } else {
+            failed++;
+            System.err.println("  FAIL " + suite + ": " + what);
+        }
+    }
+
+    void equal(long expected, long actual, String what) {
+        isTrue(expected == actual, what + " (expected " + expected + ", got " + actual + ")");
+    }
+
+    void equal(Object expected, Object actual, String what) {
+        boolean same = expected == null ? actual == null : expected.equals(actual);
+        isTrue(same, what + " (expected " + expected + ", got " + actual + ")");
+    }
+
+    int getPassed() {
+        return passed;
+    }
+
+    int getFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,41 @@
+package application;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CyclicScheduler releases and missed-period accounting after a stalled action
+ */
+final class CyclicSchedulerChecks {
+
+    static void run(Check c) throws Exception {
+        CyclicScheduler scheduler = new CyclicScheduler("CyclicCheck");
+        long period = 2_000_000L;
+        int[] runs = new int[1];
+        CyclicScheduler.Task task = scheduler.addTask("stall", period, () -> {
+            // The third release blocks for five periods
+            if (++runs[0] == 3) PreciseTiming.sleepNanos(5 * period);
+        });
+        scheduler.start(200_000_000L);
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (scheduler.isRunning() && System.nanoTime() < deadline) Thread.sleep(10);
+        c.isTrue(!scheduler.isRunning(), "timed schedule ends by itself");
+
+        long expected = 200_000_000L / period;
+        c.isTrue(task.getMissed() >= 3, "stalled periods counted as missed (" + task.getMissed() + ")");
+        c.isTrue(Math.abs(task.getFired() + task.getMissed() - expected) <= 2,
+            "fired + missed covers the schedule (" + task.getFired() + " + " + task.getMissed() + ")");
+        c.equal(task.getMissed(), scheduler.getTotalMissed(), "scheduler total matches the task");
+
+        // An idle scheduler picks up a task added while it has none
+        CyclicScheduler idle = new CyclicScheduler("CyclicIdle");
+        CyclicScheduler.Task first = idle.addTask("first", period, () -> { });
+        idle.start();
+        idle.removeTask(first);
+        Thread.sleep(20);
+        CountDownLatch released = new CountDownLatch(1);
+        idle.addTask("late", period, released::countDown);
+        c.isTrue(released.await(50, TimeUnit.MILLISECONDS), "task added to an idle scheduler runs promptly");
+        idle.stop();
+    }
+}
@@ -0,0 +1,71 @@
+package application;
+
+import java.util.Random;
+
+/**
+ * EcuClock unwrap, drift fit and restart detection on a synthetic ALIVE stream
+ * The simulated ECU runs 50 ppm slow against the host and every frame picks up
+ * 0..2 ms of transport delay, with an undelayed frame now and then.
+ */
+final class EcuClockChecks {
+
+    private static final int CMD_ALIVE = 0x10;
+    private static final long HOST_BASE = 5_000_000_000L;
+    private static final double RATE = 1.0 + 50e-6; // host ms per ECU ms
+    private static final long PERIOD_MS = 5;
+
+    static void run(Check c) {
+        EcuClock clock = new EcuClock();
+        Random random = new Random(1);
+        c.isTrue(!clock.isAligned(), "not aligned before any ALIVE");
+        c.isTrue(Double.isNaN(clock.toEcuMillis(HOST_BASE)), "no ECU time before alignment");
+
+        // 200 s of ALIVEs: three u16 wraps
+        long ecuMs = 1000;
+        for (; ecuMs < 201_000; ecuMs += PERIOD_MS) {
+            feed(clock, ecuMs, random);
+        }
+        long last = ecuMs - PERIOD_MS;
+        c.isTrue(clock.isAligned(), "aligned after the first sample interval");
+        c.equal(last, clock.getLastEcuMillis(), "timestamp unwrapped across three wraps");
+        c.equal(0, clock.getResets(), "wraps are not restarts");
+        double drift = clock.getDriftPpm();
+        c.isTrue(Math.abs(drift - 50.0) < 2.0, "drift fitted to 50 ppm (got " + drift + ")");
+        double mapped = clock.toEcuMillis(hostNanos(last));
+        c.isTrue(Math.abs(mapped - last) < 0.2, "host time maps to ECU time (off by " + (mapped - last) + " ms)");
+        long back = clock.toHostNanos(last);
+        c.isTrue(Math.abs(back - hostNanos(last)) < 200_000, "ECU time maps back to host time");
+
+        // Silence longer than one wrap: the fit still picks the right wrap
+        ecuMs += 100_000;
+        for (long end = ecuMs + 2_000; ecuMs < end; ecuMs += PERIOD_MS) {
+            feed(clock, ecuMs, random);
+        }
+        c.equal(ecuMs - PERIOD_MS, clock.getLastEcuMillis(), "unwrapped after a 100 s gap");
+        c.equal(0, clock.getResets(), "gap is not a restart");
+
+        // ECU restart: the timestamp starts again near zero while host time runs on
+        long restartHost = hostNanos(ecuMs) + 10_000_000L;
+        for (int i = 0; i < 100; i++) {
+            long ts = 20 + i * PERIOD_MS;
+            clock.onFrameReceived(CMD_ALIVE, alive(ts), restartHost + ts * 1_000_000L);
+        }
+        c.equal(1, clock.getResets(), "timestamp jump detected as a restart");
+        c.equal(20 + 99 * PERIOD_MS, clock.getLastEcuMillis(), "timeline restarts at the new timestamp");
+        c.isTrue(clock.isAligned(), "aligned again after the restart");
+    }
+
+    private static void feed(EcuClock clock, long ecuMs, Random random) {
+        long delay = ecuMs % 1000 == 0 ? 0 : (long) (random.nextDouble() * 2_000_000L);
+        clock.onFrameReceived(CMD_ALIVE, alive(ecuMs), hostNanos(ecuMs) + delay);
+    }
+
+    private static long hostNanos(long ecuMs) {
+        return HOST_BASE + (long) (ecuMs * RATE * 1_000_000L);
+    }
+
+    private static byte[] alive(long ecuMs) {
+        int ts = (int) (ecuMs & 0xFFFF);
+        return new byte[] { (byte) ts, (byte) (ts >> 8), 0, 0 };
+    }
+}
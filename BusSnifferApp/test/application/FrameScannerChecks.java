@@ -0,0 +1,131 @@
+package application;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FrameScanner framing, byte orders, reassembly across reads and resynchronisation
+ */
+final class FrameScannerChecks {
+
+    /**
+     * Records everything a scanner reports, in order
+     */
+    static final class Recorder implements FrameScanner.StreamHandler {
+        final List<String> events = new ArrayList<>();
+        final List<byte[]> payloads = new ArrayList<>();
+        final ByteArrayOutputStream other = new ByteArrayOutputStream();
+        int checksumErrors;
+
+        @Override
+        public void onFrame(int cmdId, byte[] payload) {
+            events.add(String.format("0x%02X/%d", cmdId, payload.length));
+            payloads.add(payload);
+        }
+
+        @Override
+        public void onFrameBytes(byte[] data, int offset, int len) {
+            events.add("raw" + len);
+        }
+
+        @Override
+        public void onOtherBytes(byte[] data, int offset, int len) {
+            events.add("text" + len);
+            other.write(data, offset, len);
+        }
+
+        @Override
+        public void onChecksumError() {
+            checksumErrors++;
+        }
+    }
+
+    static byte[] frame(int cmdId, byte[] payload, ByteOrder lengthOrder) {
+        ByteBuffer b = ByteBuffer.allocate(payload.length + 8);
+        b.put(FrameScanner.HEADER);
+        b.order(lengthOrder).putInt(payload.length + 1);
+        b.put((byte) cmdId).put(payload);
+        byte checksum = (byte) cmdId;
+        for (byte x : payload) checksum ^= x;
+        b.put(checksum).put(FrameScanner.TAIL);
+        return b.array();
+    }
+
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] p : parts) out.write(p, 0, p.length);
+        return out.toByteArray();
+    }
+
+    static void run(Check c) {
+        byte[] alive = frame(0x10, new byte[] { 1, 2, 3, 4 }, ByteOrder.LITTLE_ENDIAN);
+        byte[] aliveBe = frame(0x10, new byte[] { 1, 2, 3, 4 }, ByteOrder.BIG_ENDIAN);
+        byte[] empty = frame(0x40, new byte[0], ByteOrder.BIG_ENDIAN);
+
+        // Whole frames in either LEN byte order
+        FrameScanner s = new FrameScanner();
+        Recorder r = new Recorder();
+        s.feed(alive, alive.length, r);
+        s.feed(aliveBe, aliveBe.length, r);
+        s.feed(empty, empty.length, r);
+        c.equal("[raw12, 0x10/4, raw12, 0x10/4, raw8, 0x40/0]", r.events.toString(), "LE, BE and empty frames");
+        c.equal(1, r.payloads.get(0)[0], "payload content");
+        c.equal(0, s.getPendingBytes(), "nothing left pending");
+
+        // One byte per read: frames span reads
+        byte[] stream = concat(alive, aliveBe, alive);
+        s = new FrameScanner();
+        r = new Recorder();
+        for (byte b : stream) s.feed(new byte[] { b }, 1, r);
+        c.equal(3L, s.getValidFrames(), "frames split over single-byte reads");
+        c.equal(0L, s.getDiscardedBytes(), "no bytes discarded when split");
+
+        // Frames back to back with text in between, in one read
+        byte[] text = "dbg 1\n".getBytes();
+        stream = concat(text, alive, text, alive, text);
+        s = new FrameScanner();
+        r = new Recorder();
+        s.feed(stream, stream.length, r);
+        c.equal("[text6, raw12, 0x10/4, text6, raw12, 0x10/4, text6]", r.events.toString(), "text and frames in stream order");
+        c.equal("dbg 1\ndbg 1\ndbg 1\n", new String(r.other.toByteArray()), "text passed through intact");
+
+        // Corrupt checksum is counted and the next good frame still decodes
+        byte[] bad = alive.clone();
+        bad[bad.length - 2] ^= 0x55;
+        stream = concat(bad, alive);
+        s = new FrameScanner();
+        r = new Recorder();
+        s.feed(stream, stream.length, r);
+        c.equal(1L, s.getValidFrames(), "bad frame rejected, good frame kept");
+        c.equal(1, r.checksumErrors, "checksum error reported");
+        c.equal(1L, s.getChecksumErrors(), "checksum error counted");
+
+        // A stray header that looks like a long frame does not swallow the frames after it
+        stream = concat(new byte[] { FrameScanner.HEADER, 0x00, 0x02, 0x00, 0x00 }, alive, alive);
+        s = new FrameScanner();
+        r = new Recorder();
+        s.feed(stream, stream.length, r);
+        c.equal(2L, s.getValidFrames(), "resync after stray header");
+
+        // An unfinished frame waits for the rest
+        s = new FrameScanner();
+        r = new Recorder();
+        s.feed(alive, 7, r);
+        c.equal(0L, s.getValidFrames(), "partial frame not reported");
+        c.equal(7, s.getPendingBytes(), "partial frame kept");
+        s.feed(java.util.Arrays.copyOfRange(alive, 7, alive.length), alive.length - 7, r);
+        c.equal(1L, s.getValidFrames(), "partial frame completed by the next read");
+
+        // Oversized LEN in both orders is garbage, not a pending frame
+        byte[] huge = { FrameScanner.HEADER, 0x7F, 0x7F, 0x7F, 0x7F, 0x10, 0x00, FrameScanner.TAIL };
+        s = new FrameScanner();
+        s.feed(huge, huge.length, null);
+        c.equal(0, s.getPendingBytes(), "impossible length discarded");
+
+        s.reset();
+        c.equal(0L, s.getTotalBytes(), "reset clears statistics");
+    }
+}
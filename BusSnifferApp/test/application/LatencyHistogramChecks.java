@@ -0,0 +1,52 @@
+package application;
+
+/**
+ * LatencyHistogram statistics, bucket accuracy and concurrent recording
+ */
+final class LatencyHistogramChecks {
+
+    static void run(Check c) throws Exception {
+        LatencyHistogram h = new LatencyHistogram();
+        c.equal(0L, h.getPercentile(50), "empty histogram percentile");
+        c.equal("n=0", h.toSummaryString(), "empty summary");
+
+        for (long v = 1; v <= 1000; v++) h.record(v * 1000);
+        c.equal(1000L, h.getCount(), "count");
+        c.equal(1000L, h.getMin(), "min");
+        c.equal(1_000_000L, h.getMax(), "max");
+        c.isTrue(Math.abs(h.getMean() - 500_500.0) < 1e-6, "mean is exact");
+        c.isTrue(within(h.getPercentile(50), 500_000, 0.07), "p50 within bucket width");
+        c.isTrue(within(h.getPercentile(99), 990_000, 0.07), "p99 within bucket width");
+        c.equal(1_000_000L, h.getPercentile(100), "p100 is the max");
+
+        h.record(-5);
+        c.equal(0L, h.getMin(), "negative values clamp to zero");
+
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(5_000_000L);
+        h.add(other);
+        c.equal(1002L, h.getCount(), "add merges counts");
+        c.equal(5_000_000L, h.getMax(), "add merges max");
+
+        h.reset();
+        c.equal(0L, h.getCount(), "reset clears count");
+        c.equal(0L, h.getMax(), "reset clears max");
+
+        // Recording from several threads loses nothing
+        LatencyHistogram shared = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) shared.record(i);
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        c.equal(400_000L, shared.getCount(), "concurrent count");
+        c.equal(99_999L, shared.getMax(), "concurrent max");
+    }
+
+    private static boolean within(long actual, long expected, double tolerance) {
+        return Math.abs(actual - expected) <= expected * tolerance;
+    }
+}
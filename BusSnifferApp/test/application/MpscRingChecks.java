@@ -0,0 +1,110 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MpscRing capacity, drop accounting and per-producer ordering under contention
+ */
+final class MpscRingChecks {
+
+    static void run(Check c) throws Exception {
+        MpscRing<Integer> ring = new MpscRing<>(5);
+        c.equal(8, ring.capacity(), "capacity rounds up to a power of two");
+        c.isTrue(ring.poll() == null, "empty ring polls null");
+
+        for (int i = 0; i < 8; i++) c.isTrue(ring.offer(i), "offer " + i + " fits");
+        c.isTrue(!ring.offer(99), "offer into a full ring is dropped");
+        c.equal(1L, ring.getDroppedCount(), "drop is counted");
+        c.equal(8, ring.size(), "size when full");
+
+        List<Integer> drained = new ArrayList<>();
+        c.equal(3, ring.drain(drained::add, 3), "drain honours max");
+        c.equal(0, (int) drained.get(0), "FIFO order");
+        c.isTrue(ring.offer(8), "slot reusable after drain");
+        ring.drain(drained::add, Integer.MAX_VALUE);
+        c.equal(9, drained.size(), "everything drained");
+        c.equal(8, (int) drained.get(8), "wrapped item comes last");
+
+        boolean npe = false;
+        try {
+            ring.offer(null);
+        } catch (NullPointerException e) {
+            npe = true;
+        }
+        c.isTrue(npe, "null items rejected");
+
+        checkContention(c);
+        checkWakeup(c);
+    }
+
+    // A consumer parked far longer than the test is woken by every empty to non-empty offer
+    private static void checkWakeup(Check c) throws Exception {
+        final int producers = 2;
+        final int perProducer = 20_000;
+        MpscRing<Integer> ring = new MpscRing<>(64);
+        long[] consumed = new long[1];
+        Thread consumer = new Thread(() -> {
+            while (consumed[0] + ring.getDroppedCount() < (long) producers * perProducer) {
+                if (ring.poll() != null) {
+                    consumed[0]++;
+                } else {
+                    java.util.concurrent.locks.LockSupport.parkNanos(60_000_000_000L);
+                }
+            }
+        });
+        consumer.setDaemon(true);
+        ring.setConsumer(consumer);
+        consumer.start();
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    ring.offer(i);
+                    if (i % 64 == 0) Thread.yield(); // let the ring run empty now and then
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread t : threads) t.join();
+        consumer.join(5000);
+        c.isTrue(!consumer.isAlive(), "parked consumer woken for every item (no lost wakeup)");
+        c.equal((long) producers * perProducer, consumed[0] + ring.getDroppedCount(), "woken consumer saw every item");
+    }
+
+    // Every item is either consumed or counted as dropped, and each producer's items stay in order
+    private static void checkContention(Check c) throws Exception {
+        final int producers = 4;
+        final int perProducer = 200_000;
+        MpscRing<long[]> ring = new MpscRing<>(1024);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) ring.offer(new long[] { id, i });
+            });
+        }
+        for (Thread t : threads) t.start();
+
+        long[] last = new long[producers];
+        java.util.Arrays.fill(last, -1);
+        long consumed = 0;
+        boolean ordered = true;
+        while (true) {
+            long[] item = ring.poll();
+            if (item == null) {
+                boolean alive = false;
+                for (Thread t : threads) alive |= t.isAlive();
+                if (!alive && ring.size() == 0) break;
+                continue;
+            }
+            int id = (int) item[0];
+            if (item[1] <= last[id]) ordered = false;
+            last[id] = item[1];
+            consumed++;
+        }
+        c.isTrue(ordered, "per-producer order preserved");
+        c.equal((long) producers * perProducer, consumed + ring.getDroppedCount(), "consumed + dropped = offered");
+    }
+}
@@ -0,0 +1,74 @@
+package application;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * MultiPortCapture merges sources and kinds into one time-ordered stream
+ */
+final class MultiPortCaptureChecks {
+
+    static void run(Check c) throws Exception {
+        MultiPortCapture capture = new MultiPortCapture();
+        capture.setHoldbackMs(20);
+        List<MultiPortCapture.Event> out = new CopyOnWriteArrayList<>();
+        capture.addListener(out::add);
+        MultiPortCapture.Source a = capture.addUnopenedSource("A");
+        MultiPortCapture.Source b = capture.addUnopenedSource("B");
+        capture.start();
+
+        // Each source fed from its own thread and stamped when queued, like a reader thread
+        final int perSource = 5000;
+        Thread ta = new Thread(() -> {
+            for (int i = 0; i < perSource; i++) {
+                if (i % 3 == 0) a.onFrameSent(0x40, new byte[0], System.nanoTime());
+                else a.onFrameReceived(0x10, new byte[] { (byte) i }, System.nanoTime());
+            }
+        });
+        Thread tb = new Thread(() -> {
+            for (int i = 0; i < perSource; i++) {
+                if (i % 5 == 0) b.onTrace("DEBUG: line " + i, System.nanoTime());
+                else b.onFrameReceived(0x11, new byte[] { (byte) i }, System.nanoTime());
+            }
+        });
+        ta.start();
+        tb.start();
+        ta.join();
+        tb.join();
+
+        // Not part of the merged text: frame traces arrive through the observer instead
+        b.onTrace("RX: 7E ...", System.nanoTime());
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (out.size() < 2 * perSource && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        capture.stop();
+
+        c.equal(2 * perSource, out.size(), "every event merged");
+        c.equal(0L, a.getDropped() + b.getDropped(), "nothing dropped");
+        c.equal((long) 2 * perSource, capture.getMerged(), "merged count");
+
+        boolean ordered = true;
+        int tx = 0;
+        int text = 0;
+        int nextA = 0;
+        int nextB = 0;
+        boolean perSourceOrder = true;
+        for (int i = 0; i < out.size(); i++) {
+            MultiPortCapture.Event e = out.get(i);
+            if (i > 0 && e.nanos < out.get(i - 1).nanos) ordered = false;
+            if (e.kind == MultiPortCapture.Kind.TX) tx++;
+            if (e.kind == MultiPortCapture.Kind.TEXT) {
+                text++;
+                if (!e.text.equals("line " + nextB)) perSourceOrder = false;
+            } else if (e.payload.length > 0 && (e.payload[0] & 0xFF) != ("A".equals(e.source) ? nextA : nextB) % 256) {
+                perSourceOrder = false;
+            }
+            if ("A".equals(e.source)) nextA++;
+            else nextB++;
+        }
+        c.isTrue(ordered, "merged stream is in time order");
+        c.isTrue(perSourceOrder, "each source keeps its own order, DEBUG prefix stripped");
+        c.equal((perSource + 2) / 3, tx, "TX events merged");
+        c.equal(perSource / 5, text, "TEXT events merged, frame traces skipped");
+    }
+}
@@ -0,0 +1,28 @@
+package application;
+
+/**
+ * PreciseTiming duration parsing and deadline sleeps
+ */
+final class PreciseTimingChecks {
+
+    static void run(Check c) {
+        c.equal(5_000_000L, PreciseTiming.parseDuration("5ms"), "5ms");
+        c.equal(2_000_000_000L, PreciseTiming.parseDuration("2s"), "2s");
+        c.equal(250_000L, PreciseTiming.parseDuration("250us"), "250us");
+        c.equal(100L, PreciseTiming.parseDuration("100ns"), "100ns");
+        c.equal(10_000_000L, PreciseTiming.parseDuration("10"), "plain number is ms");
+        c.equal(1_500_000L, PreciseTiming.parseDuration(" 1.5MS "), "fraction, case and blanks");
+
+        boolean rejected = false;
+        try {
+            PreciseTiming.parseDuration("-1ms");
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        c.isTrue(rejected, "negative duration rejected");
+
+        long deadline = System.nanoTime() + 2_000_000L;
+        c.isTrue(PreciseTiming.sleepUntil(deadline), "sleepUntil returns true");
+        c.isTrue(System.nanoTime() >= deadline, "sleepUntil does not return early");
+    }
+}
@@ -0,0 +1,92 @@
+package application;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReadSizer modes, adaptive switching on synthetic arrival rates and chunk waiting
+ */
+final class ReadSizerChecks {
+
+    static void run(Check c) {
+        ReadSizer sizer = new ReadSizer();
+        c.isTrue(!sizer.isBatching(), "LOW_LATENCY by default");
+        sizer.setMode(ReadSizer.Mode.THROUGHPUT);
+        c.isTrue(sizer.isBatching(), "THROUGHPUT always batches");
+        sizer.setMode(null);
+        c.equal(ReadSizer.Mode.LOW_LATENCY, sizer.getMode(), "null mode falls back to LOW_LATENCY");
+
+        checkAdaptive(c);
+        checkDeferRead(c);
+        checkAwaitChunk(c);
+    }
+
+    // 115200 baud 8N1 carries 11520 B/s: batch above 25%, go back below 15%
+    private static void checkAdaptive(Check c) {
+        ReadSizer sizer = new ReadSizer();
+        sizer.setBaudRate(115200);
+        sizer.setMode(ReadSizer.Mode.ADAPTIVE);
+        c.isTrue(!sizer.isBatching(), "ADAPTIVE starts per-event");
+
+        long t = 1_000_000_000L;
+        for (int i = 0; i < 50; i++) {
+            t += 1_000_000L; // 16 B every ms = 16000 B/s
+            sizer.recordRead(16, t, t + 1000, sizer.isBatching());
+        }
+        c.isTrue(sizer.isBatching(), "high rate switches to batching");
+        c.equal(1L, sizer.getSwitches(), "one switch up");
+        c.isTrue(Math.abs(sizer.getArrivalRate() - 16000) < 500, "arrival rate tracked (" + (long) sizer.getArrivalRate() + " B/s)");
+
+        // 2000 B/s (17%) sits in the hysteresis band; 1000 B/s (8.7%) is below the leave threshold
+        for (int i = 0; i < 100; i++) {
+            t += 2_000_000L;
+            sizer.recordRead(4, t, t + 1000, sizer.isBatching());
+        }
+        c.isTrue(sizer.isBatching(), "hysteresis band keeps batching");
+        for (int i = 0; i < 100; i++) {
+            t += 4_000_000L;
+            sizer.recordRead(4, t, t + 1000, sizer.isBatching());
+        }
+        c.isTrue(!sizer.isBatching(), "low rate goes back to per-event");
+        c.equal(2L, sizer.getSwitches(), "one switch down");
+        c.isTrue(sizer.getStats(true).getReads() > 0 && sizer.getStats(false).getReads() > 0, "reads counted per mode");
+        c.equal(250L, sizer.getStats(true).getReads() + sizer.getStats(false).getReads(), "every read counted once");
+
+        sizer.setMode(ReadSizer.Mode.LOW_LATENCY);
+        for (int i = 0; i < 50; i++) {
+            t += 1_000_000L;
+            sizer.recordRead(16, t, t + 1000, false);
+        }
+        c.isTrue(!sizer.isBatching(), "fixed modes ignore the arrival rate");
+    }
+
+    private static void checkDeferRead(Check c) {
+        ReadSizer sizer = new ReadSizer();
+        sizer.setChunk(64, 500);
+        c.isTrue(!sizer.deferRead(10, 0), "per-event reads never defer");
+
+        sizer.setMode(ReadSizer.Mode.THROUGHPUT);
+        long t = 5_000_000L;
+        c.isTrue(sizer.deferRead(10, t), "small read deferred");
+        c.isTrue(sizer.deferRead(20, t + 300_000L), "still growing, deferred");
+        c.isTrue(sizer.deferRead(20, t + 700_000L), "idle gap counts from last growth");
+        c.isTrue(!sizer.deferRead(20, t + 900_000L), "idle line releases the read");
+        c.equal(t, sizer.getFirstSeenNanos(), "first-seen stamp kept across polls");
+        c.isTrue(!sizer.deferRead(64, t + 1_000_000L), "full chunk read immediately");
+        c.equal(t + 1_000_000L, sizer.getFirstSeenNanos(), "new chunk restarts first-seen");
+    }
+
+    private static void checkAwaitChunk(Check c) {
+        ReadSizer sizer = new ReadSizer();
+        sizer.setChunk(64, 2000);
+        c.equal(5, sizer.awaitChunk(() -> 99, 5), "per-event reads do not wait");
+
+        sizer.setMode(ReadSizer.Mode.THROUGHPUT);
+        AtomicInteger buffered = new AtomicInteger(8);
+        c.equal(64, sizer.awaitChunk(() -> buffered.addAndGet(8), 8), "waits until a chunk is buffered");
+
+        long start = System.nanoTime();
+        c.equal(8, sizer.awaitChunk(() -> 8, 8), "idle line ends the wait");
+        c.isTrue(System.nanoTime() - start >= 2_000_000L, "waited at least the inter-byte timeout");
+        c.equal(-1, sizer.awaitChunk(() -> -1, 8), "port failure reported");
+    }
+}
@@ -0,0 +1,73 @@
+package application;
+
+/**
+ * RttTester probe accounting over the in-memory loopback, including loss and duplicates
+ */
+final class RttTesterChecks {
+
+    /**
+     * Loopback that drops or repeats selected probes
+     */
+    static final class FaultyLink implements RttTester.Link {
+        private final RttTester.LoopbackLink loopback = new RttTester.LoopbackLink(0);
+        private final int dropEvery;
+        private final int repeatEvery;
+        private int count;
+
+        FaultyLink(int dropEvery, int repeatEvery) {
+            this.dropEvery = dropEvery;
+            this.repeatEvery = repeatEvery;
+        }
+
+        @Override
+        public boolean open(RttTester.Receiver receiver) {
+            return loopback.open(receiver);
+        }
+
+        @Override
+        public void send(byte[] frame) {
+            count++;
+            if (count % dropEvery == 0) return;
+            loopback.send(frame);
+            if (count % repeatEvery == 0) loopback.send(frame);
+        }
+
+        @Override
+        public void close() {
+            loopback.close();
+        }
+
+        @Override
+        public String describe() {
+            return "faulty loopback";
+        }
+    }
+
+    static void run(Check c) {
+        RttTester tester = new RttTester(new RttTester.LoopbackLink(300))
+            .setProbes(200).setWarmup(20).setRate(2000).setTimeoutMs(200);
+        RttTester.Result[] results = tester.run(4, 64, 100_000);
+        c.equal(3, results.length, "one result per size");
+        for (RttTester.Result r : results) {
+            String size = " (" + r.getPayloadSize() + " B)";
+            c.equal(200L, r.getSent(), "all probes sent" + size);
+            c.equal(200L, r.getReceived(), "all probes answered" + size);
+            c.equal(0L, r.getLost(), "no loss" + size);
+            c.equal(0L, r.getDuplicates(), "no duplicates" + size);
+            c.equal(200L, r.getRtt().getCount(), "every reply timed" + size);
+            c.isTrue(r.getRtt().getMin() >= 300_000L, "RTT includes the link delay" + size);
+        }
+        c.equal(FrameScanner.MAX_PAYLOAD, results[2].getPayloadSize(), "payload size clamped to the frame limit");
+
+        // 100 probes without warm-up: every 10th dropped, every 15th repeated unless dropped (15, 45, 75)
+        RttTester.Result r = new RttTester(new FaultyLink(10, 15))
+            .setProbes(100).setWarmup(0).setRate(2000).setTimeoutMs(100)
+            .run(8)[0];
+        c.equal(100L, r.getSent(), "faulty link: all probes sent");
+        c.equal(90L, r.getReceived(), "faulty link: dropped probes not answered");
+        c.equal(10L, r.getLost(), "faulty link: loss counted");
+        c.equal(0.1, r.getLossRatio(), "faulty link: loss ratio");
+        c.equal(3L, r.getDuplicates(), "faulty link: duplicates counted, not timed twice");
+        c.equal(90L, r.getRtt().getCount(), "faulty link: one RTT per answered probe");
+    }
+}
@@ -0,0 +1,99 @@
+package application;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * SeatControllerSnifferManager reassembles frames and text lines split across reads
+ */
+final class SnifferManagerChecks {
+
+    static void run(Check c) {
+        List<String> lines = new ArrayList<>();
+        TraceListener traces = new TraceListener() {
+            @Override
+            public void onTrace(String message) {
+                if (message.startsWith("DEBUG: ")) lines.add(message.substring(7));
+            }
+
+            @Override
+            public void onFrame(byte[] data, int len) {
+            }
+        };
+        SeatControllerSnifferManager manager = new SeatControllerSnifferManager(traces);
+        manager.setDispatcher(Runnable::run);
+        List<Integer> received = new ArrayList<>();
+        manager.addFrameObserver((cmdId, payload, rxNanos) -> received.add(payload[0] & 0xFF));
+
+        // ECU frames (LE length) and host-style frames (BE length) interleaved with debug lines
+        java.io.ByteArrayOutputStream stream = new java.io.ByteArrayOutputStream();
+        final int frames = 200;
+        for (int i = 0; i < frames; i++) {
+            ByteOrder order = i % 2 == 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            byte[] f = FrameScannerChecks.frame(0x10, new byte[] { (byte) i, 0, 0, 0 }, order);
+            stream.write(f, 0, f.length);
+            if (i % 10 == 0) {
+                byte[] text = ("boot step " + i + "\n").getBytes();
+                stream.write(text, 0, text.length);
+            }
+        }
+        byte[] all = stream.toByteArray();
+
+        // Random read sizes, as a UART driver would deliver them
+        Random random = new Random(42);
+        int pos = 0;
+        while (pos < all.length) {
+            int n = Math.min(all.length - pos, 1 + random.nextInt(17));
+            byte[] chunk = java.util.Arrays.copyOfRange(all, pos, pos + n);
+            manager.onBytes(chunk, n);
+            pos += n;
+        }
+
+        c.equal(frames, received.size(), "every split frame delivered");
+        boolean inOrder = true;
+        for (int i = 0; i < received.size(); i++) {
+            if (received.get(i) != (i & 0xFF)) inOrder = false;
+        }
+        c.isTrue(inOrder, "frames delivered in order");
+        c.equal(frames / 10, lines.size(), "every debug line delivered");
+        c.equal("boot step 0", lines.isEmpty() ? null : lines.get(0), "debug line intact");
+        c.equal(0L, manager.getTrafficCounters().getDecodeErrors(), "no decode errors");
+
+        // Profile caches are per port
+        ProfileCache a = ProfileCache.forPort("/dev/ttyUSB0");
+        c.isTrue(a == ProfileCache.forPort("/dev/ttyUSB0"), "same port, same cache");
+        c.isTrue(a != ProfileCache.forPort("/dev/ttyUSB1"), "different port, different cache");
+        c.isTrue(ProfileCache.forPort(null) == ProfileCache.shared(), "no port uses the shared cache");
+
+        checkBatch(c, manager);
+    }
+
+    // A batch encodes back-to-back frames that decode to what was added
+    private static void checkBatch(Check c, SeatControllerSnifferManager manager) {
+        SeatControllerSnifferManager.Batch batch = manager.batch()
+            .alive(0x12345, 7)
+            .gearbox(3, 150, 400)
+            .heightCurrent(4.2)
+            .slideCurrent(5.0)
+            .inclineCurrent(90.0)
+            .frame((byte) 0x42, null);
+        c.equal(6, batch.size(), "batch grows past its initial capacity");
+
+        List<String> decoded = new ArrayList<>();
+        byte[] bytes = batch.toBytes();
+        new FrameScanner().feed(bytes, bytes.length,
+            (cmdId, payload) -> decoded.add(String.format("%02X:%s", cmdId, hex(payload))));
+        c.equal(6, decoded.size(), "every batched frame decodes");
+        c.equal("10:45230700", decoded.get(0), "ALIVE payload: u16 LE timestamp and counter");
+        c.equal("11:030096009001", decoded.get(1), "GEARBOX payload: u16 LE gear and torques");
+        c.equal("42:", decoded.get(5), "empty payload frame");
+    }
+
+    private static String hex(byte[] data) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : data) sb.append(String.format("%02X", b & 0xFF));
+        return sb.toString();
+    }
+}
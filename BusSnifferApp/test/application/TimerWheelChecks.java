@@ -0,0 +1,102 @@
+package application;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TimerWheel firing and cancellation, and RequestTracker completion and timeouts
+ */
+final class TimerWheelChecks {
+
+    static void run(Check c) throws Exception {
+        // Small wheel so delays wrap around several rounds
+        TimerWheel wheel = new TimerWheel(5, 4);
+
+        long t0 = System.nanoTime();
+        AtomicLong firedAt = new AtomicLong();
+        CountDownLatch fired = new CountDownLatch(1);
+        TimerWheel.Timeout t = wheel.schedule(() -> {
+            firedAt.set(System.nanoTime());
+            fired.countDown();
+        }, 100);
+        c.isTrue(fired.await(2, TimeUnit.SECONDS), "task fires");
+        long elapsedMs = (firedAt.get() - t0) / 1_000_000;
+        c.isTrue(elapsedMs >= 95, "task does not fire early after several rounds (" + elapsedMs + " ms)");
+        c.isTrue(t.isDone(), "fired timeout is done");
+        c.isTrue(!t.cancel(), "cancel after firing returns false");
+
+        AtomicInteger cancelledRuns = new AtomicInteger();
+        TimerWheel.Timeout cancelled = wheel.schedule(cancelledRuns::incrementAndGet, 20);
+        c.isTrue(cancelled.cancel(), "cancel before firing returns true");
+        CountDownLatch zero = new CountDownLatch(1);
+        wheel.schedule(zero::countDown, 0);
+        c.isTrue(zero.await(1, TimeUnit.SECONDS), "zero delay fires");
+        Thread.sleep(60);
+        c.equal(0, cancelledRuns.get(), "cancelled task never runs");
+
+        checkTracker(c, wheel);
+    }
+
+    private static void checkTracker(Check c, TimerWheel wheel) throws Exception {
+        RequestTracker tracker = new RequestTracker(wheel);
+
+        CompletableFuture<String> first = tracker.register(0x40, 1000, "first");
+        CompletableFuture<String> second = tracker.register(0x40, 1000, "second");
+        c.equal(2, tracker.inFlight(), "two requests in flight");
+        c.isTrue(tracker.complete(0x40, "a"), "response completes a request");
+        c.equal("a", first.getNow(null), "oldest request completed first");
+        c.isTrue(!second.isDone(), "newer request still waiting");
+        c.isTrue(tracker.complete(0x40, "b"), "second response");
+        c.equal("b", second.getNow(null), "second request completed");
+        c.isTrue(!tracker.complete(0x40, "late"), "unsolicited response reported");
+        c.isTrue(!tracker.complete(0x50, "x"), "unknown key reported");
+
+        CompletableFuture<Object> slow = tracker.register(0x50, 30, "slow request");
+        Throwable cause = null;
+        try {
+            slow.get(2, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            cause = e.getCause();
+        }
+        c.isTrue(cause instanceof TimeoutException, "unanswered request times out");
+        c.isTrue(cause != null && cause.getMessage().startsWith("slow request"), "timeout names the request");
+        c.equal(0, tracker.inFlight(), "timed-out request removed");
+        c.isTrue(!tracker.complete(0x50, "late"), "late response after timeout ignored");
+
+        // A late response must not complete the retry that followed the timeout
+        CompletableFuture<Object> lost = tracker.register(0x70, 30, "lost");
+        c.isTrue(awaitFailure(lost), "first attempt times out");
+        CompletableFuture<Object> retry = tracker.register(0x70, 1000, "retry");
+        c.isTrue(!tracker.complete(0x70, "stale"), "late response of the timed-out attempt dropped");
+        c.isTrue(!retry.isDone(), "retry still waiting after the stale response");
+        c.isTrue(tracker.complete(0x70, "fresh"), "next response completes the retry");
+        c.equal("fresh", retry.getNow(null), "retry gets its own response");
+
+        // The tombstone expires after one more timeout period
+        CompletableFuture<Object> expired = tracker.register(0x71, 30, "expired");
+        c.isTrue(awaitFailure(expired), "request times out");
+        Thread.sleep(150);
+        CompletableFuture<Object> next = tracker.register(0x71, 1000, "next");
+        c.isTrue(tracker.complete(0x71, "ok"), "response after the tombstone expired is delivered");
+        c.equal("ok", next.getNow(null), "next request completed");
+
+        CompletableFuture<Object> pending = tracker.register(0x60, 1000, "pending");
+        tracker.failAll(new IllegalStateException("disconnected"));
+        c.isTrue(pending.isCompletedExceptionally(), "failAll fails outstanding requests");
+        c.equal(0, tracker.inFlight(), "failAll empties the tracker");
+    }
+
+    private static boolean awaitFailure(CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(2, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause() instanceof TimeoutException;
+        }
+        return false;
+    }
+}
@@ -59,8 +59,7 @@ public class EepromGUI extends JFrame {
         settingsPanel.add(new JLabel("Port:"));
         portCombo = new JComboBox<>();
         portCombo.setPreferredSize(new Dimension(200, 30));
-        List<String> ports = PortUtil.getAvailablePortNames();
-        for (String p : ports) portCombo.addItem(p);
+        portCombo.addItem("Scanning ports...");
         settingsPanel.add(portCombo);
 
         settingsPanel.add(new JLabel("Baud:"));
@@ -69,6 +68,7 @@ public class EepromGUI extends JFrame {
         settingsPanel.add(baudField);
 
         connectBtn = createStyledButton("Connect");
+        connectBtn.setEnabled(false); // enabled once the port list is available
         disconnectBtn = createStyledButton("Disconnect");
         disconnectBtn.setEnabled(false);
         
@@ -255,9 +255,33 @@ public class EepromGUI extends JFrame {
         setLocationRelativeTo(null);
         setVisible(true);
 
+        loadPortsInBackground();
         new Thread(this::readSerial).start();
     }
 
+    /**
+     * Enumerate ports (and load the jSerialComm native library) off the EDT
+     */
+    private void loadPortsInBackground() {
+        new SwingWorker<List<String>, Void>() {
+            @Override
+            protected List<String> doInBackground() {
+                return PortUtil.getAvailablePortNames();
+            }
+
+            @Override
+            protected void done() {
+                portCombo.removeAllItems();
+                try {
+                    for (String p : get()) portCombo.addItem(p);
+                } catch (Exception e) {
+                    traceArea.append("Port enumeration failed: " + e.getMessage() + "\n");
+                }
+                connectBtn.setEnabled(true);
+            }
+        }.execute();
+    }
+
     private void connectToArduino() {
         String portName = (String) portCombo.getSelectedItem();
         int baudRate = Integer.parseInt(baudField.getText());